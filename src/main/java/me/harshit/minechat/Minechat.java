@@ -7,16 +7,27 @@ import me.harshit.minechat.api.GroupAPIImpl;
 import me.harshit.minechat.commands.ChatCommandHandler;
 import me.harshit.minechat.commands.FriendCommandHandler;
 import me.harshit.minechat.commands.GroupCommandHandler;
+import me.harshit.minechat.database.CacheSnapshot;
+import me.harshit.minechat.database.ChangeStreamWatcher;
 import me.harshit.minechat.database.DatabaseManager;
 import me.harshit.minechat.database.FriendManager;
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.database.GroupRecommender;
+import me.harshit.minechat.database.GroupTrending;
+import me.harshit.minechat.database.OnlinePlayerRegistry;
+import me.harshit.minechat.database.PlayerSessionManager;
 import me.harshit.minechat.database.UserDataManager;
+import me.harshit.minechat.database.WorkExecutor;
 import me.harshit.minechat.listeners.ChatListener;
 import me.harshit.minechat.listeners.PlayerDataListener;
 import me.harshit.minechat.ranks.RankManager;
+import me.harshit.minechat.web.DeliveryQueue;
 import me.harshit.minechat.web.EmbeddedWebServer;
+import me.harshit.minechat.web.SessionTokens;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.bukkit.plugin.ServicePriority;
@@ -28,6 +39,12 @@ public final class Minechat extends JavaPlugin {
     private UserDataManager userDataManager;
     private FriendManager friendManager;
     private GroupManager groupManager;
+    private PlayerSessionManager sessionManager;
+    private final OnlinePlayerRegistry playerRegistry = new OnlinePlayerRegistry();
+    private GroupRecommender groupRecommender;
+    private CacheSnapshot cacheSnapshot;
+    private WorkExecutor workers;
+    private ChangeStreamWatcher changeStreamWatcher;
     private RankManager rankManager;
     private FriendAPI friendAPI;
     private GroupAPI groupAPI;
@@ -39,6 +56,8 @@ public final class Minechat extends JavaPlugin {
     private GroupCommandHandler groupCommandHandler;
 
     private me.harshit.minechat.web.WebAPIHandler webAPIHandler;
+    private SessionTokens sessionTokens;
+    private DeliveryQueue deliveryQueue;
     private me.harshit.minechat.web.MinechatWebSocketServer webSocketServer;
 
     public static boolean QUIET_WS_LOGS = true;
@@ -62,6 +81,9 @@ public final class Minechat extends JavaPlugin {
             printBanner(debug);
         }
 
+        workers = new WorkExecutor(this);
+        getLogger().info("Background work runs on " + (workers.isVirtual() ? "virtual threads" : "a platform thread pool"));
+
         databaseManager = new DatabaseManager(this);
 
         if (databaseManager.connect()) {
@@ -73,20 +95,91 @@ public final class Minechat extends JavaPlugin {
 
             groupManager = new GroupManager(databaseManager.getDatabase(), this);
 
-            friendAPI = new FriendAPIImpl(friendManager, this);
-            groupAPI = new GroupAPIImpl(groupManager, this);
+            sessionManager = new PlayerSessionManager(this, friendManager, groupManager);
+            // players already online after a reload
+            for (org.bukkit.entity.Player player : getServer().getOnlinePlayers()) {
+                sessionManager.open(player.getUniqueId(), player.getName(),
+                        rankManager.getCleanRank(player), rankManager.getFormattedRank(player));
+            }
 
-            webAPIHandler = new me.harshit.minechat.web.WebAPIHandler(this, userDataManager, friendManager, groupManager);
+            groupRecommender = new GroupRecommender(databaseManager.getDatabase(), groupManager, friendManager, sessionManager, this);
 
-            if (getConfig().getBoolean("web.enable-api", true)) {
-                webServer = new EmbeddedWebServer(this, databaseManager, userDataManager, friendManager, groupManager);
-                webServer.start();
+            // warm start: names, ranks and groups from the last run, checked against mongo right after
+            boolean restored = false;
+            if (getConfig().getBoolean("cache.snapshot.enable", true)) {
+                cacheSnapshot = new CacheSnapshot(this, userDataManager, groupManager, groupRecommender);
+                restored = cacheSnapshot.load();
             }
+            boolean reconcile = restored;
+
+            // search indexes + one time backfill of the search fields, then the in memory name index
+            getServer().getScheduler().runTaskAsynchronously(this, () -> {
+                if (reconcile) {
+                    cacheSnapshot.reconcile();
+                }
+                userDataManager.ensureSearchIndexes();
+                groupManager.ensureSearchIndexes();
+                userDataManager.loadNameIndex();
+                groupManager.rebuildFilters();
+                friendManager.rebuildFilters();
+                groupManager.getTrending().load();
+                groupManager.getStats().ensureIndexes();
+                groupRecommender.rebuildIndex();
+            });
+
+            // edits made by other servers on the same database
+            if (getConfig().getBoolean("mongodb.change-streams", true)) {
+                changeStreamWatcher = new ChangeStreamWatcher(databaseManager.getDatabase(), this);
+                groupManager.registerChangeHandlers(changeStreamWatcher);
+                friendManager.registerChangeHandlers(changeStreamWatcher);
+                userDataManager.registerChangeHandlers(changeStreamWatcher);
+                sessionManager.registerChangeHandlers(changeStreamWatcher);
+                changeStreamWatcher.start();
+            }
+
+            startRankRefresh();
+            startGroupActivity();
+
+            // bloom filters can't forget keys, a periodic rebuild drops deleted/renamed entries and resizes them
+            long filterTicks = Math.max(1, getConfig().getInt("bloom-filters.rebuild-minutes", 60)) * 60L * 20L;
+            getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+                userDataManager.rebuildFilters();
+                groupManager.rebuildFilters();
+                friendManager.rebuildFilters();
+            }, filterTicks, filterTicks);
+
+            if (cacheSnapshot != null) {
+                long snapshotTicks = Math.max(1, getConfig().getInt("cache.snapshot.interval-minutes", 10)) * 60L * 20L;
+                getServer().getScheduler().runTaskTimerAsynchronously(this, cacheSnapshot::save, snapshotTicks, snapshotTicks);
+            }
+
+            friendAPI = new FriendAPIImpl(friendManager, sessionManager, workers, this);
+            groupAPI = new GroupAPIImpl(groupManager, workers, this);
+
+            sessionTokens = new SessionTokens(this);
+
+            // web chat reaches players in game through one drain per tick
+            deliveryQueue = new DeliveryQueue(this);
+            getServer().getScheduler().runTaskTimer(this, deliveryQueue::drain, 1L, 1L);
+
+            webAPIHandler = new me.harshit.minechat.web.WebAPIHandler(this, userDataManager, friendManager, groupManager);
 
             if (getConfig().getBoolean("web.enable-websocket", true)) {
                 int wsPort = getConfig().getInt("web.websocket-port", 8081);
                 webSocketServer = new me.harshit.minechat.web.MinechatWebSocketServer(this, webAPIHandler, wsPort);
                 webAPIHandler.setWebSocketServer(webSocketServer);
+            }
+
+            if (getConfig().getBoolean("web.enable-api", true)) {
+                webServer = new EmbeddedWebServer(this, databaseManager, userDataManager, friendManager, groupManager);
+                if (webSocketServer != null && getConfig().getBoolean("web.server.shared-port", true)) {
+                    webServer.attachWebSocket(webSocketServer);
+                }
+                webServer.start();
+            }
+
+            // no-op when /ws is already served on the web port
+            if (webSocketServer != null) {
                 webSocketServer.start();
             }
         } else {
@@ -105,6 +198,14 @@ public final class Minechat extends JavaPlugin {
         getServer().getPluginManager().registerEvents(chatListener, this);
         getServer().getPluginManager().registerEvents(playerDataListener, this);
 
+        // players still online after a reload never fire a join
+        List<OnlinePlayerRegistry.OnlinePlayer> alreadyOnline = new ArrayList<>();
+        for (org.bukkit.entity.Player player : getServer().getOnlinePlayers()) {
+            alreadyOnline.add(new OnlinePlayerRegistry.OnlinePlayer(player.getUniqueId(), player.getName(), player.getWorld().getName(),
+                    rankManager.getCleanRank(player), rankManager.getFormattedRank(player), System.currentTimeMillis()));
+        }
+        playerRegistry.replaceAll(alreadyOnline);
+
         registerCommands();
 
     registerAPIService();
@@ -121,6 +222,50 @@ public final class Minechat extends JavaPlugin {
                 .color(NamedTextColor.GREEN));
     }
 
+    // online ranks are sampled on the main thread (rank plugins aren't thread safe) and written behind in bulk
+    private void startRankRefresh() {
+        long refreshTicks = Math.max(1, getConfig().getInt("ranks.refresh-interval-seconds", 60)) * 20L;
+        long flushTicks = Math.max(1, getConfig().getInt("ranks.flush-interval-seconds", 10)) * 20L;
+
+        getServer().getScheduler().runTaskTimer(this, () -> {
+            List<OnlinePlayerRegistry.OnlinePlayer> online = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (org.bukkit.entity.Player player : getServer().getOnlinePlayers()) {
+                String cleanRank = rankManager.getCleanRank(player);
+                String formattedRank = rankManager.getFormattedRank(player);
+                userDataManager.queueRankUpdate(player.getUniqueId(), player.getName(), cleanRank, formattedRank);
+                sessionManager.updateRank(player.getUniqueId(), cleanRank, formattedRank);
+                online.add(new OnlinePlayerRegistry.OnlinePlayer(player.getUniqueId(), player.getName(),
+                        player.getWorld().getName(), cleanRank, formattedRank, now));
+            }
+            playerRegistry.replaceAll(online);
+        }, refreshTicks, refreshTicks);
+
+        getServer().getScheduler().runTaskTimerAsynchronously(this, userDataManager::flushRankUpdates, flushTicks, flushTicks);
+    }
+
+    // trending scores, group stats and recommendations live in memory, counts are written behind
+    // and every server's counts are merged back in on resync
+    private void startGroupActivity() {
+        GroupTrending trending = groupManager.getTrending();
+        long refreshTicks = Math.max(1, getConfig().getInt("chat-groups.trending.refresh-seconds", 30)) * 20L;
+        long flushTicks = Math.max(1, getConfig().getInt("chat-groups.trending.flush-interval-seconds", 60)) * 20L;
+        long resyncTicks = Math.max(1, getConfig().getInt("chat-groups.trending.resync-minutes", 15)) * 60L * 20L;
+
+        getServer().getScheduler().runTaskTimerAsynchronously(this, trending::refreshTopGroups, refreshTicks, refreshTicks);
+        getServer().getScheduler().runTaskTimerAsynchronously(this, trending::flush, flushTicks, flushTicks);
+        getServer().getScheduler().runTaskTimerAsynchronously(this, trending::flushAndRebuild, resyncTicks, resyncTicks);
+
+        long statsTicks = Math.max(1, getConfig().getInt("chat-groups.stats.flush-interval-seconds", 30)) * 20L;
+        getServer().getScheduler().runTaskTimerAsynchronously(this, groupManager.getStats()::flush, statsTicks, statsTicks);
+
+        long recommendTicks = Math.max(1, getConfig().getInt("chat-groups.recommendations.refresh-seconds", 60)) * 20L;
+        long indexTicks = Math.max(1, getConfig().getInt("chat-groups.recommendations.index-refresh-minutes", 10)) * 60L * 20L;
+        getServer().getScheduler().runTaskTimerAsynchronously(this,
+                () -> groupRecommender.refreshOnline(recommendTicks * 50L), recommendTicks, recommendTicks);
+        getServer().getScheduler().runTaskTimerAsynchronously(this, groupRecommender::rebuildIndex, indexTicks, indexTicks);
+    }
+
     private void setupQuietLoggers() {
         boolean debug = getConfig().getBoolean("logging.debug", false);
         if (debug) return; 
@@ -153,6 +298,33 @@ public final class Minechat extends JavaPlugin {
             webAPIHandler.shutdown();
         }
 
+        if (changeStreamWatcher != null) {
+            changeStreamWatcher.stop();
+        }
+
+        if (groupManager != null) {
+            groupManager.getTrending().flush();
+            groupManager.getStats().flush();
+        }
+
+        if (cacheSnapshot != null) {
+            cacheSnapshot.save();
+        }
+
+        if (userDataManager != null) {
+            userDataManager.flushRankUpdates();
+            userDataManager.shutdown();
+        }
+
+        // queued websocket and api work finishes before the connection goes away
+        if (workers != null) {
+            workers.shutdown();
+        }
+
+        if (deliveryQueue != null) {
+            deliveryQueue.flush();
+        }
+
         if (databaseManager != null) {
             databaseManager.disconnect();
         }
@@ -236,10 +408,43 @@ public final class Minechat extends JavaPlugin {
         return groupManager;
     }
 
+    public PlayerSessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public GroupRecommender getGroupRecommender() {
+        return groupRecommender;
+    }
+
+    // who is online, safe to read from any thread
+    public OnlinePlayerRegistry getPlayerRegistry() {
+        return playerRegistry;
+    }
+
+    public WorkExecutor getWorkers() {
+        return workers;
+    }
+
+    public CacheSnapshot getCacheSnapshot() {
+        return cacheSnapshot;
+    }
+
+    public ChangeStreamWatcher getChangeStreamWatcher() {
+        return changeStreamWatcher;
+    }
+
     public FriendManager getFriendManager() {
         return friendManager;
     }
 
+    public SessionTokens getSessionTokens() {
+        return sessionTokens;
+    }
+
+    public DeliveryQueue getDeliveryQueue() {
+        return deliveryQueue;
+    }
+
     public me.harshit.minechat.web.WebAPIHandler getWebAPIHandler() {
         return webAPIHandler;
     }
@@ -1,10 +1,13 @@
 package me.harshit.minechat.api;
 
+import me.harshit.minechat.Minechat;
 import me.harshit.minechat.database.FriendManager;
+import me.harshit.minechat.database.PlayerSessionManager;
+import me.harshit.minechat.database.WorkExecutor;
+import me.harshit.minechat.model.PlayerSession;
 import org.bson.Document;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.java.JavaPlugin;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -17,10 +20,14 @@ import java.util.concurrent.CompletableFuture;
 public class FriendAPIImpl implements FriendAPI {
 
     private final FriendManager friendManager;
-    private final JavaPlugin plugin;
+    private final PlayerSessionManager sessionManager;
+    private final WorkExecutor workers;
+    private final Minechat plugin;
 
-    public FriendAPIImpl(FriendManager friendManager, JavaPlugin plugin) {
+    public FriendAPIImpl(FriendManager friendManager, PlayerSessionManager sessionManager, WorkExecutor workers, Minechat plugin) {
         this.friendManager = friendManager;
+        this.sessionManager = sessionManager;
+        this.workers = workers;
         this.plugin = plugin;
     }
 
@@ -33,7 +40,7 @@ public class FriendAPIImpl implements FriendAPI {
     @Override
     public CompletableFuture<Boolean> sendFriendRequest(UUID senderUUID, String senderName,
                                                        UUID targetUUID, String targetName) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.sendFriendRequest(senderUUID, senderName, targetUUID, targetName));
     }
 
@@ -44,7 +51,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<Boolean> acceptFriendRequest(UUID playerUUID, UUID requesterUUID) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.acceptFriendRequest(playerUUID, requesterUUID));
     }
 
@@ -55,7 +62,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<Boolean> denyFriendRequest(UUID playerUUID, UUID requesterUUID) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.denyFriendRequest(playerUUID, requesterUUID));
     }
 
@@ -66,7 +73,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<Boolean> removeFriend(UUID playerUUID, UUID friendUUID) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.removeFriend(playerUUID, friendUUID));
     }
 
@@ -77,7 +84,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<Boolean> areFriends(UUID player1UUID, UUID player2UUID) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.areFriends(player1UUID, player2UUID));
     }
 
@@ -88,7 +95,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<List<FriendInfo>> getFriendList(UUID playerUUID) {
-        return CompletableFuture.supplyAsync(() -> {
+        return workers.supply(WorkExecutor.DATABASE, () -> {
             List<Document> friendDocs = friendManager.getFriendList(playerUUID);
             List<FriendInfo> friends = new ArrayList<>();
 
@@ -98,9 +105,8 @@ public class FriendAPIImpl implements FriendAPI {
                 long timestamp = doc.getLong("timestamp");
                 LocalDateTime friendsSince = LocalDateTime.ofEpochSecond(timestamp / 1000, 0, java.time.ZoneOffset.UTC);
 
-                // Check if friend is online
-                Player onlineFriend = Bukkit.getPlayer(friendUUID);
-                boolean isOnline = onlineFriend != null && onlineFriend.isOnline();
+                // Check if friend is online (registry, this runs on a worker)
+                boolean isOnline = plugin.getPlayerRegistry().isOnline(friendUUID);
 
                 friends.add(new FriendInfo(playerUUID, "", friendUUID, friendName, friendsSince, isOnline));
             }
@@ -116,7 +122,7 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<List<FriendRequest>> getPendingRequests(UUID playerUUID) {
-        return CompletableFuture.supplyAsync(() -> {
+        return workers.supply(WorkExecutor.DATABASE, () -> {
             List<Document> requestDocs = friendManager.getPendingRequests(playerUUID);
             List<FriendRequest> requests = new ArrayList<>();
 
@@ -142,13 +148,13 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<Integer> getFriendCount(UUID playerUUID) {
-        return CompletableFuture.supplyAsync(() ->
+        return workers.supply(WorkExecutor.DATABASE, () ->
             friendManager.getFriendCount(playerUUID));
     }
 
     @Override
     public CompletableFuture<Boolean> isAtFriendLimit(Player player) {
-        return CompletableFuture.supplyAsync(() -> {
+        return workers.supply(WorkExecutor.DATABASE, () -> {
             int maxFriends = plugin.getConfig().getInt("friends.max-friends", 50);
             int currentFriends = friendManager.getFriendCount(player.getUniqueId());
             return currentFriends >= maxFriends;
@@ -157,20 +163,49 @@ public class FriendAPIImpl implements FriendAPI {
 
     @Override
     public CompletableFuture<List<Player>> getOnlineFriends(Player player) {
-        return CompletableFuture.supplyAsync(() -> {
+        // caller is online so their friend set is already in memory
+        PlayerSession session = sessionManager.getLoaded(player.getUniqueId());
+        if (session != null) {
+            List<UUID> onlineIds = new ArrayList<>();
+            for (UUID friendId : session.getFriendIds()) {
+                if (plugin.getPlayerRegistry().isOnline(friendId)) {
+                    onlineIds.add(friendId);
+                }
+            }
+            return toPlayers(onlineIds);
+        }
+
+        return workers.supply(WorkExecutor.DATABASE, () -> {
             List<Document> friendDocs = friendManager.getFriendList(player.getUniqueId());
-            List<Player> onlineFriends = new ArrayList<>();
+            List<UUID> onlineIds = new ArrayList<>();
 
             for (Document doc : friendDocs) {
-                String friendName = doc.getString("friendName");
-                Player onlineFriend = Bukkit.getPlayerExact(friendName);
-
-                if (onlineFriend != null && onlineFriend.isOnline()) {
-                    onlineFriends.add(onlineFriend);
+                UUID friendId = UUID.fromString(doc.getString("friendUUID"));
+                if (plugin.getPlayerRegistry().isOnline(friendId)) {
+                    onlineIds.add(friendId);
                 }
             }
 
-            return onlineFriends;
-        });
+            return onlineIds;
+        }).thenCompose(this::toPlayers);
+    }
+
+    // the online check comes from the registry on any thread, the Player objects themselves only from the main thread
+    private CompletableFuture<List<Player>> toPlayers(List<UUID> playerIds) {
+        if (Bukkit.isPrimaryThread()) {
+            return CompletableFuture.completedFuture(resolvePlayers(playerIds));
+        }
+        return CompletableFuture.supplyAsync(() -> resolvePlayers(playerIds), Bukkit.getScheduler().getMainThreadExecutor(plugin));
+    }
+
+    private List<Player> resolvePlayers(List<UUID> playerIds) {
+        List<Player> players = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null && player.isOnline()) {
+                players.add(player);
+            }
+        }
+        return players;
     }
 }
@@ -1,6 +1,7 @@
 package me.harshit.minechat.api;
 
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.database.WorkExecutor;
 import org.bson.Document;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -11,56 +12,58 @@ import java.util.concurrent.CompletableFuture;
 
 public class GroupAPIImpl implements GroupAPI {
     private final GroupManager groupManager;
+    private final WorkExecutor workers;
     private final JavaPlugin plugin;
 
-    public GroupAPIImpl(GroupManager groupManager, JavaPlugin plugin) {
+    public GroupAPIImpl(GroupManager groupManager, WorkExecutor workers, JavaPlugin plugin) {
         this.groupManager = groupManager;
+        this.workers = workers;
         this.plugin = plugin;
     }
 
     @Override
     public CompletableFuture<GroupInfo> getGroupById(UUID groupId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.getGroupById(groupId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.getGroupById(groupId));
     }
 
     @Override
     public CompletableFuture<GroupInfo> getGroupByInviteCode(String inviteCode) {
-        return CompletableFuture.supplyAsync(() -> groupManager.getGroupByInviteCode(inviteCode));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.getGroupByInviteCode(inviteCode));
     }
 
     @Override
     public CompletableFuture<List<GroupInfo>> getPlayerGroups(UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.getPlayerGroups(playerId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.getPlayerGroups(playerId));
     }
 
     @Override
     public CompletableFuture<Boolean> createGroup(UUID ownerId, String ownerName, String groupName, String description, int maxMembers, boolean isPrivate) {
-        return CompletableFuture.supplyAsync(() -> groupManager.createGroup(ownerId, ownerName, groupName, description, maxMembers, isPrivate) != null);
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.createGroup(ownerId, ownerName, groupName, description, maxMembers, isPrivate) != null);
     }
 
     @Override
     public CompletableFuture<Boolean> joinGroup(UUID groupId, UUID playerId, String playerName) {
-        return CompletableFuture.supplyAsync(() -> groupManager.joinGroup(groupId, playerId, playerName));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.joinGroup(groupId, playerId, playerName));
     }
 
     @Override
     public CompletableFuture<Boolean> leaveGroup(UUID groupId, UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.leaveGroup(playerId, groupId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.leaveGroup(playerId, groupId));
     }
 
     @Override
     public CompletableFuture<Boolean> canInvite(UUID groupId, UUID inviterId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.canInviteToGroup(groupId, inviterId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.canInviteToGroup(groupId, inviterId));
     }
 
     @Override
     public CompletableFuture<Boolean> sendInvite(UUID groupId, UUID inviterId, String inviterName, UUID targetId, String targetName) {
-        return CompletableFuture.supplyAsync(() -> groupManager.sendGroupInvite(groupId, inviterId, inviterName, targetId, targetName));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.sendGroupInvite(groupId, inviterId, inviterName, targetId, targetName));
     }
 
     @Override
     public CompletableFuture<List<GroupInvite>> getInvites(UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return workers.supply(WorkExecutor.DATABASE, () -> {
             List<Document> docs = groupManager.getGroupInvites(playerId);
             List<GroupInvite> invites = new ArrayList<>();
             for (Document d : docs) {
@@ -84,11 +87,11 @@ public class GroupAPIImpl implements GroupAPI {
 
     @Override
     public CompletableFuture<Boolean> acceptInvite(String inviteId, UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.acceptGroupInviteById(inviteId, playerId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.acceptGroupInviteById(inviteId, playerId));
     }
 
     @Override
     public CompletableFuture<Boolean> rejectInvite(String inviteId, UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> groupManager.rejectGroupInviteById(inviteId, playerId));
+        return workers.supply(WorkExecutor.DATABASE, () -> groupManager.rejectGroupInviteById(inviteId, playerId));
     }
 }
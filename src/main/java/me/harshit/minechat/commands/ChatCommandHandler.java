@@ -336,16 +336,13 @@ public class ChatCommandHandler implements CommandExecutor, TabCompleter {
         // Update last message sender for the target (so they can reply)
         lastMessageSenders.put(target.getUniqueId().toString(), sender.getName());
 
-        // Store in db if enabled
-        if (plugin.getConfig().getBoolean("chat.enable-logging", true)) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                databaseManager.storeChatMessage(
-                    sender.getName(),
-                    sender.getUniqueId(),
-                    "[PM to " + target.getName() + "] " + message,
-                    plugin.getServer().getName()
-                );
-            });
+        // Store in db if enabled, queued for the private message writer so the command never waits on mongo
+        if (plugin.getConfig().getBoolean("chat.enable-logging", true) && databaseManager != null) {
+            databaseManager.storePrivateMessage(
+                sender.getName(), sender.getUniqueId(),
+                target.getName(), target.getUniqueId(),
+                message, "minecraft"
+            );
         }
 
         return true;
@@ -2,7 +2,9 @@ package me.harshit.minechat.commands;
 
 import me.harshit.minechat.Minechat;
 import me.harshit.minechat.database.FriendManager;
+import me.harshit.minechat.database.PlayerNameIndex;
 import me.harshit.minechat.database.UserDataManager;
+import me.harshit.minechat.model.PlayerSession;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -142,7 +144,9 @@ public class FriendCommandHandler implements CommandExecutor, TabCompleter {
         // Check friend limit (unless player has unlimited permission)
         if (!player.hasPermission("minechat.friends.unlimited")) {
             int maxFriends = plugin.getConfig().getInt("friends.max-friends", 50);
-            if (friendManager.getFriendCount(player.getUniqueId()) >= maxFriends) {
+            PlayerSession session = plugin.getSessionManager().getLoaded(player.getUniqueId());
+            int friendCount = session != null ? session.getFriendIds().size() : friendManager.getFriendCount(player.getUniqueId());
+            if (friendCount >= maxFriends) {
                 player.sendMessage(Component.text("You've reached the maximum number of friends (" + maxFriends + ")!").color(NamedTextColor.RED));
                 return true;
             }
@@ -208,7 +212,7 @@ public class FriendCommandHandler implements CommandExecutor, TabCompleter {
         String senderName = args[1];
 
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            UUID senderUUID = userDataManager.getPlayerUUID(senderName);
+            UUID senderUUID = userDataManager.getPlayerUUIDByName(senderName);
 
             if (senderUUID == null) {
                 Bukkit.getScheduler().runTask(plugin, () -> {
@@ -247,7 +251,7 @@ public class FriendCommandHandler implements CommandExecutor, TabCompleter {
         String senderName = args[1];
 
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            UUID senderUUID = userDataManager.getPlayerUUID(senderName);
+            UUID senderUUID = userDataManager.getPlayerUUIDByName(senderName);
 
             if (senderUUID == null) {
                 Bukkit.getScheduler().runTask(plugin, () -> {
@@ -307,7 +311,8 @@ public class FriendCommandHandler implements CommandExecutor, TabCompleter {
 
     private boolean handleFriendList(Player player) {
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            List<Document> friends = friendManager.getFriendList(player.getUniqueId());
+            PlayerSession session = plugin.getSessionManager().getLoaded(player.getUniqueId());
+            List<Document> friends = session != null ? session.getFriends() : friendManager.getFriendList(player.getUniqueId());
 
             Bukkit.getScheduler().runTask(plugin, () -> {
                 if (friends.isEmpty()) {
@@ -382,59 +387,40 @@ public class FriendCommandHandler implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             completions.addAll(Arrays.asList("add", "accept", "deny", "remove", "list", "requests", "help"));
-        } else if (args.length == 2) {
+        } else if (args.length == 2 && sender instanceof Player) {
             String subCommand = args[0].toLowerCase();
+            String prefix = args[1].toLowerCase();
             Player player = (Player) sender;
 
+            // never query mongo here, this runs on the main thread on every keystroke
+            PlayerSession session = plugin.getSessionManager().getLoaded(player.getUniqueId());
+            List<String> friendNames = session != null ? session.getFriendNames() : List.of();
+
             if (subCommand.equals("add")) {
-                // Tab complete players who aren't friends and don't have pending requests
-                for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                    if (!onlinePlayer.equals(sender)) {
-                        // Quick check - not perfect but good enough for tab completion
-                        if (!friendManager.areFriends(player.getUniqueId(), onlinePlayer.getUniqueId())) {
-                            completions.add(onlinePlayer.getName());
-                        }
+                // any known player matching the prefix who isn't already a friend, by uuid since stored friend names can be stale
+                for (PlayerNameIndex.Entry entry : userDataManager.getNameIndex().findByPrefix(prefix, 50, 0)) {
+                    if (!entry.getPlayerUUID().equals(player.getUniqueId())
+                            && (session == null || !session.isFriend(entry.getPlayerUUID()))) {
+                        completions.add(entry.getPlayerName());
                     }
                 }
             } else if (subCommand.equals("accept") || subCommand.equals("deny")) {
-                // Tab complete players who sent pending requests
-                try {
-                    List<Document> requests = friendManager.getPendingRequests(player.getUniqueId());
-                    for (Document request : requests) {
-                        String senderName = request.getString("senderName");
-                        if (senderName != null) {
-                            completions.add(senderName);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Fallback to online players if database lookup fails
-                    for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                        if (!onlinePlayer.equals(sender)) {
-                            completions.add(onlinePlayer.getName());
-                        }
-                    }
+                if (session != null) {
+                    addMatching(completions, session.getIncomingRequestNames(), prefix);
                 }
             } else if (subCommand.equals("remove")) {
-                // Tab complete current friends
-                try {
-                    List<Document> friends = friendManager.getFriendList(player.getUniqueId());
-                    for (Document friend : friends) {
-                        String friendName = friend.getString("friendName");
-                        if (friendName != null) {
-                            completions.add(friendName);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Fallback to online players if database lookup fails
-                    for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-                        if (!onlinePlayer.equals(sender)) {
-                            completions.add(onlinePlayer.getName());
-                        }
-                    }
-                }
+                addMatching(completions, friendNames, prefix);
             }
         }
 
         return completions;
     }
+
+    private void addMatching(List<String> completions, List<String> names, String prefix) {
+        for (String name : names) {
+            if (name.toLowerCase().startsWith(prefix)) {
+                completions.add(name);
+            }
+        }
+    }
 }
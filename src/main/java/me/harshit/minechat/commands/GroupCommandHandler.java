@@ -6,6 +6,7 @@ import me.harshit.minechat.api.GroupMember;
 import me.harshit.minechat.api.GroupMessage;
 import me.harshit.minechat.api.GroupSettings;
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.model.PlayerSession;
 import me.harshit.minechat.ranks.RankManager;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
@@ -527,6 +528,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             }
 
             UUID groupId = UUID.fromString(group.getString("groupId"));
+            groupManager.recordGroupMessage(groupId, player.getUniqueId(), player.getName());
 
             Map<String, Object> messageData = Map.of(
                 "messageId", UUID.randomUUID().toString(),
@@ -569,6 +571,13 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
     }
 
     private Document findGroupByName(String groupName, UUID playerId) {
+        // online players have their memberships in memory, the group itself comes from the group cache
+        PlayerSession session = plugin.getSessionManager().getLoaded(playerId);
+        if (session != null) {
+            PlayerSession.GroupMembership membership = session.findGroupByName(groupName);
+            return membership != null ? groupManager.getGroup(membership.getGroupId()) : null;
+        }
+
         List<Document> playerGroups = groupManager.getPlayerGroupsAsDocuments(playerId);
         return playerGroups.stream()
                 .filter(group -> group.getString("groupName").equalsIgnoreCase(groupName))
@@ -820,7 +829,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
         }
 
         Player target = Bukkit.getPlayer(targetName);
-        UUID targetUUID = target != null ? target.getUniqueId() : groupManager.getPlayerUUID(targetName);
+        UUID targetUUID = target != null ? target.getUniqueId() : plugin.getUserDataManager().getPlayerUUIDByName(targetName);
 
         if (targetUUID == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
@@ -884,7 +893,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
         }
 
         Player target = Bukkit.getPlayer(targetName);
-        UUID targetUUID = target != null ? target.getUniqueId() : groupManager.getPlayerUUID(targetName);
+        UUID targetUUID = target != null ? target.getUniqueId() : plugin.getUserDataManager().getPlayerUUIDByName(targetName);
 
         if (targetUUID == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
@@ -959,7 +968,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
         }
 
         Player target = Bukkit.getPlayer(targetName);
-        UUID targetUUID = target != null ? target.getUniqueId() : groupManager.getPlayerUUID(targetName);
+        UUID targetUUID = target != null ? target.getUniqueId() : plugin.getUserDataManager().getPlayerUUIDByName(targetName);
 
         if (targetUUID == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
@@ -1031,7 +1040,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
         }
 
         Player target = Bukkit.getPlayer(targetName);
-        UUID targetUUID = target != null ? target.getUniqueId() : groupManager.getPlayerUUID(targetName);
+        UUID targetUUID = target != null ? target.getUniqueId() : plugin.getUserDataManager().getPlayerUUIDByName(targetName);
 
         if (targetUUID == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
@@ -1305,10 +1314,13 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
                     "chat", "announce", "info", "members", "settings", "private", "public");
 
             if (groupCommands.contains(args[0].toLowerCase())) {
-                List<GroupInfo> groups = groupManager.getPlayerGroups(player.getUniqueId());
-                for (GroupInfo group : groups) {
-                    if (group.getGroupName().toLowerCase().startsWith(args[1].toLowerCase())) {
-                        completions.add(group.getGroupName());
+                // from the session only, no mongo on the main thread
+                PlayerSession session = plugin.getSessionManager().getLoaded(player.getUniqueId());
+                if (session != null) {
+                    for (PlayerSession.GroupMembership group : session.getGroups()) {
+                        if (group.getGroupName() != null && group.getGroupName().toLowerCase().startsWith(args[1].toLowerCase())) {
+                            completions.add(group.getGroupName());
+                        }
                     }
                 }
             }
@@ -1348,7 +1360,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        UUID targetId = groupManager.getPlayerUUID(targetName);
+        UUID targetId = plugin.getUserDataManager().getPlayerUUIDByName(targetName);
         if (targetId == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
             return true;
@@ -1379,7 +1391,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        UUID targetId = groupManager.getPlayerUUID(targetName);
+        UUID targetId = plugin.getUserDataManager().getPlayerUUIDByName(targetName);
         if (targetId == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
             return true;
@@ -1410,7 +1422,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        UUID targetId = groupManager.getPlayerUUID(targetName);
+        UUID targetId = plugin.getUserDataManager().getPlayerUUIDByName(targetName);
         if (targetId == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
             return true;
@@ -1441,7 +1453,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        UUID targetId = groupManager.getPlayerUUID(targetName);
+        UUID targetId = plugin.getUserDataManager().getPlayerUUIDByName(targetName);
         if (targetId == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
             return true;
@@ -1545,7 +1557,7 @@ public class GroupCommandHandler implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        UUID targetId = groupManager.getPlayerUUID(targetName);
+        UUID targetId = plugin.getUserDataManager().getPlayerUUIDByName(targetName);
         if (targetId == null) {
             player.sendMessage(Component.text("Player not found!").color(NamedTextColor.RED));
             return true;
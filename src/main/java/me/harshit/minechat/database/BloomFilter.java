@@ -0,0 +1,172 @@
+package me.harshit.minechat.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// in memory "definitely not there" check in front of existence queries
+// a miss means the key was never added, so the mongo lookup can be skipped; a hit still has to be confirmed
+// keys can't be removed, a rebuild (begin, put everything, commit) starts a fresh filter sized to the current count,
+// keys added while the rebuild runs go into both filters. until the first commit every check answers "maybe".
+// writers share one lock so a put can't land in the old filter just as commit swaps it out, checks never lock
+public class BloomFilter {
+
+    private final String name;
+    private final double falsePositiveRate;
+
+    private volatile Bits bits;
+    private volatile Bits building;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public BloomFilter(String name, double falsePositiveRate) {
+        this.name = name;
+        this.falsePositiveRate = Math.min(0.5, Math.max(1e-6, falsePositiveRate));
+    }
+
+    public boolean mightContain(String key) {
+        Bits current = bits;
+        if (current == null || key == null) {
+            return true;
+        }
+
+        checks.incrementAndGet();
+        if (current.contains(hash(key))) {
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    public synchronized void put(String key) {
+        if (key == null) {
+            return;
+        }
+        long hash = hash(key);
+        Bits current = bits;
+        if (current != null) {
+            current.add(hash);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.add(hash);
+        }
+    }
+
+    // the filter said maybe but mongo said no, counted so the sizing can be checked against reality
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    // room for twice the current count so the filter stays near its target rate until the next rebuild
+    public synchronized void begin(long expectedEntries) {
+        building = new Bits(Math.max(1024, expectedEntries * 2), falsePositiveRate);
+    }
+
+    public synchronized void commit() {
+        Bits next = building;
+        if (next != null) {
+            bits = next;
+            building = null;
+        }
+    }
+
+    public synchronized void abort() {
+        building = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Bits current = bits;
+        long checked = checks.get();
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("ready", current != null);
+        metrics.put("checks", checked);
+        metrics.put("definiteNegatives", negatives.get());
+        metrics.put("negativeRate", checked == 0 ? 0.0 : (double) negatives.get() / checked);
+        metrics.put("falsePositives", falsePositives.get());
+        if (current != null) {
+            metrics.put("entries", current.count.get());
+            metrics.put("bits", current.size);
+            metrics.put("hashes", current.hashes);
+            metrics.put("estimatedFalsePositiveRate", current.estimatedFalsePositiveRate());
+        }
+        return metrics;
+    }
+
+    // 64 bit murmur style hash of the utf-8 bytes, the two halves drive the double hashing below
+    private static long hash(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h = 0x9E3779B97F4A7C15L ^ bytes.length;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0xC2B2AE3D27D4EB4FL;
+            h = Long.rotateLeft(h, 31);
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong count = new AtomicLong();
+
+        private Bits(long expectedEntries, double falsePositiveRate) {
+            // m = -n ln p / (ln 2)^2, k = m/n ln 2
+            long bitCount = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bitCount + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.size = wordCount * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expectedEntries * Math.log(2)));
+        }
+
+        private void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean contains(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // (1 - e^(-kn/m))^k with n counting every add, repeats included, so it errs high
+        private double estimatedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / size), hashes);
+        }
+    }
+}
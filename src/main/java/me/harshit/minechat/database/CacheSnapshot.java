@@ -0,0 +1,246 @@
+package me.harshit.minechat.database;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// the in memory caches written to one gzip'd binary file in the data folder, so a restart or /reload starts warm
+// saved on an interval and on disable, loaded in onEnable before anything asks for a name or group,
+// the restored data is then reconciled against mongo in the background (see reconcile)
+//
+// layout: magic, format, savedAt, then sections of [tag byte][count int][entries...] until tag 0
+// unknown tags end the read, so an older build just ignores sections added later
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x4D435331; // "MCS1"
+    private static final int FORMAT = 1;
+
+    private static final byte END = 0;
+    private static final byte NAMES = 1;
+    private static final byte RANKS = 2;
+    private static final byte GROUPS = 3;
+    private static final byte GROUP_INDEX = 4;
+
+    private final Path file;
+    private final JavaPlugin plugin;
+    private final UserDataManager userDataManager;
+    private final GroupManager groupManager;
+    private final GroupRecommender groupRecommender;
+    private final long maxAgeMillis;
+
+    private volatile long lastSavedAt;
+    private volatile long lastLoadedAt;
+    private volatile long lastSize;
+    private volatile Map<String, Integer> lastCounts = new HashMap<>();
+
+    public CacheSnapshot(JavaPlugin plugin, UserDataManager userDataManager, GroupManager groupManager, GroupRecommender groupRecommender) {
+        this.file = new File(plugin.getDataFolder(), "cache-snapshot.bin").toPath();
+        this.plugin = plugin;
+        this.userDataManager = userDataManager;
+        this.groupManager = groupManager;
+        this.groupRecommender = groupRecommender;
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(Math.max(1, plugin.getConfig().getLong("cache.snapshot.max-age-minutes", 1440)));
+    }
+
+    public void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Integer> counts = new HashMap<>();
+
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(System.currentTimeMillis());
+
+                List<PlayerNameIndex.Entry> names = userDataManager.getNameIndex().entries();
+                out.writeByte(NAMES);
+                out.writeInt(names.size());
+                for (PlayerNameIndex.Entry entry : names) {
+                    writeUUID(out, entry.getPlayerUUID());
+                    out.writeUTF(entry.getPlayerName());
+                }
+                counts.put("names", names.size());
+
+                Map<UUID, Document> ranks = userDataManager.getKnownRanks();
+                out.writeByte(RANKS);
+                out.writeInt(ranks.size());
+                for (Map.Entry<UUID, Document> entry : ranks.entrySet()) {
+                    writeUUID(out, entry.getKey());
+                    out.writeUTF(entry.getValue().getString("cleanRank"));
+                    out.writeUTF(entry.getValue().getString("formattedRank"));
+                }
+                counts.put("ranks", ranks.size());
+
+                // raw bson as cached, least recently used first so a restore keeps the same LRU order
+                List<RawBsonDocument> groups = groupManager.getGroupCache().export();
+                out.writeByte(GROUPS);
+                out.writeInt(groups.size());
+                for (RawBsonDocument group : groups) {
+                    ByteBuffer buffer = group.getByteBuffer().asNIO();
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                counts.put("groups", groups.size());
+
+                List<Document> index = groupRecommender != null ? groupRecommender.exportIndex() : new ArrayList<>();
+                out.writeByte(GROUP_INDEX);
+                out.writeInt(index.size());
+                for (Document group : index) {
+                    List<Document> members = group.getList("members", Document.class);
+                    out.writeUTF(group.getString("groupId"));
+                    out.writeBoolean(group.getBoolean("isPrivate", false));
+                    out.writeInt(group.getInteger("maxMembers", 0));
+                    out.writeInt(members.size());
+                    for (Document member : members) {
+                        out.writeUTF(member.getString("playerId"));
+                    }
+                }
+                counts.put("groupIndex", index.size());
+
+                out.writeByte(END);
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSavedAt = System.currentTimeMillis();
+            lastSize = Files.size(file);
+            lastCounts = counts;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to save cache snapshot: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    // restores whatever the file holds, false if there was nothing usable
+    public boolean load() {
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                plugin.getLogger().info("Ignoring cache snapshot written by another version");
+                return false;
+            }
+
+            long savedAt = in.readLong();
+            if (System.currentTimeMillis() - savedAt > maxAgeMillis) {
+                plugin.getLogger().info("Ignoring cache snapshot older than " + TimeUnit.MILLISECONDS.toMinutes(maxAgeMillis) + " minutes");
+                return false;
+            }
+
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                int count = in.readInt();
+                switch (tag) {
+                    case NAMES:
+                        for (int i = 0; i < count; i++) {
+                            userDataManager.getNameIndex().put(readUUID(in), in.readUTF());
+                        }
+                        counts.put("names", count);
+                        break;
+                    case RANKS:
+                        for (int i = 0; i < count; i++) {
+                            userDataManager.restoreKnownRank(readUUID(in), in.readUTF(), in.readUTF());
+                        }
+                        counts.put("ranks", count);
+                        break;
+                    case GROUPS:
+                        for (int i = 0; i < count; i++) {
+                            byte[] bytes = new byte[in.readInt()];
+                            in.readFully(bytes);
+                            RawBsonDocument group = new RawBsonDocument(bytes);
+                            if (group.isString("groupId")) {
+                                groupManager.getGroupCache().restore(group.getString("groupId").getValue(), group);
+                            }
+                        }
+                        counts.put("groups", count);
+                        break;
+                    case GROUP_INDEX:
+                        for (int i = 0; i < count; i++) {
+                            Document group = new Document("groupId", in.readUTF())
+                                    .append("isPrivate", in.readBoolean())
+                                    .append("maxMembers", in.readInt());
+                            int memberCount = in.readInt();
+                            List<Document> members = new ArrayList<>(memberCount);
+                            for (int j = 0; j < memberCount; j++) {
+                                members.add(new Document("playerId", in.readUTF()));
+                            }
+                            if (groupRecommender != null) {
+                                groupRecommender.restoreIndex(group.append("members", members));
+                            }
+                        }
+                        counts.put("groupIndex", count);
+                        break;
+                    default:
+                        // section from a newer build, everything before it is still good
+                        lastLoadedAt = System.currentTimeMillis();
+                        lastCounts = counts;
+                        return true;
+                }
+            }
+
+            lastLoadedAt = System.currentTimeMillis();
+            lastCounts = counts;
+            plugin.getLogger().info("Restored caches from snapshot " + counts);
+            return true;
+        } catch (EOFException e) {
+            plugin.getLogger().warning("Cache snapshot is truncated, starting with what was read");
+            return !counts.isEmpty();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to load cache snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // run async after load: restored entries are replaced by what mongo has now
+    // groups and ranks are checked in one query each, names and the group index are rebuilt in full by their own loaders
+    public void reconcile() {
+        groupManager.reconcileCachedGroups();
+        userDataManager.reconcileKnownRanks();
+    }
+
+    private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUUID(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("lastSavedAt", lastSavedAt);
+        metrics.put("lastLoadedAt", lastLoadedAt);
+        metrics.put("bytes", lastSize);
+        metrics.put("entries", lastCounts);
+        return metrics;
+    }
+}
@@ -0,0 +1,320 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// tails one change stream over the collections other servers on the network write to,
+// so the in memory caches hear about edits that didn't go through this server
+// the resume token lives in the data folder, a restart picks up where the last run stopped
+// needs a replica set (a single node one is fine), on a standalone mongod it just logs and stays off
+public class ChangeStreamWatcher {
+
+    private static final int NOT_A_REPLICA_SET = 40573;
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> RESUME_FAILED = Set.of(260, 280, 286);
+    private static final long TOKEN_SAVE_INTERVAL_MS = 5000;
+    private static final long MAX_BACKOFF_MS = 60000;
+
+    private final MongoDatabase database;
+    private final JavaPlugin plugin;
+    private final Path tokenFile;
+    private final Map<String, List<Consumer<ChangeStreamDocument<Document>>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private volatile String state = "stopped";
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread thread;
+
+    // only touched by the watcher thread (and stop once it has joined)
+    private volatile BsonDocument resumeToken;
+    private BsonDocument savedToken;
+    private long lastSavedAt;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public ChangeStreamWatcher(MongoDatabase database, JavaPlugin plugin) {
+        this.database = database;
+        this.plugin = plugin;
+        this.tokenFile = new File(plugin.getDataFolder(), "change-stream-token.json").toPath();
+    }
+
+    // handlers run on the watcher thread, in the order the events happened
+    public void on(String collection, Consumer<ChangeStreamDocument<Document>> handler) {
+        handlers.computeIfAbsent(collection, k -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    // called when events may have been missed (resume token too old, collection dropped), caches should start over
+    public void onResync(Runnable listener) {
+        resyncListeners.add(listener);
+    }
+
+    public void start() {
+        if (handlers.isEmpty() || running) {
+            return;
+        }
+        running = true;
+        state = "starting";
+        thread = new Thread(this::run, "Minechat-ChangeStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception ignored) {
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saveToken(true);
+        }
+        state = "stopped";
+    }
+
+    private void run() {
+        if (!supportsChangeStreams()) {
+            state = "unavailable";
+            running = false;
+            return;
+        }
+
+        resumeToken = loadToken();
+        long backoff = 1000;
+        while (running) {
+            try {
+                watch();
+                backoff = 1000;
+            } catch (MongoException e) {
+                if (!running) {
+                    break;
+                }
+                if (e.getCode() == NOT_A_REPLICA_SET) {
+                    plugin.getLogger().info("MongoDB is not a replica set, cross-server cache sync is off");
+                    state = "unavailable";
+                    running = false;
+                    break;
+                }
+                if (resumeToken != null && RESUME_FAILED.contains(e.getCode())) {
+                    plugin.getLogger().warning("Change stream could not resume, resyncing caches: " + e.getMessage());
+                    resumeToken = null;
+                    deleteToken();
+                    resync();
+                    continue;
+                }
+                backoff = failed(e, backoff);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                backoff = failed(e, backoff);
+            }
+        }
+        state = "stopped";
+    }
+
+    private long failed(Exception e, long backoff) {
+        errors.incrementAndGet();
+        state = "reconnecting";
+        plugin.getLogger().warning("Change stream failed, retrying in " + (backoff / 1000) + "s: " + e.getMessage());
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoff * 2, MAX_BACKOFF_MS);
+    }
+
+    private void watch() {
+        ChangeStreamIterable<Document> stream = database
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", new ArrayList<>(handlers.keySet())))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = stream.cursor()) {
+            cursor = current;
+            state = "watching";
+            while (running) {
+                ChangeStreamDocument<Document> event = current.tryNext();
+                if (event != null && !dispatch(event)) {
+                    // stream was invalidated, start a fresh one from now
+                    resumeToken = null;
+                    deleteToken();
+                    resync();
+                    return;
+                }
+
+                BsonDocument token = current.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+                saveToken(false);
+            }
+        } finally {
+            cursor = null;
+        }
+    }
+
+    // false once the stream can't continue
+    private boolean dispatch(ChangeStreamDocument<Document> event) {
+        events.incrementAndGet();
+        OperationType type = event.getOperationType();
+        if (type == OperationType.INVALIDATE) {
+            return false;
+        }
+        if (type == OperationType.DROP || type == OperationType.RENAME || type == OperationType.DROP_DATABASE) {
+            resync();
+            return true;
+        }
+
+        String collection = event.getNamespace() != null ? event.getNamespace().getCollectionName() : null;
+        List<Consumer<ChangeStreamDocument<Document>>> collectionHandlers = collection != null ? handlers.get(collection) : null;
+        if (collectionHandlers == null) {
+            return true;
+        }
+
+        for (Consumer<ChangeStreamDocument<Document>> handler : collectionHandlers) {
+            try {
+                handler.accept(event);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Change handler for " + collection + " failed: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void resync() {
+        resyncs.incrementAndGet();
+        for (Runnable listener : resyncListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Cache resync failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // the _id of the changed document, that's all a delete event carries
+    public static Object documentId(ChangeStreamDocument<Document> event) {
+        BsonDocument key = event.getDocumentKey();
+        BsonValue id = key != null ? key.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue() : id;
+    }
+
+    private boolean supportsChangeStreams() {
+        try {
+            Document hello;
+            try {
+                hello = database.runCommand(new Document("hello", 1));
+            } catch (MongoException e) {
+                hello = database.runCommand(new Document("isMaster", 1));
+            }
+
+            if (hello.getString("setName") != null || "isdbgrid".equals(hello.getString("msg"))) {
+                return true;
+            }
+            plugin.getLogger().info("MongoDB is not a replica set, cross-server cache sync is off (a single node replica set is enough)");
+            return false;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to check MongoDB topology: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            if (Files.exists(tokenFile)) {
+                BsonDocument token = BsonDocument.parse(Files.readString(tokenFile, StandardCharsets.UTF_8));
+                savedToken = token;
+                return token;
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to read change stream resume token: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void saveToken(boolean force) {
+        BsonDocument token = resumeToken;
+        long now = System.currentTimeMillis();
+        if (token == null || token.equals(savedToken) || (!force && now - lastSavedAt < TOKEN_SAVE_INTERVAL_MS)) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(tokenFile.getParent());
+            Path temp = tokenFile.resolveSibling(tokenFile.getFileName() + ".tmp");
+            Files.writeString(temp, token.toJson(), StandardCharsets.UTF_8);
+            Files.move(temp, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedToken = token;
+            lastSavedAt = now;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to save change stream resume token: " + e.getMessage());
+            lastSavedAt = now;
+        }
+    }
+
+    private void deleteToken() {
+        savedToken = null;
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to delete change stream resume token: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("state", state);
+        metrics.put("collections", new ArrayList<>(handlers.keySet()));
+        metrics.put("events", events.get());
+        metrics.put("errors", errors.get());
+        metrics.put("resyncs", resyncs.get());
+        return metrics;
+    }
+}
@@ -12,12 +12,14 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseManager {
 
     private MongoClient mongoClient;
     private MongoDatabase database;
     private MongoCollection<Document> chatCollection;
+    private PrivateMessageWriter privateMessageWriter;
     private final JavaPlugin plugin;
 
     public DatabaseManager(JavaPlugin plugin) {
@@ -36,6 +38,7 @@ public class DatabaseManager {
 
             database = mongoClient.getDatabase(databaseName);
             chatCollection = database.getCollection(collectionName); // get the collection and db we defined in the config
+            privateMessageWriter = new PrivateMessageWriter(chatCollection, plugin);
 
             plugin.getLogger().info("Successfully connected to MongoDB!");
             return true;
@@ -101,7 +104,11 @@ public class DatabaseManager {
         }
     }
 
-    public void storePrivateMessage(String senderName, UUID senderUUID, String targetName, UUID targetUUID, String message, String source) {
+    // queued for the private message writer, safe to call from the main thread. completes true once mongo has the message
+    public CompletableFuture<Boolean> storePrivateMessage(String senderName, UUID senderUUID, String targetName, UUID targetUUID, String message, String source) {
+        if (privateMessageWriter == null) {
+            return CompletableFuture.completedFuture(false);
+        }
         try {
             Document privateMessageDoc = new Document()
                     .append("type", "private_message")
@@ -114,13 +121,18 @@ public class DatabaseManager {
                     .append("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
                     .append("date", System.currentTimeMillis()); 
 
-            chatCollection.insertOne(privateMessageDoc);
+            return privateMessageWriter.submit(privateMessageDoc);
 
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to store private message: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
         }
     }
 
+    public PrivateMessageWriter getPrivateMessageWriter() {
+        return privateMessageWriter;
+    }
+
     public List<Document> getPrivateMessages(String player1, String player2, int limit) {
         try {
             List<Document> messages = new ArrayList<>();
@@ -153,6 +165,9 @@ public class DatabaseManager {
     }
 
     public void disconnect() {
+        if (privateMessageWriter != null) {
+            privateMessageWriter.close();
+        }
         if (mongoClient != null) {
             mongoClient.close();
             plugin.getLogger().info("Disconnected from MongoDB");
@@ -1,26 +1,120 @@
 package me.harshit.minechat.database;
 
+import com.mongodb.MongoCommandException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.OperationType;
 import org.bson.Document;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 
 
 public class FriendManager {
 
+    // "Unrecognized pipeline stage name", what a server before 4.4 answers to $unionWith
+    private static final int UNRECOGNIZED_PIPELINE_STAGE = 40324;
+
     private final MongoCollection<Document> friendsCollection;
     private final MongoCollection<Document> friendRequestsCollection;
     private final JavaPlugin plugin;
+    private final List<FriendListener> listeners = new CopyOnWriteArrayList<>();
+    // "player|friend" and "sender|target" pairs, most friend adds are between players with no history at all
+    private final BloomFilter friendshipFilter;
+    private final BloomFilter requestFilter;
 
     public FriendManager(MongoDatabase database, JavaPlugin plugin) {
         this.friendsCollection = database.getCollection("friends");
         this.friendRequestsCollection = database.getCollection("friend_requests");
         this.plugin = plugin;
+
+        double falsePositiveRate = plugin.getConfig().getDouble("bloom-filters.false-positive-rate", 0.01);
+        this.friendshipFilter = new BloomFilter("friendships", falsePositiveRate);
+        this.requestFilter = new BloomFilter("friendRequests", falsePositiveRate);
+    }
+
+    // run async on startup and every rebuild interval, removed friendships/requests drop out here
+    public void rebuildFilters() {
+        try {
+            friendshipFilter.begin(friendsCollection.estimatedDocumentCount());
+            requestFilter.begin(friendRequestsCollection.estimatedDocumentCount());
+
+            for (Document friendship : friendsCollection.find()
+                    .projection(new Document("playerUUID", 1).append("friendUUID", 1).append("_id", 0))) {
+                friendshipFilter.put(friendship.getString("playerUUID") + "|" + friendship.getString("friendUUID"));
+            }
+            for (Document request : friendRequestsCollection.find()
+                    .projection(new Document("senderUUID", 1).append("targetUUID", 1).append("_id", 0))) {
+                requestFilter.put(request.getString("senderUUID") + "|" + request.getString("targetUUID"));
+            }
+
+            friendshipFilter.commit();
+            requestFilter.commit();
+        } catch (Exception e) {
+            friendshipFilter.abort();
+            requestFilter.abort();
+            plugin.getLogger().warning("Failed to rebuild friend filters: " + e.getMessage());
+        }
+    }
+
+    public List<BloomFilter> getFilters() {
+        return List.of(friendshipFilter, requestFilter);
+    }
+
+    // told about every friend/request change after it is written, used to keep in memory state current
+    public interface FriendListener {
+        void friendAdded(UUID playerUUID, Document friendship);
+        void friendRemoved(UUID playerUUID, UUID friendUUID);
+        void requestAdded(Document request);
+        void requestRemoved(UUID senderUUID, UUID targetUUID);
+    }
+
+    public void addListener(FriendListener listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(Consumer<FriendListener> event) {
+        for (FriendListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Friend listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // friendships/requests written by other servers, replayed to the listeners like our own writes
+    // deletes only carry the _id, PlayerSessionManager matches those itself
+    public void registerChangeHandlers(ChangeStreamWatcher watcher) {
+        watcher.on("friends", event -> {
+            Document friendship = event.getFullDocument();
+            String playerUUID = friendship != null ? friendship.getString("playerUUID") : null;
+            if (playerUUID != null && event.getOperationType() != OperationType.DELETE) {
+                friendshipFilter.put(playerUUID + "|" + friendship.getString("friendUUID"));
+                notifyListeners(listener -> listener.friendAdded(UUID.fromString(playerUUID), friendship));
+            }
+        });
+
+        watcher.on("friend_requests", event -> {
+            Document request = event.getFullDocument();
+            if (request == null || event.getOperationType() == OperationType.DELETE
+                    || request.getString("senderUUID") == null || request.getString("targetUUID") == null) {
+                return;
+            }
+            requestFilter.put(request.getString("senderUUID") + "|" + request.getString("targetUUID"));
+            if ("pending".equals(request.getString("status"))) {
+                notifyListeners(listener -> listener.requestAdded(request));
+            } else {
+                UUID senderUUID = UUID.fromString(request.getString("senderUUID"));
+                UUID targetUUID = UUID.fromString(request.getString("targetUUID"));
+                notifyListeners(listener -> listener.requestRemoved(senderUUID, targetUUID));
+            }
+        });
     }
 
  
@@ -31,13 +125,17 @@ public class FriendManager {
                 return false; // Already friends
             }
 
-            Document existingRequest = friendRequestsCollection.find(
-                new Document("senderUUID", senderUUID.toString())
-                    .append("targetUUID", targetUUID.toString())
-            ).first();
-
-            if (existingRequest != null) {
-                return false; // Request already exists
+            String requestKey = senderUUID + "|" + targetUUID;
+            if (requestFilter.mightContain(requestKey)) {
+                Document existingRequest = friendRequestsCollection.find(
+                    new Document("senderUUID", senderUUID.toString())
+                        .append("targetUUID", targetUUID.toString())
+                ).first();
+
+                if (existingRequest != null) {
+                    return false; // Request already exists
+                }
+                requestFilter.recordFalsePositive();
             }
 
             Document requestDoc = new Document()
@@ -49,6 +147,8 @@ public class FriendManager {
                     .append("status", "pending");
 
             friendRequestsCollection.insertOne(requestDoc);
+            requestFilter.put(requestKey);
+            notifyListeners(listener -> listener.requestAdded(requestDoc));
             return true;
 
         } catch (Exception e) {
@@ -89,6 +189,8 @@ public class FriendManager {
 
             friendsCollection.insertOne(friendship1);
             friendsCollection.insertOne(friendship2);
+            friendshipFilter.put(senderUUID + "|" + targetUUID);
+            friendshipFilter.put(targetUUID + "|" + senderUUID);
 
             // Remove the friend request
             friendRequestsCollection.deleteOne(
@@ -96,6 +198,11 @@ public class FriendManager {
                     .append("targetUUID", targetUUID.toString())
             );
 
+            notifyListeners(listener -> {
+                listener.friendAdded(senderUUID, friendship1);
+                listener.friendAdded(targetUUID, friendship2);
+                listener.requestRemoved(senderUUID, targetUUID);
+            });
             return true;
 
         } catch (Exception e) {
@@ -112,6 +219,7 @@ public class FriendManager {
                     .append("targetUUID", targetUUID.toString())
                     .append("status", "pending")
             );
+            notifyListeners(listener -> listener.requestRemoved(senderUUID, targetUUID));
             return true;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to deny friend request: " + e.getMessage());
@@ -138,6 +246,10 @@ public class FriendManager {
                     .append("friendUUID", playerUUID.toString())
             );
 
+            notifyListeners(listener -> {
+                listener.friendRemoved(playerUUID, friendUUID);
+                listener.friendRemoved(friendUUID, playerUUID);
+            });
             return true;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to remove friend: " + e.getMessage());
@@ -192,33 +304,40 @@ public class FriendManager {
 
 
     public List<Document> getPendingRequests(UUID playerUUID) {
-        try {
-            List<Document> requests = new ArrayList<>();
-
-            // get incoming requests (requests sent TO this player)
-            List<Document> incomingRequests = new ArrayList<>();
-            friendRequestsCollection.find(
-                new Document("targetUUID", playerUUID.toString())
-                    .append("status", "pending")
-            ).into(incomingRequests);
+        // incoming first, then outgoing - same order as before, but in one query
+        Document overview = getFriendRequestsOverview(playerUUID);
+        List<Document> requests = new ArrayList<>(overview.getList("incoming", Document.class));
+        requests.addAll(overview.getList("outgoing", Document.class));
+        return requests;
+    }
 
-            // for incoming requests, already have all the info needed
-            requests.addAll(incomingRequests);
 
-            // Get outgoing requests (requests sent BY this player)
-            List<Document> outgoingRequests = new ArrayList<>();
-            friendRequestsCollection.find(
-                new Document("senderUUID", playerUUID.toString())
-                    .append("status", "pending")
-            ).into(outgoingRequests);
-
-            // the documents should already contain targetUUID and targetName from sendFriendRequest
-            requests.addAll(outgoingRequests);
+    // incoming + outgoing pending requests in a single round trip ($facet over one $match)
+    public Document getFriendRequestsOverview(UUID playerUUID) {
+        String uuid = playerUUID.toString();
+        try {
+            Document result = friendRequestsCollection.aggregate(List.of(
+                new Document("$match", new Document("status", "pending")
+                    .append("$or", List.of(
+                        new Document("targetUUID", uuid),
+                        new Document("senderUUID", uuid)
+                    ))),
+                new Document("$facet", new Document()
+                    .append("incoming", List.of(new Document("$match", new Document("targetUUID", uuid))))
+                    .append("outgoing", List.of(new Document("$match", new Document("senderUUID", uuid)))))
+            )).first();
+
+            List<Document> incoming = result != null ? result.getList("incoming", Document.class) : null;
+            List<Document> outgoing = result != null ? result.getList("outgoing", Document.class) : null;
 
-            return requests;
+            return new Document()
+                    .append("incoming", incoming != null ? incoming : new ArrayList<Document>())
+                    .append("outgoing", outgoing != null ? outgoing : new ArrayList<Document>());
         } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get pending friend requests: " + e.getMessage());
-            return new ArrayList<>();
+            plugin.getLogger().warning("Failed to get friend requests overview: " + e.getMessage());
+            return new Document()
+                    .append("incoming", new ArrayList<Document>())
+                    .append("outgoing", new ArrayList<Document>());
         }
     }
 
@@ -236,12 +355,18 @@ public class FriendManager {
 
 
     public boolean areFriends(UUID playerUUID, UUID friendUUID) {
+        if (!friendshipFilter.mightContain(playerUUID + "|" + friendUUID)) {
+            return false;
+        }
         try {
             Document friendship = friendsCollection.find(
                 new Document("playerUUID", playerUUID.toString())
                     .append("friendUUID", friendUUID.toString())
             ).first();
 
+            if (friendship == null) {
+                friendshipFilter.recordFalsePositive();
+            }
             return friendship != null;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to check friendship status: " + e.getMessage());
@@ -251,13 +376,70 @@ public class FriendManager {
 
 
     public Document getFriendStats(UUID playerUUID) {
+        String uuid = playerUUID.toString();
+        int maxFriends = plugin.getConfig().getInt("friends.max-friends", 50);
+        try {
+            // friends + pending requests tagged by kind and counted in one aggregation
+            // ($unionWith needs MongoDB 4.4+, older servers fall back below)
+            List<Document> counts = new ArrayList<>();
+            friendsCollection.aggregate(List.of(
+                new Document("$match", new Document("playerUUID", uuid)),
+                new Document("$project", new Document("_id", 0).append("kind", new Document("$literal", "friend"))),
+                new Document("$unionWith", new Document("coll", friendRequestsCollection.getNamespace().getCollectionName())
+                    .append("pipeline", List.of(
+                        new Document("$match", new Document("status", "pending")
+                            .append("$or", List.of(
+                                new Document("targetUUID", uuid),
+                                new Document("senderUUID", uuid)
+                            ))),
+                        new Document("$project", new Document("_id", 0)
+                            .append("kind", new Document("$cond", List.of(
+                                new Document("$eq", List.of("$targetUUID", uuid)), "incoming", "outgoing"))))
+                    ))),
+                new Document("$group", new Document("_id", "$kind").append("count", new Document("$sum", 1)))
+            )).into(counts);
+
+            int friendCount = 0;
+            int pendingRequests = 0;
+            int sentRequests = 0;
+            for (Document count : counts) {
+                int value = count.getInteger("count", 0);
+                String kind = count.getString("_id");
+                if ("friend".equals(kind)) {
+                    friendCount = value;
+                } else if ("incoming".equals(kind)) {
+                    pendingRequests = value;
+                } else if ("outgoing".equals(kind)) {
+                    sentRequests = value;
+                }
+            }
+
+            return new Document()
+                    .append("friendCount", friendCount)
+                    .append("pendingRequests", pendingRequests)
+                    .append("sentRequests", sentRequests)
+                    .append("maxFriends", maxFriends);
+        } catch (MongoCommandException e) {
+            // only a server that doesn't know the stage gets the fallback, any other command error is a real failure
+            if (e.getErrorCode() != UNRECOGNIZED_PIPELINE_STAGE) {
+                plugin.getLogger().warning("Failed to get friend stats: " + e.getMessage());
+                return emptyFriendStats(maxFriends);
+            }
+            plugin.getLogger().fine("Friend stats aggregation unavailable, falling back to counts: " + e.getMessage());
+            return getFriendStatsByCounts(playerUUID, maxFriends);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to get friend stats: " + e.getMessage());
+            return emptyFriendStats(maxFriends);
+        }
+    }
+
+    private Document getFriendStatsByCounts(UUID playerUUID, int maxFriends) {
         try {
             int friendCount = getFriendCount(playerUUID);
             int pendingRequests = (int) friendRequestsCollection.countDocuments(
                 new Document("targetUUID", playerUUID.toString()).append("status", "pending"));
             int sentRequests = (int) friendRequestsCollection.countDocuments(
                 new Document("senderUUID", playerUUID.toString()).append("status", "pending"));
-            int maxFriends = plugin.getConfig().getInt("friends.max-friends", 50);
 
             return new Document()
                     .append("friendCount", friendCount)
@@ -266,14 +448,18 @@ public class FriendManager {
                     .append("maxFriends", maxFriends);
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get friend stats: " + e.getMessage());
-            return new Document()
-                    .append("friendCount", 0)
-                    .append("pendingRequests", 0)
-                    .append("sentRequests", 0)
-                    .append("maxFriends", 50);
+            return emptyFriendStats(maxFriends);
         }
     }
 
+    private Document emptyFriendStats(int maxFriends) {
+        return new Document()
+                .append("friendCount", 0)
+                .append("pendingRequests", 0)
+                .append("sentRequests", 0)
+                .append("maxFriends", maxFriends);
+    }
+
 
     public boolean cancelFriendRequest(UUID senderUUID, UUID targetUUID) {
         try {
@@ -283,6 +469,9 @@ public class FriendManager {
                     .append("status", "pending")
             ).getDeletedCount();
 
+            if (deletedCount > 0) {
+                notifyListeners(listener -> listener.requestRemoved(senderUUID, targetUUID));
+            }
             return deletedCount > 0;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to cancel friend request: " + e.getMessage());
@@ -0,0 +1,182 @@
+package me.harshit.minechat.database;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// bounded LRU + TTL cache of group documents keyed by groupId
+// entries are stored as raw bson so every hit hands out its own fresh Document and nobody can mutate the cached copy
+// each key has a version that bumps on every invalidate, a load only lands if nothing changed the group while it was reading
+public class GroupCache {
+
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Long> versions = new HashMap<>();
+    private long generation;
+    private long pruneMark;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public GroupCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = Math.max(1000, ttlMillis);
+    }
+
+    public Document get(String groupId) {
+        RawBsonDocument snapshot;
+        synchronized (this) {
+            Entry entry = entries.get(groupId);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+                entries.remove(groupId);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            snapshot = entry.snapshot;
+        }
+
+        hits.incrementAndGet();
+        return snapshot.decode(CODEC);
+    }
+
+    // same as get but doesn't count towards the hit rate or expire anything, used to compare against incoming changes
+    public Document peek(String groupId) {
+        RawBsonDocument snapshot;
+        synchronized (this) {
+            Entry entry = entries.get(groupId);
+            if (entry == null) {
+                return null;
+            }
+            snapshot = entry.snapshot;
+        }
+        return snapshot.decode(CODEC);
+    }
+
+    // groupId of the cached group with this _id, deletes from other servers only tell us the _id
+    public synchronized String findKey(Object documentId) {
+        BsonValue id = documentId instanceof ObjectId ? new BsonObjectId((ObjectId) documentId) : null;
+        if (id == null) {
+            return null;
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (id.equals(entry.getValue().snapshot.get("_id"))) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    public synchronized long version(String groupId) {
+        return versions.getOrDefault(groupId, pruneMark);
+    }
+
+    // snapshot is encoded outside the lock, then only stored if the version still matches
+    public void put(String groupId, Document group, long expectedVersion) {
+        RawBsonDocument snapshot = new RawBsonDocument(group, CODEC);
+        synchronized (this) {
+            if (versions.getOrDefault(groupId, pruneMark) != expectedVersion) {
+                return;
+            }
+            entries.put(groupId, new Entry(snapshot, System.currentTimeMillis()));
+            evictOverflow();
+        }
+    }
+
+    // drops the entry and returns the new version for a write-through reload
+    public synchronized long invalidate(String groupId) {
+        entries.remove(groupId);
+        versions.put(groupId, ++generation);
+        return generation;
+    }
+
+    // cached groups for the restart snapshot, least recently used first
+    public synchronized List<RawBsonDocument> export() {
+        List<RawBsonDocument> snapshots = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            snapshots.add(entry.snapshot);
+        }
+        return snapshots;
+    }
+
+    // entry from the restart snapshot, ignored if the group was written or loaded since enable
+    public synchronized void restore(String groupId, RawBsonDocument snapshot) {
+        if (!versions.containsKey(groupId) && !entries.containsKey(groupId)) {
+            entries.put(groupId, new Entry(snapshot, System.currentTimeMillis()));
+            evictOverflow();
+        }
+    }
+
+    public synchronized List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        versions.clear();
+        pruneMark = ++generation;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+
+        // versions only matter while a load could be in flight, keep the map from growing forever
+        // raising the prune mark makes any load that started before this point miss its version check
+        if (versions.size() > maxSize * 4) {
+            versions.clear();
+            pruneMark = ++generation;
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (this) {
+            metrics.put("size", entries.size());
+        }
+        metrics.put("maxSize", maxSize);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("expirations", expirations.get());
+        metrics.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return metrics;
+    }
+
+    private static class Entry {
+        private final RawBsonDocument snapshot;
+        private final long loadedAt;
+
+        private Entry(RawBsonDocument snapshot, long loadedAt) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -2,17 +2,29 @@ package me.harshit.minechat.database;
 
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.result.UpdateResult;
+import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
 import me.harshit.minechat.api.GroupMember;
 import me.harshit.minechat.api.GroupSettings;
 import org.bson.Document;
-import org.bukkit.plugin.java.JavaPlugin;
+import org.bson.conversions.Bson;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import org.bson.types.ObjectId;
 
 // db ops for groups
@@ -22,13 +34,242 @@ public class GroupManager {
     private final MongoCollection<Document> groupsCollection;
     private final MongoCollection<Document> groupInvitesCollection;
     private final MongoCollection<Document> groupMessagesCollection;
-    private final JavaPlugin plugin;
-
-    public GroupManager(MongoDatabase database, JavaPlugin plugin) {
+    private final Minechat plugin;
+    private final GroupCache groupCache;
+    private final GroupTrending trending;
+    private final GroupStats stats;
+    // definite "no" answers for name checks, invite codes and duplicate invites, see rebuildFilters
+    private final BloomFilter groupNameFilter;
+    private final BloomFilter inviteCodeFilter;
+    private final BloomFilter pendingInviteFilter;
+    private final List<BiConsumer<String, Document>> groupListeners = new CopyOnWriteArrayList<>();
+
+    public GroupManager(MongoDatabase database, Minechat plugin) {
         this.groupsCollection = database.getCollection("chat_groups");
         this.groupInvitesCollection = database.getCollection("group_invites");
         this.groupMessagesCollection = database.getCollection("group_messages");
         this.plugin = plugin;
+        this.groupCache = new GroupCache(
+                plugin.getConfig().getInt("chat-groups.cache.max-size", 500),
+                plugin.getConfig().getLong("chat-groups.cache.ttl-seconds", 300) * 1000L);
+        this.trending = new GroupTrending(database, this, plugin);
+        this.stats = new GroupStats(database, plugin);
+
+        double falsePositiveRate = plugin.getConfig().getDouble("bloom-filters.false-positive-rate", 0.01);
+        this.groupNameFilter = new BloomFilter("groupNames", falsePositiveRate);
+        this.inviteCodeFilter = new BloomFilter("inviteCodes", falsePositiveRate);
+        this.pendingInviteFilter = new BloomFilter("groupInvites", falsePositiveRate);
+
+        addGroupListener((groupId, group) -> {
+            if (group == null) {
+                trending.remove(groupId);
+                stats.forget(groupId);
+            } else {
+                addToFilters(group);
+            }
+        });
+    }
+
+    // every write to a group document goes through here so the cached snapshot is refreshed right behind it
+    private UpdateResult updateGroup(Document filter, Bson update) {
+        UpdateResult result = groupsCollection.updateOne(filter, update);
+        if (result.getModifiedCount() > 0) {
+            refreshCachedGroup(filter.getString("groupId"));
+        }
+        return result;
+    }
+
+    private void refreshCachedGroup(String groupId) {
+        long version = groupCache.invalidate(groupId);
+        try {
+            Document group = groupsCollection.find(new Document("groupId", groupId)).first();
+            if (group != null) {
+                groupCache.put(groupId, group, version);
+            }
+            notifyGroupListeners(groupId, group);
+        } catch (Exception e) {
+            plugin.getLogger().fine("Failed to refresh cached group " + groupId + ": " + e.getMessage());
+        }
+    }
+
+    private void cacheGroup(Document groupDoc) {
+        String groupId = groupDoc.getString("groupId");
+        groupCache.put(groupId, groupDoc, groupCache.invalidate(groupId));
+        notifyGroupListeners(groupId, groupDoc);
+    }
+
+    // listeners get (groupId, new group document) after every write, the document is null once the group is deleted
+    public void addGroupListener(BiConsumer<String, Document> listener) {
+        groupListeners.add(listener);
+    }
+
+    private void notifyGroupListeners(String groupId, Document group) {
+        for (BiConsumer<String, Document> listener : groupListeners) {
+            try {
+                listener.accept(groupId, group == null ? null : new Document(group));
+            } catch (Exception e) {
+                plugin.getLogger().warning("Group listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public GroupCache getGroupCache() {
+        return groupCache;
+    }
+
+    public GroupTrending getTrending() {
+        return trending;
+    }
+
+    public GroupStats getStats() {
+        return stats;
+    }
+
+    // every chat message sent to a group, from game or web, lands here
+    public void recordGroupMessage(UUID groupId, UUID senderId, String senderName) {
+        trending.record(groupId.toString(), GroupTrending.Activity.MESSAGE);
+        stats.record(groupId.toString(), senderId.toString(), senderName);
+    }
+
+    // groups restored from the restart snapshot are checked against mongo in one query, gone ones are dropped
+    public void reconcileCachedGroups() {
+        List<String> groupIds = groupCache.keys();
+        if (groupIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Long> versions = new HashMap<>();
+            for (String groupId : groupIds) {
+                versions.put(groupId, groupCache.version(groupId));
+            }
+
+            for (Document group : groupsCollection.find(new Document("groupId", new Document("$in", groupIds)))) {
+                String groupId = group.getString("groupId");
+                Long version = versions.remove(groupId);
+                if (version != null && !group.equals(groupCache.peek(groupId))) {
+                    groupCache.put(groupId, group, version);
+                }
+            }
+
+            for (String groupId : versions.keySet()) {
+                groupCache.invalidate(groupId);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to reconcile cached groups: " + e.getMessage());
+        }
+    }
+
+    // group writes made by other servers, handed to us by the change stream
+    public void registerChangeHandlers(ChangeStreamWatcher watcher) {
+        watcher.on("chat_groups", this::applyRemoteChange);
+        watcher.on("group_invites", event -> {
+            Document invite = event.getFullDocument();
+            if (invite != null && event.getOperationType() != OperationType.DELETE) {
+                pendingInviteFilter.put(invite.getString("groupId") + "|" + invite.getString("targetId"));
+            }
+        });
+        watcher.onResync(groupCache::clear);
+    }
+
+    // every group name and invite code plus every pending invite, run async on startup and every rebuild interval
+    // renamed groups, replaced codes and answered invites stay in the old filter until the next rebuild
+    public void rebuildFilters() {
+        try {
+            groupNameFilter.begin(groupsCollection.estimatedDocumentCount());
+            inviteCodeFilter.begin(groupsCollection.estimatedDocumentCount());
+            pendingInviteFilter.begin(groupInvitesCollection.estimatedDocumentCount());
+
+            for (Document group : groupsCollection.find().projection(new Document("groupName", 1).append("settings.inviteCode", 1))) {
+                addToFilters(group);
+            }
+            for (Document invite : groupInvitesCollection.find(new Document("status", "pending"))
+                    .projection(new Document("groupId", 1).append("targetId", 1))) {
+                pendingInviteFilter.put(invite.getString("groupId") + "|" + invite.getString("targetId"));
+            }
+
+            groupNameFilter.commit();
+            inviteCodeFilter.commit();
+            pendingInviteFilter.commit();
+        } catch (Exception e) {
+            groupNameFilter.abort();
+            inviteCodeFilter.abort();
+            pendingInviteFilter.abort();
+            plugin.getLogger().warning("Failed to rebuild group filters: " + e.getMessage());
+        }
+    }
+
+    private void addToFilters(Document group) {
+        groupNameFilter.put(group.getString("groupName"));
+        Document settings = group.get("settings", Document.class);
+        if (settings != null) {
+            inviteCodeFilter.put(settings.getString("inviteCode"));
+        }
+    }
+
+    public List<BloomFilter> getFilters() {
+        return List.of(groupNameFilter, inviteCodeFilter, pendingInviteFilter);
+    }
+
+    private void applyRemoteChange(ChangeStreamDocument<Document> event) {
+        OperationType type = event.getOperationType();
+        if (type == OperationType.DELETE) {
+            String groupId = groupCache.findKey(ChangeStreamWatcher.documentId(event));
+            if (groupId != null) {
+                groupCache.invalidate(groupId);
+                notifyGroupListeners(groupId, null);
+            }
+            return;
+        }
+
+        Document group = event.getFullDocument();
+        String groupId = group != null ? group.getString("groupId") : null;
+        if (groupId == null) {
+            return;
+        }
+
+        // our own writes come back through the stream too, nothing to do when the cache already matches
+        Document cached = groupCache.peek(groupId);
+        if (group.equals(cached)) {
+            return;
+        }
+        if (cached != null) {
+            groupCache.put(groupId, group, groupCache.invalidate(groupId));
+        }
+        notifyGroupListeners(groupId, group);
+    }
+
+    // indexes for search, run async from onEnable since the backfill touches every group once
+    public void ensureSearchIndexes() {
+        try {
+            groupsCollection.createIndex(Indexes.ascending("isPrivate", "searchTokens"),
+                    new IndexOptions().name("public_search_tokens"));
+
+            List<Document> missing = new ArrayList<>();
+            groupsCollection.find(new Document("searchTokens", new Document("$exists", false)))
+                    .projection(new Document("groupId", 1).append("groupName", 1).append("description", 1))
+                    .into(missing);
+
+            // straight to the collection, cached snapshots don't need the search fields
+            for (Document group : missing) {
+                groupsCollection.updateOne(
+                        new Document("groupId", group.getString("groupId")),
+                        new Document("$set", searchFields(group.getString("groupName"), group.getString("description")))
+                );
+            }
+
+            if (!missing.isEmpty()) {
+                plugin.getLogger().info("Indexed " + missing.size() + " groups for search");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to create group search indexes: " + e.getMessage());
+        }
+    }
+
+    private Document searchFields(String groupName, String description) {
+        return new Document("groupNameLower", SearchTokens.normalize(groupName))
+                .append("nameTokens", SearchTokens.edgeNGrams(groupName))
+                .append("searchTokens", SearchTokens.edgeNGrams(groupName, description));
     }
 
 
@@ -52,8 +293,10 @@ public class GroupManager {
                     .append("maxMembers", plugin.getConfig().getInt("chat-groups.max-members-per-group", 25))
                     .append("settings", getDefaultSettingsDocument())
                     .append("members", List.of(createOwnerMemberDocument(ownerId, ownerName, timestamp)));
+            groupDoc.putAll(searchFields(groupName, description));
 
             groupsCollection.insertOne(groupDoc);
+            cacheGroup(groupDoc);
             return true;
 
         } catch (Exception e) {
@@ -73,12 +316,16 @@ public class GroupManager {
                     .anyMatch(m -> targetId.toString().equals(m.getString("playerId")));
             if (alreadyMember) return false;
 
-            Document existingInvite = groupInvitesCollection.find(
-                    new Document("groupId", groupId.toString())
-                            .append("targetId", targetId.toString())
-                            .append("status", "pending")
-            ).first();
-            if (existingInvite != null) return false;
+            String inviteKey = groupId + "|" + targetId;
+            if (pendingInviteFilter.mightContain(inviteKey)) {
+                Document existingInvite = groupInvitesCollection.find(
+                        new Document("groupId", groupId.toString())
+                                .append("targetId", targetId.toString())
+                                .append("status", "pending")
+                ).first();
+                if (existingInvite != null) return false;
+                pendingInviteFilter.recordFalsePositive();
+            }
 
             String inviteId = UUID.randomUUID().toString();
             String groupName = groupDoc.getString("groupName");
@@ -98,6 +345,8 @@ public class GroupManager {
                     .append("targetName", targetName);
 
             groupInvitesCollection.insertOne(inviteDoc);
+            pendingInviteFilter.put(inviteKey);
+            trending.record(groupId.toString(), GroupTrending.Activity.INVITE);
             return true;
 
         } catch (Exception e) {
@@ -119,7 +368,7 @@ public class GroupManager {
                 return false;
             }
 
-            Document group = groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            Document group = getGroup(groupId);
             if (group == null) {
                 return false;
             }
@@ -132,7 +381,7 @@ public class GroupManager {
             }
 
             Document newMember = createMemberDocument(targetId, invite.getString("targetName"), System.currentTimeMillis());
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("members", newMember))
             );
@@ -142,6 +391,7 @@ public class GroupManager {
                             .append("targetId", targetId.toString())
             );
 
+            trending.record(groupId.toString(), GroupTrending.Activity.JOIN);
             return true;
 
         } catch (Exception e) {
@@ -153,7 +403,7 @@ public class GroupManager {
 
     public boolean leaveGroup(UUID playerId, UUID groupId) {
         try {
-            Document group = groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            Document group = getGroup(groupId);
             if (group == null) {
                 return false;
             }
@@ -163,7 +413,7 @@ public class GroupManager {
             }
 
             // Remove member from group
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("members", new Document("playerId", playerId.toString())))
             );
@@ -237,8 +487,15 @@ public class GroupManager {
 
 
     public boolean groupExists(String groupName) {
+        if (!groupNameFilter.mightContain(groupName)) {
+            return false;
+        }
         try {
-            return groupsCollection.find(new Document("groupName", groupName)).first() != null;
+            boolean exists = groupsCollection.find(new Document("groupName", groupName)).first() != null;
+            if (!exists) {
+                groupNameFilter.recordFalsePositive();
+            }
+            return exists;
         } catch (Exception e) {
             return false;
         }
@@ -247,7 +504,18 @@ public class GroupManager {
 
     public Document getGroup(UUID groupId) {
         try {
-            return groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            String id = groupId.toString();
+            Document cached = groupCache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+
+            long version = groupCache.version(id);
+            Document group = groupsCollection.find(new Document("groupId", id)).first();
+            if (group != null) {
+                groupCache.put(id, group, version);
+            }
+            return group;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get group: " + e.getMessage());
             return null;
@@ -287,7 +555,7 @@ public class GroupManager {
     public boolean joinGroup(UUID groupId, UUID playerUUID, String playerName) {
         try {
             plugin.getLogger().info("Attempting to join group " + groupId + " with player " + playerName + " (" + playerUUID + ")");
-            Document group = groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            Document group = getGroup(groupId);
             if (group == null) {
                 plugin.getLogger().warning("Group not found: " + groupId);
                 return false; // Group doesn't exist
@@ -315,11 +583,12 @@ public class GroupManager {
                     .append("role", "MEMBER")
                     .append("joinedDate", System.currentTimeMillis());
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("members", newMember))
             );
 
+            trending.record(groupId.toString(), GroupTrending.Activity.JOIN);
             plugin.getLogger().info("Successfully added player " + playerName + " to group " + groupId);
             return true;
 
@@ -331,7 +600,7 @@ public class GroupManager {
 
     public boolean isAdminOrOwner(UUID groupId, UUID playerUUID) {
         try {
-            Document group = groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            Document group = getGroup(groupId);
             if (group == null) {
                 return false;
             }
@@ -364,7 +633,7 @@ public class GroupManager {
                 return false;
             }
 
-            long removedCount = groupsCollection.updateOne(
+            long removedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("members", new Document("playerId", targetId.toString())))
             ).getModifiedCount();
@@ -388,41 +657,24 @@ public class GroupManager {
             Document group = getGroup(groupId);
             if (group == null) return;
 
+            // callable off the main thread: online members come from the registry, the delivery queue sends on the next tick
             List<Document> members = group.getList("members", Document.class);
+            List<UUID> onlineMembers = new ArrayList<>();
             for (Document member : members) {
-                String memberName = member.getString("playerName");
-                org.bukkit.entity.Player onlineMember = org.bukkit.Bukkit.getPlayerExact(memberName);
-                if (onlineMember != null && onlineMember.isOnline()) {
-                    onlineMember.sendMessage(net.kyori.adventure.text.Component.text(message.getContent()));
+                UUID memberId = UUID.fromString(member.getString("playerId"));
+                if (plugin.getPlayerRegistry().isOnline(memberId)) {
+                    onlineMembers.add(memberId);
                 }
             }
+            plugin.getDeliveryQueue().send(onlineMembers, net.kyori.adventure.text.Component.text(message.getContent()));
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to broadcast to group: " + e.getMessage());
         }
     }
 
-    public UUID getPlayerUUID(String playerName) {
-        try {
-            org.bukkit.entity.Player player = org.bukkit.Bukkit.getPlayerExact(playerName);
-            if (player != null) {
-                return player.getUniqueId();
-            }
-
-            org.bukkit.OfflinePlayer offlinePlayer = org.bukkit.Bukkit.getOfflinePlayer(playerName);
-            if (offlinePlayer.hasPlayedBefore()) {
-                return offlinePlayer.getUniqueId();
-            }
-
-            return null;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get player UUID: " + e.getMessage());
-            return null;
-        }
-    }
-
     public boolean updateGroupAnnouncement(UUID groupId, String announcement) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$set", new Document("settings.announcement", announcement))
             ).getModifiedCount();
@@ -436,7 +688,7 @@ public class GroupManager {
 
     public boolean updateGroupMotd(UUID groupId, String motd) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$set", new Document("settings.groupMotd", motd))
             ).getModifiedCount();
@@ -471,7 +723,7 @@ public class GroupManager {
                     .append("mutedBy", adminId.toString())
                     .append("mutedAt", System.currentTimeMillis());
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("settings.mutedMembers", muteData))
             );
@@ -489,7 +741,7 @@ public class GroupManager {
                 return false;
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("settings.mutedMembers",
                             new Document("playerId", targetId.toString())))
@@ -513,7 +765,7 @@ public class GroupManager {
                 return false;
             }
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("members", new Document("playerId", targetId.toString())))
             );
@@ -524,7 +776,7 @@ public class GroupManager {
                     .append("bannedAt", System.currentTimeMillis())
                     .append("reason", reason);
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("settings.bannedMembers", banData))
             );
@@ -542,7 +794,7 @@ public class GroupManager {
                 return false;
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("settings.bannedMembers",
                             new Document("playerId", targetId.toString())))
@@ -562,7 +814,7 @@ public class GroupManager {
                 return false;
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString())
                             .append("members.playerId", targetId.toString()),
                     new Document("$set", new Document("members.$.role", newRole.name()))
@@ -579,7 +831,7 @@ public class GroupManager {
 
     public boolean promoteGroupMember(UUID groupId, UUID targetId) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString())
                             .append("members.playerId", targetId.toString()),
                     new Document("$set", new Document("members.$.role", "ADMIN"))
@@ -594,7 +846,7 @@ public class GroupManager {
 
     public boolean setMemberRole(UUID groupId, UUID targetId, String role) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString())
                             .append("members.playerId", targetId.toString()),
                     new Document("$set", new Document("members.$.role", role.toUpperCase()))
@@ -636,7 +888,11 @@ public class GroupManager {
 
             groupInvitesCollection.deleteMany(new Document("groupId", groupId.toString()));
 
+            stats.delete(groupId.toString());
+
             long deletedCount = groupsCollection.deleteOne(new Document("groupId", groupId.toString())).getDeletedCount();
+            groupCache.invalidate(groupId.toString());
+            notifyGroupListeners(groupId.toString(), null);
 
             return deletedCount > 0;
         } catch (Exception e) {
@@ -647,7 +903,7 @@ public class GroupManager {
 
     public boolean updateGroupPrivacy(UUID groupId, boolean isPrivate) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$set", new Document("isPrivate", isPrivate))
             ).getModifiedCount();
@@ -684,9 +940,21 @@ public class GroupManager {
         }
     }
 
+    // mistyped and made up codes are the common case, the filter answers those without a query
+    private Document findGroupByInviteCode(String inviteCode) {
+        if (!inviteCodeFilter.mightContain(inviteCode)) {
+            return null;
+        }
+        Document group = groupsCollection.find(new Document("settings.inviteCode", inviteCode)).first();
+        if (group == null) {
+            inviteCodeFilter.recordFalsePositive();
+        }
+        return group;
+    }
+
     public GroupInfo getGroupByInviteCode(String inviteCode) {
         try {
-            Document groupDoc = groupsCollection.find(new Document("settings.inviteCode", inviteCode)).first();
+            Document groupDoc = findGroupByInviteCode(inviteCode);
             return convertDocumentToGroupInfo(groupDoc);
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get group by invite code: " + e.getMessage());
@@ -696,7 +964,7 @@ public class GroupManager {
 
     public Document getGroupDocumentByInviteCode(String inviteCode) {
         try {
-            return groupsCollection.find(new Document("settings.inviteCode", inviteCode)).first();
+            return findGroupByInviteCode(inviteCode);
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get group document by invite code: " + e.getMessage());
             return null;
@@ -762,18 +1030,40 @@ public class GroupManager {
     }
 
     public List<Document> searchPublicGroups(String query, int limit) {
+        return searchPublicGroups(query, limit, 0);
+    }
+
+    // prefix search over the searchTokens multikey index, ranked by how well the name matches
+    public List<Document> searchPublicGroups(String query, int limit, int offset) {
         try {
             List<Document> groups = new ArrayList<>();
-            Document filter = new Document("isPrivate", false);
+            List<String> tokens = SearchTokens.queryTokens(query);
+            String normalized = SearchTokens.normalize(query);
 
-            if (!query.isEmpty()) {
-                filter.append("$or", List.of(
-                    new Document("groupName", new Document("$regex", query).append("$options", "i")),
-                    new Document("description", new Document("$regex", query).append("$options", "i"))
-                ));
+            Document match = new Document("isPrivate", false);
+            if (!tokens.isEmpty()) {
+                match.append("searchTokens", new Document("$all", tokens));
             }
 
-            groupsCollection.find(filter).limit(limit).into(groups);
+            // exact name > name prefix > words hit in the name > description only
+            Document score = new Document("$add", List.of(
+                    new Document("$cond", List.of(new Document("$eq", List.of("$groupNameLower", normalized)), 100, 0)),
+                    new Document("$cond", List.of(new Document("$eq", List.of(
+                            new Document("$indexOfCP", List.of(new Document("$ifNull", List.of("$groupNameLower", "")), normalized)), 0)), 50, 0)),
+                    new Document("$multiply", List.of(10, new Document("$size", new Document("$setIntersection", List.of(
+                            new Document("$ifNull", List.of("$nameTokens", List.of())), tokens)))))
+            ));
+
+            groupsCollection.aggregate(List.of(
+                    Aggregates.match(match),
+                    Aggregates.addFields(new Field<Object>("score", tokens.isEmpty() ? 0 : score),
+                            new Field<>("memberCount", new Document("$size", new Document("$ifNull", List.of("$members", List.of()))))),
+                    Aggregates.sort(new Document("score", -1).append("memberCount", -1).append("createdDate", -1)),
+                    Aggregates.skip(Math.max(0, offset)),
+                    Aggregates.limit(Math.max(1, limit)),
+                    Aggregates.project(new Document("nameTokens", 0).append("searchTokens", 0).append("groupNameLower", 0))
+            )).into(groups);
+
             return groups;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to search public groups: " + e.getMessage());
@@ -831,7 +1121,7 @@ public class GroupManager {
             long joinedDate = doc.getLong("joinedDate");
 
             GroupMember.GroupRole role = GroupMember.GroupRole.valueOf(roleStr.toUpperCase());
-            boolean isOnline = org.bukkit.Bukkit.getPlayer(playerId) != null;
+            boolean isOnline = plugin.getPlayerRegistry().isOnline(playerId);
 
             return new GroupMember(playerId, playerName, role,
                     java.time.LocalDateTime.ofInstant(
@@ -931,7 +1221,7 @@ public class GroupManager {
 
     public boolean banPlayerFromGroup(UUID groupId, UUID playerId) {
         try {
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$pull", new Document("members", new Document("playerId", playerId.toString())))
             );
@@ -940,7 +1230,7 @@ public class GroupManager {
                     .append("playerId", playerId.toString())
                     .append("bannedAt", System.currentTimeMillis());
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("settings.bannedMembers", banData))
             );
@@ -961,7 +1251,7 @@ public class GroupManager {
                     .append("mutedUntil", muteUntil)
                     .append("mutedAt", System.currentTimeMillis());
 
-            groupsCollection.updateOne(
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$push", new Document("settings.mutedMembers", muteData))
             );
@@ -976,7 +1266,7 @@ public class GroupManager {
     public boolean joinGroupByInviteCode(UUID playerId, String playerName, String inviteCode) {
         try {
             plugin.getLogger().info("Attempting to join group with invite code: " + inviteCode);
-            Document group = groupsCollection.find(new Document("settings.inviteCode", inviteCode)).first();
+            Document group = findGroupByInviteCode(inviteCode);
             if (group == null) {
                 plugin.getLogger().warning("No group found with invite code: " + inviteCode);
                 return false;
@@ -1013,7 +1303,10 @@ public class GroupManager {
         try {
             String newCode = generateInviteCode();
 
-            groupsCollection.updateOne(
+            // into the filter before the write, the listener only hears about it if the cache refresh after it works
+            // and a code missing from the filter would make lookups reject it
+            inviteCodeFilter.put(newCode);
+            updateGroup(
                     new Document("groupId", groupId.toString()),
                     new Document("$set", new Document("settings.inviteCode", newCode))
             );
@@ -1049,8 +1342,10 @@ public class GroupManager {
                     .append("maxMembers", maxMembers)
                     .append("settings", settingsDoc)
                     .append("members", List.of(createOwnerMemberDocument(ownerId, ownerName, timestamp)));
+            groupDoc.putAll(searchFields(groupName, description));
 
             groupsCollection.insertOne(groupDoc);
+            cacheGroup(groupDoc);
 
             return convertDocumentToGroupInfo(groupDoc);
         } catch (Exception e) {
@@ -1077,60 +1372,9 @@ public class GroupManager {
         }
     }
 
+    // ranked by decayed message/join/invite activity, see GroupTrending
     public List<Document> getTrendingGroups() {
-        try {
-            List<Document> groups = new ArrayList<>();
-
-            long weekAgo = System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000);
-
-            // For now, return most active public groups based on member count
-            // TODO: Implement proper trending algorithm based on message activity
-            groupsCollection.find(new Document("isPrivate", false))
-                .sort(new Document("createdDate", -1))
-                .limit(10)
-                .into(groups);
-
-            for (Document group : groups) {
-                List<Document> members = group.getList("members", Document.class);
-                group.append("memberCount", members != null ? members.size() : 0);
-            }
-
-            return groups;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get trending groups: " + e.getMessage());
-            return new ArrayList<>();
-        }
-    }
-
-    public List<Document> getRecommendedGroups(UUID playerId) {
-        try {
-            List<Document> groups = new ArrayList<>();
-
-            List<Document> playerGroups = getPlayerGroupsAsDocuments(playerId);
-            List<String> playerGroupIds = playerGroups.stream()
-                .map(g -> g.getString("groupId"))
-                .toList();
-
-            Document filter = new Document("isPrivate", false);
-            if (!playerGroupIds.isEmpty()) {
-                filter.append("groupId", new Document("$nin", playerGroupIds));
-            }
-
-            groupsCollection.find(filter)
-                .sort(new Document("createdDate", -1))
-                .limit(5)
-                .into(groups);
-
-            for (Document group : groups) {
-                List<Document> members = group.getList("members", Document.class);
-                group.append("memberCount", members != null ? members.size() : 0);
-            }
-
-            return groups;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get recommended groups: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return trending.getTopGroups();
     }
 
     public boolean updateGroupInfo(UUID groupId, String groupName, String description, Integer maxMembers, Boolean isPrivate) {
@@ -1157,9 +1401,25 @@ public class GroupManager {
                 return false; 
             }
 
+            if (updateDoc.containsKey("groupName") || updateDoc.containsKey("description")) {
+                Document current = groupsCollection.find(new Document("groupId", groupId.toString()))
+                        .projection(new Document("groupName", 1).append("description", 1))
+                        .first();
+                if (current != null) {
+                    updateDoc.putAll(searchFields(
+                            updateDoc.containsKey("groupName") ? updateDoc.getString("groupName") : current.getString("groupName"),
+                            updateDoc.containsKey("description") ? updateDoc.getString("description") : current.getString("description")));
+                }
+            }
+
             updateDoc.append("lastUpdated", System.currentTimeMillis());
 
-            long modifiedCount = groupsCollection.updateOne(
+            // same as invite codes, a renamed group has to be in the name filter even if the cache refresh fails
+            if (updateDoc.containsKey("groupName")) {
+                groupNameFilter.put(updateDoc.getString("groupName"));
+            }
+
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString()),
                 new Document("$set", updateDoc)
             ).getModifiedCount();
@@ -1177,7 +1437,7 @@ public class GroupManager {
                 announcements = new ArrayList<>();
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString()),
                 new Document("$set", new Document("settings.announcements", announcements))
             ).getModifiedCount();
@@ -1196,7 +1456,7 @@ public class GroupManager {
                 return false;
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString()),
                 new Document("$addToSet", new Document("bannedMembers", memberId.toString()))
             ).getModifiedCount();
@@ -1212,7 +1472,7 @@ public class GroupManager {
         try {
             long muteUntil = System.currentTimeMillis() + (durationMinutes * 60 * 1000);
             
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString())
                     .append("members.playerId", memberId.toString()),
                 new Document("$set", new Document("members.$.muteUntil", muteUntil))
@@ -1227,7 +1487,7 @@ public class GroupManager {
 
     public boolean promoteMember(UUID groupId, UUID memberId, UUID adminId) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString())
                     .append("members.playerId", memberId.toString()),
                 new Document("$set", new Document("members.$.role", "admin"))
@@ -1251,7 +1511,7 @@ public class GroupManager {
                 return false;
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                     new Document("groupId", groupId.toString())
                             .append("members.playerId", targetId.toString()),
                     new Document("$set", new Document("members.$.role", "MEMBER"))
@@ -1270,7 +1530,7 @@ public class GroupManager {
                 motd = "";
             }
 
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString()),
                 new Document("$set", new Document("settings.motd", motd))
             ).getModifiedCount();
@@ -1284,7 +1544,7 @@ public class GroupManager {
 
     public boolean isPlayerBanned(UUID groupId, UUID playerId) {
         try {
-            Document group = groupsCollection.find(new Document("groupId", groupId.toString())).first();
+            Document group = getGroup(groupId);
             if (group == null) {
                 return false;
             }
@@ -1299,7 +1559,7 @@ public class GroupManager {
 
     public boolean removeMember(UUID groupId, UUID memberId) {
         try {
-            long modifiedCount = groupsCollection.updateOne(
+            long modifiedCount = updateGroup(
                 new Document("groupId", groupId.toString()),
                 new Document("$pull", new Document("members", new Document("playerId", memberId.toString())))
             ).getModifiedCount();
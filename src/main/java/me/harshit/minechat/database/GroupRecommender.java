@@ -0,0 +1,281 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import me.harshit.minechat.model.PlayerSession;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// "groups you might like" for the discover page
+// scores every public group the player isn't in by how many friends are in it, how active it is (trending score)
+// and how well its size fits (half full beats empty or nearly full), full groups are skipped
+// works off an in memory membership index of all groups, patched from the group listener and rebuilt in the background,
+// results are cached per player and recomputed ahead of expiry for online players
+public class GroupRecommender {
+
+    private static final double FRIEND_WEIGHT = 3.0;
+    private static final double ACTIVITY_WEIGHT = 2.0;
+    private static final double SIZE_WEIGHT = 1.0;
+
+    private final MongoCollection<Document> groupsCollection;
+    private final GroupManager groupManager;
+    private final FriendManager friendManager;
+    private final PlayerSessionManager sessionManager;
+    private final JavaPlugin plugin;
+    private final int limit;
+    private final long ttlMillis;
+
+    // groupId -> public group, playerId -> every group (public or not) the player is in
+    private final Map<String, GroupEntry> publicGroups = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> memberships = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> groupMembers = new ConcurrentHashMap<>();
+    private final Map<UUID, Recommendation> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong computed = new AtomicLong();
+
+    public GroupRecommender(MongoDatabase database, GroupManager groupManager, FriendManager friendManager,
+                            PlayerSessionManager sessionManager, JavaPlugin plugin) {
+        this.groupsCollection = database.getCollection("chat_groups");
+        this.groupManager = groupManager;
+        this.friendManager = friendManager;
+        this.sessionManager = sessionManager;
+        this.plugin = plugin;
+        this.limit = Math.max(1, plugin.getConfig().getInt("chat-groups.recommendations.size", 5));
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getLong("chat-groups.recommendations.ttl-seconds", 300)));
+
+        groupManager.addGroupListener(this::indexGroup);
+    }
+
+    public List<Document> getRecommendations(UUID playerId) {
+        Recommendation recommendation = cache.get(playerId);
+        if (recommendation != null && recommendation.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+        } else {
+            recommendation = compute(playerId);
+        }
+
+        // groups joined since the list was computed drop out here, the docs come from the group cache
+        Set<String> joined = memberships.getOrDefault(playerId.toString(), Collections.emptySet());
+        List<Document> groups = new ArrayList<>();
+        for (String groupId : recommendation.groupIds) {
+            if (joined.contains(groupId)) {
+                continue;
+            }
+            Document group = groupManager.getGroup(UUID.fromString(groupId));
+            if (group == null || group.getBoolean("isPrivate", false)) {
+                continue;
+            }
+            List<Document> members = group.getList("members", Document.class);
+            group.remove("nameTokens");
+            group.remove("searchTokens");
+            groups.add(group.append("memberCount", members != null ? members.size() : 0));
+        }
+        return groups;
+    }
+
+    // background job: recompute online players whose list runs out before the next run
+    public void refreshOnline(long periodMillis) {
+        long horizon = System.currentTimeMillis() + periodMillis;
+        for (UUID playerId : sessionManager.getOnlinePlayerIds()) {
+            Recommendation recommendation = cache.get(playerId);
+            if (recommendation == null || recommendation.expiresAt <= horizon) {
+                compute(playerId);
+            }
+        }
+        cache.values().removeIf(recommendation -> recommendation.expiresAt < System.currentTimeMillis());
+    }
+
+    private Recommendation compute(UUID playerId) {
+        computed.incrementAndGet();
+        String player = playerId.toString();
+        Set<String> own = memberships.getOrDefault(player, Collections.emptySet());
+
+        // friends' groups, counted once per friend
+        Map<String, Integer> friendCounts = new HashMap<>();
+        for (String friendId : friendIds(playerId)) {
+            for (String groupId : memberships.getOrDefault(friendId, Collections.emptySet())) {
+                if (publicGroups.containsKey(groupId)) {
+                    friendCounts.merge(groupId, 1, Integer::sum);
+                }
+            }
+        }
+
+        GroupTrending trending = groupManager.getTrending();
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (GroupEntry group : publicGroups.values()) {
+            if (own.contains(group.groupId) || group.memberCount >= group.maxMembers) {
+                continue;
+            }
+
+            double fill = (double) group.memberCount / Math.max(1, group.maxMembers);
+            double score = FRIEND_WEIGHT * friendCounts.getOrDefault(group.groupId, 0)
+                    + ACTIVITY_WEIGHT * Math.log1p(trending.score(group.groupId))
+                    + SIZE_WEIGHT * (1 - Math.abs(fill - 0.5) * 2);
+
+            heap.offer(Map.entry(group.groupId, score));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<String> groupIds = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            groupIds.add(0, heap.poll().getKey());
+        }
+
+        Recommendation recommendation = new Recommendation(groupIds, System.currentTimeMillis() + ttlMillis);
+        cache.put(playerId, recommendation);
+        return recommendation;
+    }
+
+    private Collection<String> friendIds(UUID playerId) {
+        List<String> friends = new ArrayList<>();
+        PlayerSession session = sessionManager.getLoaded(playerId);
+        if (session != null) {
+            for (UUID friendId : session.getFriendIds()) {
+                friends.add(friendId.toString());
+            }
+            return friends;
+        }
+
+        for (Document friend : friendManager.getFriendList(playerId)) {
+            if (friend.getString("friendUUID") != null) {
+                friends.add(friend.getString("friendUUID"));
+            }
+        }
+        return friends;
+    }
+
+    // full rebuild of the membership index, run async on startup and every index refresh interval
+    public void rebuildIndex() {
+        try {
+            Set<String> seen = new HashSet<>();
+            for (Document group : groupsCollection.find().projection(new Document("groupId", 1)
+                    .append("isPrivate", 1).append("maxMembers", 1).append("members.playerId", 1))) {
+                String groupId = group.getString("groupId");
+                if (groupId != null) {
+                    indexGroup(groupId, group);
+                    seen.add(groupId);
+                }
+            }
+
+            for (String groupId : new ArrayList<>(groupMembers.keySet())) {
+                if (!seen.contains(groupId)) {
+                    indexGroup(groupId, null);
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to index groups for recommendations: " + e.getMessage());
+        }
+    }
+
+    // membership index for the restart snapshot, one {groupId, isPrivate, maxMembers, members: [{playerId}]} per group
+    public List<Document> exportIndex() {
+        List<Document> groups = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : groupMembers.entrySet()) {
+            GroupEntry publicGroup = publicGroups.get(entry.getKey());
+            List<Document> members = new ArrayList<>();
+            for (String playerId : entry.getValue()) {
+                members.add(new Document("playerId", playerId));
+            }
+            groups.add(new Document("groupId", entry.getKey())
+                    .append("isPrivate", publicGroup == null)
+                    .append("maxMembers", publicGroup != null ? publicGroup.maxMembers : 0)
+                    .append("members", members));
+        }
+        return groups;
+    }
+
+    public void restoreIndex(Document group) {
+        if (!groupMembers.containsKey(group.getString("groupId"))) {
+            indexGroup(group.getString("groupId"), group);
+        }
+    }
+
+    // group written or deleted (group == null)
+    private synchronized void indexGroup(String groupId, Document group) {
+        Set<String> previous = groupMembers.remove(groupId);
+        if (previous != null) {
+            for (String playerId : previous) {
+                Set<String> groups = memberships.get(playerId);
+                if (groups != null) {
+                    groups.remove(groupId);
+                    if (groups.isEmpty()) {
+                        memberships.remove(playerId);
+                    }
+                }
+            }
+        }
+
+        if (group == null) {
+            publicGroups.remove(groupId);
+            return;
+        }
+
+        Set<String> members = new HashSet<>();
+        List<Document> memberDocs = group.getList("members", Document.class);
+        if (memberDocs != null) {
+            for (Document member : memberDocs) {
+                String playerId = member.getString("playerId");
+                if (playerId != null) {
+                    members.add(playerId);
+                    memberships.computeIfAbsent(playerId, k -> ConcurrentHashMap.newKeySet()).add(groupId);
+                }
+            }
+        }
+        groupMembers.put(groupId, members);
+
+        if (group.getBoolean("isPrivate", false)) {
+            publicGroups.remove(groupId);
+        } else {
+            publicGroups.put(groupId, new GroupEntry(groupId, members.size(), group.getInteger("maxMembers", 25)));
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("publicGroups", publicGroups.size());
+        metrics.put("indexedPlayers", memberships.size());
+        metrics.put("cachedPlayers", cache.size());
+        metrics.put("hits", hits.get());
+        metrics.put("computed", computed.get());
+        return metrics;
+    }
+
+    private static final class GroupEntry {
+        private final String groupId;
+        private final int memberCount;
+        private final int maxMembers;
+
+        private GroupEntry(String groupId, int memberCount, int maxMembers) {
+            this.groupId = groupId;
+            this.memberCount = memberCount;
+            this.maxMembers = maxMembers;
+        }
+    }
+
+    private static final class Recommendation {
+        private final List<String> groupIds;
+        private final long expiresAt;
+
+        private Recommendation(List<String> groupIds, long expiresAt) {
+            this.groupIds = groupIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
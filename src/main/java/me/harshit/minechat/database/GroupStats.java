@@ -0,0 +1,309 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// message counters per group (all time, per day for the last week, per member), bumped as messages are sent
+// one group_stats document per group, deltas are written behind with $inc so every server adds into it
+// a group is loaded from its document on first read and reloaded every reload interval to pick up other servers
+public class GroupStats {
+
+    private static final int WEEK_DAYS = 7;
+
+    private final MongoCollection<Document> statsCollection;
+    private final JavaPlugin plugin;
+    private final long reloadMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, Counters> groups = new ConcurrentHashMap<>();
+
+    public GroupStats(MongoDatabase database, JavaPlugin plugin) {
+        this.statsCollection = database.getCollection("group_stats");
+        this.plugin = plugin;
+        this.reloadMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getLong("chat-groups.stats.reload-seconds", 300)));
+    }
+
+    public void ensureIndexes() {
+        try {
+            statsCollection.createIndex(Indexes.ascending("groupId"), new IndexOptions().name("group_id").unique(true));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to create group stats index: " + e.getMessage());
+        }
+    }
+
+    public void record(String groupId, String senderId, String senderName) {
+        if (groupId == null || senderId == null) {
+            return;
+        }
+        groups.computeIfAbsent(groupId, Counters::new).record(today(), senderId, senderName);
+    }
+
+    // counters for the stats endpoint, loads the group's document the first time (and after the reload interval)
+    public Snapshot get(String groupId) {
+        Counters counters = groups.computeIfAbsent(groupId, Counters::new);
+        long now = System.currentTimeMillis();
+        if (now - counters.loadedAt > reloadMillis) {
+            load(counters, now);
+        }
+        return counters.snapshot(today());
+    }
+
+    public void forget(String groupId) {
+        groups.remove(groupId);
+    }
+
+    public void delete(String groupId) {
+        groups.remove(groupId);
+        try {
+            statsCollection.deleteOne(new Document("groupId", groupId));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to delete group stats: " + e.getMessage());
+        }
+    }
+
+    private void load(Counters counters, long now) {
+        try {
+            Document stats = statsCollection.find(new Document("groupId", counters.groupId)).first();
+            List<String> expiredDays = counters.reload(stats, today(), now);
+
+            // day counters older than a week are only dead weight in the document
+            if (!expiredDays.isEmpty()) {
+                Document unset = new Document();
+                for (String day : expiredDays) {
+                    unset.append("days." + day, "");
+                }
+                statsCollection.updateOne(new Document("groupId", counters.groupId), new Document("$unset", unset));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to load group stats: " + e.getMessage());
+        }
+    }
+
+    // writes every group's pending deltas in one bulk, a failed batch is put back for the next flush
+    public void flush() {
+        List<Counters> flushed = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        List<WriteModel<Document>> writes = new ArrayList<>();
+
+        for (Counters counters : groups.values()) {
+            Delta delta = counters.drain();
+            if (delta == null) {
+                continue;
+            }
+
+            Document inc = new Document("total", delta.total);
+            delta.days.forEach((day, count) -> inc.append("days." + day, count));
+            delta.members.forEach((member, count) -> inc.append("members." + member + ".count", count));
+            Document set = new Document();
+            delta.names.forEach((member, name) -> set.append("members." + member + ".name", name));
+
+            Document update = new Document("$inc", inc);
+            if (!set.isEmpty()) {
+                update.append("$set", set);
+            }
+            writes.add(new UpdateOneModel<>(new Document("groupId", counters.groupId), update, new UpdateOptions().upsert(true)));
+            flushed.add(counters);
+            deltas.add(delta);
+        }
+
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        try {
+            statsCollection.bulkWrite(writes);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to save group stats: " + e.getMessage());
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).restore(deltas.get(i));
+            }
+        }
+    }
+
+    private long today() {
+        return LocalDate.now(zone).toEpochDay();
+    }
+
+    public Map<String, Object> getMetrics() {
+        int dirty = 0;
+        for (Counters counters : groups.values()) {
+            if (counters.pending != null) {
+                dirty++;
+            }
+        }
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("groups", groups.size());
+        metrics.put("pendingGroups", dirty);
+        return metrics;
+    }
+
+    public static final class Snapshot {
+        private final long total;
+        private final long today;
+        private final long thisWeek;
+        private final String mostActiveMember;
+        private final long mostActiveCount;
+
+        private Snapshot(long total, long today, long thisWeek, String mostActiveMember, long mostActiveCount) {
+            this.total = total;
+            this.today = today;
+            this.thisWeek = thisWeek;
+            this.mostActiveMember = mostActiveMember;
+            this.mostActiveCount = mostActiveCount;
+        }
+
+        public long getTotal() { return total; }
+        public long getToday() { return today; }
+        public long getThisWeek() { return thisWeek; }
+        public String getMostActiveMember() { return mostActiveMember; }
+        public long getMostActiveCount() { return mostActiveCount; }
+    }
+
+    private static final class Delta {
+        private long total;
+        private final Map<Long, Long> days = new HashMap<>();
+        private final Map<String, Long> members = new HashMap<>();
+        private final Map<String, String> names = new HashMap<>();
+
+        private void add(Delta other) {
+            total += other.total;
+            other.days.forEach((day, count) -> days.merge(day, count, Long::sum));
+            other.members.forEach((member, count) -> members.merge(member, count, Long::sum));
+            other.names.forEach(names::putIfAbsent);
+        }
+    }
+
+    // current view (document + what this server hasn't written yet), guarded by its own lock
+    private static final class Counters {
+        private final String groupId;
+        private long total;
+        private final Map<Long, Long> days = new HashMap<>();
+        private final Map<String, Long> members = new HashMap<>();
+        private final Map<String, String> names = new HashMap<>();
+        private String mostActive;
+        private long mostActiveCount;
+        private Delta pending;
+        private volatile long loadedAt;
+
+        private Counters(String groupId) {
+            this.groupId = groupId;
+        }
+
+        private synchronized void record(long day, String senderId, String senderName) {
+            if (pending == null) {
+                pending = new Delta();
+            }
+
+            total++;
+            pending.total++;
+            days.merge(day, 1L, Long::sum);
+            pending.days.merge(day, 1L, Long::sum);
+            long count = members.merge(senderId, 1L, Long::sum);
+            pending.members.merge(senderId, 1L, Long::sum);
+            if (senderName != null && !senderName.equals(names.put(senderId, senderName))) {
+                pending.names.put(senderId, senderName);
+            }
+
+            if (count > mostActiveCount) {
+                mostActive = senderId;
+                mostActiveCount = count;
+            }
+        }
+
+        private synchronized Delta drain() {
+            Delta delta = pending;
+            pending = null;
+            return delta;
+        }
+
+        private synchronized void restore(Delta delta) {
+            if (pending == null) {
+                pending = new Delta();
+            }
+            pending.add(delta);
+        }
+
+        // the document already holds everything flushed, what is still pending goes back on top
+        private synchronized List<String> reload(Document stats, long today, long now) {
+            total = 0;
+            days.clear();
+            members.clear();
+            mostActive = null;
+            mostActiveCount = 0;
+
+            List<String> expired = new ArrayList<>();
+            if (stats != null) {
+                Object storedTotal = stats.get("total");
+                total = storedTotal instanceof Number ? ((Number) storedTotal).longValue() : 0;
+
+                Document storedDays = stats.get("days", Document.class);
+                if (storedDays != null) {
+                    for (Map.Entry<String, Object> entry : storedDays.entrySet()) {
+                        long day = Long.parseLong(entry.getKey());
+                        if (day <= today - WEEK_DAYS) {
+                            expired.add(entry.getKey());
+                        } else if (entry.getValue() instanceof Number) {
+                            days.put(day, ((Number) entry.getValue()).longValue());
+                        }
+                    }
+                }
+
+                Document storedMembers = stats.get("members", Document.class);
+                if (storedMembers != null) {
+                    for (Map.Entry<String, Object> entry : storedMembers.entrySet()) {
+                        if (entry.getValue() instanceof Document) {
+                            Document member = (Document) entry.getValue();
+                            Object count = member.get("count");
+                            members.put(entry.getKey(), count instanceof Number ? ((Number) count).longValue() : 0);
+                            if (member.getString("name") != null) {
+                                names.put(entry.getKey(), member.getString("name"));
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (pending != null) {
+                total += pending.total;
+                pending.days.forEach((day, count) -> days.merge(day, count, Long::sum));
+                pending.members.forEach((member, count) -> members.merge(member, count, Long::sum));
+            }
+
+            for (Map.Entry<String, Long> entry : members.entrySet()) {
+                if (entry.getValue() > mostActiveCount) {
+                    mostActive = entry.getKey();
+                    mostActiveCount = entry.getValue();
+                }
+            }
+
+            loadedAt = now;
+            return expired;
+        }
+
+        private synchronized Snapshot snapshot(long today) {
+            days.keySet().removeIf(day -> day <= today - WEEK_DAYS);
+            long week = 0;
+            for (long count : days.values()) {
+                week += count;
+            }
+            String mostActiveName = mostActive != null ? names.getOrDefault(mostActive, mostActive) : "N/A";
+            return new Snapshot(total, days.getOrDefault(today, 0L), week, mostActiveName, mostActiveCount);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// exponentially decayed activity score per group, fed by messages, joins and invites
+// raw counts are persisted in hourly buckets ($inc, so every server on the network adds into the same docs)
+// and the scores are rebuilt from those buckets on startup and every resync interval
+// /api/trending-groups is served from a top-k snapshot refreshed in the background, never from a query
+public class GroupTrending {
+
+    public enum Activity {
+        MESSAGE("messages"), JOIN("joins"), INVITE("invites");
+
+        private final String field;
+
+        Activity(String field) {
+            this.field = field;
+        }
+    }
+
+    private static final long BUCKET_MS = TimeUnit.HOURS.toMillis(1);
+    // buckets older than this many half lives add less than 1/16 of their weight, they are ignored
+    private static final int WINDOW_HALF_LIVES = 4;
+
+    private final MongoCollection<Document> activityCollection;
+    private final MongoCollection<Document> groupsCollection;
+    private final MongoCollection<Document> invitesCollection;
+    private final GroupManager groupManager;
+    private final JavaPlugin plugin;
+
+    private final long halfLifeMs;
+    private final int topK;
+    private final double[] weights;
+
+    private final Map<String, Score> scores = new ConcurrentHashMap<>();
+    // "groupId|bucketStart" -> counts per Activity, not yet written
+    // only ever changed inside a per key compute/remove, so a count lands either in the entry flush takes or in a fresh one
+    private final Map<String, AtomicLongArray> pending = new ConcurrentHashMap<>();
+    private volatile List<Document> topGroups = new ArrayList<>();
+
+    public GroupTrending(MongoDatabase database, GroupManager groupManager, JavaPlugin plugin) {
+        this.activityCollection = database.getCollection("group_activity");
+        this.groupsCollection = database.getCollection("chat_groups");
+        this.invitesCollection = database.getCollection("group_invites");
+        this.groupManager = groupManager;
+        this.plugin = plugin;
+
+        this.halfLifeMs = TimeUnit.MINUTES.toMillis(Math.max(1, plugin.getConfig().getLong("chat-groups.trending.half-life-minutes", 360)));
+        this.topK = Math.max(1, plugin.getConfig().getInt("chat-groups.trending.size", 10));
+        this.weights = new double[] {
+                plugin.getConfig().getDouble("chat-groups.trending.weights.message", 1.0),
+                plugin.getConfig().getDouble("chat-groups.trending.weights.join", 5.0),
+                plugin.getConfig().getDouble("chat-groups.trending.weights.invite", 2.0)
+        };
+    }
+
+    public void record(String groupId, Activity activity) {
+        if (groupId == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        double weight = weights[activity.ordinal()];
+        // the pending count goes in under the score's lock, so rebuild (which recomputes a score under that lock) sees both or neither
+        scores.compute(groupId, (id, score) -> {
+            count(groupId, now, activity);
+            return score == null ? new Score(weight, now) : score.plus(weight, now, halfLifeMs);
+        });
+    }
+
+    public void remove(String groupId) {
+        scores.remove(groupId);
+    }
+
+    // current decayed score, 0 for groups with no recent activity
+    public double score(String groupId) {
+        Score score = scores.get(groupId);
+        return score != null ? score.valueAt(System.currentTimeMillis(), halfLifeMs) : 0;
+    }
+
+    public List<Document> getTopGroups() {
+        List<Document> copies = new ArrayList<>();
+        for (Document group : topGroups) {
+            copies.add(new Document(group));
+        }
+        return copies;
+    }
+
+    // startup: index + one time backfill from member join dates and invites, then scores from the buckets
+    public void load() {
+        try {
+            activityCollection.createIndex(Indexes.ascending("groupId", "bucket"),
+                    new IndexOptions().name("group_bucket").unique(true));
+            activityCollection.createIndex(Indexes.ascending("expiresAt"),
+                    new IndexOptions().name("expires_at").expireAfter(0L, TimeUnit.SECONDS));
+
+            if (activityCollection.countDocuments() == 0) {
+                backfill();
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to prepare group activity: " + e.getMessage());
+        }
+
+        rebuild();
+        refreshTopGroups();
+    }
+
+    private void backfill() {
+        long since = System.currentTimeMillis() - WINDOW_HALF_LIVES * halfLifeMs;
+
+        for (Document group : groupsCollection.find().projection(new Document("groupId", 1).append("members.joinedDate", 1))) {
+            List<Document> members = group.getList("members", Document.class);
+            if (members == null) {
+                continue;
+            }
+            for (Document member : members) {
+                Object joined = member.get("joinedDate");
+                if (joined instanceof Number && ((Number) joined).longValue() >= since) {
+                    count(group.getString("groupId"), ((Number) joined).longValue(), Activity.JOIN);
+                }
+            }
+        }
+
+        for (Document invite : invitesCollection.find(new Document("timestamp", new Document("$gte", since)))
+                .projection(new Document("groupId", 1).append("timestamp", 1))) {
+            Object timestamp = invite.get("timestamp");
+            if (timestamp instanceof Number) {
+                count(invite.getString("groupId"), ((Number) timestamp).longValue(), Activity.INVITE);
+            }
+        }
+
+        int buckets = pending.size();
+        flush();
+        if (buckets > 0) {
+            plugin.getLogger().info("Backfilled " + buckets + " group activity buckets from history");
+        }
+    }
+
+    private void count(String groupId, long at, Activity activity) {
+        if (groupId != null) {
+            pending.compute(groupId + "|" + (at - at % BUCKET_MS), (key, counts) -> {
+                AtomicLongArray target = counts != null ? counts : new AtomicLongArray(Activity.values().length);
+                target.incrementAndGet(activity.ordinal());
+                return target;
+            });
+        }
+    }
+
+    // writes the pending counts as $inc upserts, a failed batch is merged back for the next try
+    // each entry is taken out with its own remove, a count recorded meanwhile starts a new entry for the next flush
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, AtomicLongArray> batch = new HashMap<>();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            AtomicLongArray counts = pending.remove(key);
+            if (counts != null) {
+                batch.put(key, counts);
+            }
+        }
+
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (Map.Entry<String, AtomicLongArray> entry : batch.entrySet()) {
+            int split = entry.getKey().lastIndexOf('|');
+            String groupId = entry.getKey().substring(0, split);
+            long bucket = Long.parseLong(entry.getKey().substring(split + 1));
+
+            Document inc = new Document();
+            for (Activity activity : Activity.values()) {
+                long value = entry.getValue().get(activity.ordinal());
+                if (value > 0) {
+                    inc.append(activity.field, value);
+                }
+            }
+
+            writes.add(new UpdateOneModel<>(
+                    new Document("groupId", groupId).append("bucket", bucket),
+                    new Document("$inc", inc)
+                            .append("$setOnInsert", new Document("expiresAt", new Date(bucket + (WINDOW_HALF_LIVES + 1) * halfLifeMs))),
+                    new UpdateOptions().upsert(true)));
+        }
+
+        try {
+            activityCollection.bulkWrite(writes);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to save group activity: " + e.getMessage());
+            batch.forEach((key, counts) -> pending.merge(key, counts, (current, failed) -> {
+                for (int i = 0; i < failed.length(); i++) {
+                    current.addAndGet(i, failed.get(i));
+                }
+                return current;
+            }));
+        }
+    }
+
+    // recompute every score from the shared buckets so activity on the other servers shows up here too
+    // the decay math runs inside mongo, one small document per active group comes back.
+    // synchronized with flush, counts it has taken out but not written yet would be in neither mongo nor pending
+    public synchronized void rebuild() {
+        long now = System.currentTimeMillis();
+        long since = now - WINDOW_HALF_LIVES * halfLifeMs;
+
+        Document weighted = new Document("$add", List.of(
+                new Document("$multiply", List.of(new Document("$ifNull", List.of("$messages", 0)), weights[0])),
+                new Document("$multiply", List.of(new Document("$ifNull", List.of("$joins", 0)), weights[1])),
+                new Document("$multiply", List.of(new Document("$ifNull", List.of("$invites", 0)), weights[2]))));
+        // bucket midpoint, so a count from the current hour isn't decayed a full hour
+        Document age = new Document("$subtract", List.of(now, new Document("$add", List.of("$bucket", BUCKET_MS / 2))));
+        Document decay = new Document("$pow", List.of(0.5,
+                new Document("$divide", List.of(new Document("$max", List.of(age, 0)), halfLifeMs))));
+
+        try {
+            Map<String, Double> stored = new HashMap<>();
+            for (Document result : activityCollection.aggregate(List.of(
+                    new Document("$match", new Document("bucket", new Document("$gte", since))),
+                    new Document("$group", new Document("_id", "$groupId")
+                            .append("score", new Document("$sum", new Document("$multiply", List.of(weighted, decay)))))))) {
+                Object score = result.get("score");
+                if (result.getString("_id") != null && score instanceof Number) {
+                    stored.put(result.getString("_id"), ((Number) score).doubleValue());
+                }
+            }
+
+            // merged one group at a time under the score's lock: what mongo has plus the counts recorded here since the
+            // last flush, read inside the lock so a record() racing the rebuild is counted exactly once
+            List<String> groupIds = new ArrayList<>(stored.keySet());
+            groupIds.addAll(scores.keySet());
+            for (String groupId : groupIds) {
+                scores.compute(groupId, (id, current) -> {
+                    double value = stored.getOrDefault(id, 0.0) + pendingScore(id, since, now);
+                    return value > 0 ? new Score(value, now) : null;
+                });
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to rebuild group activity: " + e.getMessage());
+        }
+    }
+
+    private double pendingScore(String groupId, long since, long now) {
+        double score = 0;
+        for (long bucket = now - now % BUCKET_MS; bucket >= since - since % BUCKET_MS; bucket -= BUCKET_MS) {
+            AtomicLongArray counts = pending.get(groupId + "|" + bucket);
+            if (counts == null) {
+                continue;
+            }
+            double weight = 0;
+            for (Activity activity : Activity.values()) {
+                weight += counts.get(activity.ordinal()) * weights[activity.ordinal()];
+            }
+            // bucket midpoint, same as the pipeline
+            score += weight * Math.pow(0.5, Math.max(0, now - bucket - BUCKET_MS / 2) / (double) halfLifeMs);
+        }
+        return score;
+    }
+
+    public void flushAndRebuild() {
+        flush();
+        rebuild();
+    }
+
+    // heap of the best scores (twice k, private and deleted groups drop out), then the group docs from the cache
+    public void refreshTopGroups() {
+        long now = System.currentTimeMillis();
+        int candidates = topK * 2;
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(candidates + 1, Map.Entry.comparingByValue());
+
+        scores.values().removeIf(score -> score.valueAt(now, halfLifeMs) < 0.01);
+        for (Map.Entry<String, Score> entry : scores.entrySet()) {
+            heap.offer(Map.entry(entry.getKey(), entry.getValue().valueAt(now, halfLifeMs)));
+            if (heap.size() > candidates) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+
+        List<Document> top = new ArrayList<>();
+        List<String> included = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : ranked) {
+            if (top.size() >= topK) {
+                break;
+            }
+            Document group = groupManager.getGroup(UUID.fromString(entry.getKey()));
+            if (group == null || group.getBoolean("isPrivate", false)) {
+                continue;
+            }
+            top.add(summarize(group).append("trendingScore", Math.round(entry.getValue() * 100) / 100.0));
+            included.add(entry.getKey());
+        }
+
+        // quiet server, pad with the newest public groups so the page isn't empty
+        if (top.size() < topK) {
+            try {
+                for (Document group : groupsCollection.find(new Document("isPrivate", false)
+                                .append("groupId", new Document("$nin", included)))
+                        .sort(new Document("createdDate", -1))
+                        .limit(topK - top.size())) {
+                    top.add(summarize(group).append("trendingScore", 0.0));
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to load newest groups: " + e.getMessage());
+            }
+        }
+
+        topGroups = top;
+    }
+
+    private Document summarize(Document group) {
+        List<Document> members = group.getList("members", Document.class);
+        group.remove("nameTokens");
+        group.remove("searchTokens");
+        return group.append("memberCount", members != null ? members.size() : 0);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("scoredGroups", scores.size());
+        metrics.put("pendingBuckets", pending.size());
+        metrics.put("topGroups", topGroups.size());
+        metrics.put("halfLifeMinutes", TimeUnit.MILLISECONDS.toMinutes(halfLifeMs));
+        return metrics;
+    }
+
+    private static final class Score {
+        private final double value;
+        private final long at;
+
+        private Score(double value, long at) {
+            this.value = value;
+            this.at = at;
+        }
+
+        private double valueAt(long now, long halfLifeMs) {
+            return value * Math.pow(0.5, Math.max(0, now - at) / (double) halfLifeMs);
+        }
+
+        private Score plus(double weight, long now, long halfLifeMs) {
+            return new Score(valueAt(now, halfLifeMs) + weight, now);
+        }
+    }
+}
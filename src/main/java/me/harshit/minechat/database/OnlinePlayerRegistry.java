@@ -0,0 +1,158 @@
+package me.harshit.minechat.database;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// who is online, readable from any thread: the web handlers and websocket ask this instead of the bukkit api
+// written only from the main thread (join, quit, world change, rank refresh), every write publishes a new immutable
+// snapshot through one volatile field, so a reader always sees a whole, consistent player list and never takes a lock.
+// joins and quits are rare next to reads, copying the maps on each is cheaper than making every read synchronize
+public class OnlinePlayerRegistry {
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of());
+
+    public OnlinePlayer get(UUID playerId) {
+        return playerId != null ? snapshot.byId.get(playerId) : null;
+    }
+
+    // case-insensitive like Bukkit.getPlayerExact
+    public OnlinePlayer getByName(String playerName) {
+        return playerName != null ? snapshot.byName.get(playerName.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    public boolean isOnline(UUID playerId) {
+        return get(playerId) != null;
+    }
+
+    public boolean isOnline(String playerName) {
+        return getByName(playerName) != null;
+    }
+
+    // sorted by name
+    public List<OnlinePlayer> getAll() {
+        return snapshot.all;
+    }
+
+    public int size() {
+        return snapshot.byId.size();
+    }
+
+    // main thread only, from here on
+
+    public void join(Player player, String cleanRank, String formattedRank) {
+        OnlinePlayer entry = new OnlinePlayer(player.getUniqueId(), player.getName(), player.getWorld().getName(),
+                cleanRank, formattedRank, System.currentTimeMillis());
+        update(byId -> byId.put(entry.getPlayerId(), entry));
+    }
+
+    public void quit(UUID playerId) {
+        update(byId -> byId.remove(playerId));
+    }
+
+    public void changeWorld(Player player) {
+        update(byId -> byId.computeIfPresent(player.getUniqueId(), (id, entry) -> entry.withWorld(player.getWorld().getName())));
+    }
+
+    // the periodic rank sample, and the fill on enable for players still online after a reload
+    // rebuilt from bukkit's own list each time so a missed join or quit can't linger, join times are kept
+    public void replaceAll(Collection<OnlinePlayer> players) {
+        update(byId -> {
+            Map<UUID, OnlinePlayer> previous = new HashMap<>(byId);
+            byId.clear();
+            for (OnlinePlayer player : players) {
+                OnlinePlayer known = previous.get(player.getPlayerId());
+                byId.put(player.getPlayerId(), known != null ? player.withJoinedAt(known.getJoinedAt()) : player);
+            }
+        });
+    }
+
+    private synchronized void update(Consumer<Map<UUID, OnlinePlayer>> change) {
+        Map<UUID, OnlinePlayer> byId = new HashMap<>(snapshot.byId);
+        change.accept(byId);
+        snapshot = new Snapshot(byId);
+    }
+
+    private static final class Snapshot {
+        private final Map<UUID, OnlinePlayer> byId;
+        private final Map<String, OnlinePlayer> byName;
+        private final List<OnlinePlayer> all;
+
+        private Snapshot(Map<UUID, OnlinePlayer> byId) {
+            Map<String, OnlinePlayer> byName = new HashMap<>();
+            List<OnlinePlayer> all = new ArrayList<>(byId.values());
+            for (OnlinePlayer player : all) {
+                byName.put(player.getLowerName(), player);
+            }
+            all.sort(Comparator.comparing(OnlinePlayer::getLowerName));
+
+            this.byId = Map.copyOf(byId);
+            this.byName = Map.copyOf(byName);
+            this.all = List.copyOf(all);
+        }
+    }
+
+    public static final class OnlinePlayer {
+        private final UUID playerId;
+        private final String playerName;
+        private final String lowerName;
+        private final String world;
+        private final String rank;
+        private final String formattedRank;
+        private final long joinedAt;
+
+        public OnlinePlayer(UUID playerId, String playerName, String world, String rank, String formattedRank, long joinedAt) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.lowerName = playerName.toLowerCase(Locale.ROOT);
+            this.world = world;
+            this.rank = rank != null ? rank : "";
+            this.formattedRank = formattedRank != null ? formattedRank : "";
+            this.joinedAt = joinedAt;
+        }
+
+        private OnlinePlayer withWorld(String world) {
+            return new OnlinePlayer(playerId, playerName, world, rank, formattedRank, joinedAt);
+        }
+
+        private OnlinePlayer withJoinedAt(long joinedAt) {
+            return new OnlinePlayer(playerId, playerName, world, rank, formattedRank, joinedAt);
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public String getLowerName() {
+            return lowerName;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public String getRank() {
+            return rank;
+        }
+
+        public String getFormattedRank() {
+            return formattedRank;
+        }
+
+        public long getJoinedAt() {
+            return joinedAt;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package me.harshit.minechat.database;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// salted PBKDF2 password hashes, stored as pbkdf2$sha256$<iterations>$<salt>$<hash>
+// older accounts still have a bare sha-256 hex string, those verify once and get rehashed
+final class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2$sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+
+    PasswordHasher(int iterations) {
+        this.iterations = Math.max(10000, iterations);
+    }
+
+    String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] key = derive(password, salt, iterations);
+
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(key);
+    }
+
+    boolean verify(String password, String stored) {
+        if (stored == null || password == null) {
+            return false;
+        }
+
+        if (isLegacy(stored)) {
+            return MessageDigest.isEqual(
+                    legacyHash(password).getBytes(StandardCharsets.US_ASCII),
+                    stored.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        if (!stored.startsWith(PREFIX)) {
+            return false;
+        }
+
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            return MessageDigest.isEqual(derive(password, salt, storedIterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // legacy hashes and anything hashed with a lower cost than configured get replaced after a good login
+    boolean needsRehash(String stored) {
+        if (stored == null || isLegacy(stored) || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        try {
+            return Integer.parseInt(parts[0]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private boolean isLegacy(String stored) {
+        return stored.length() == 64 && stored.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    private byte[] derive(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException("PBKDF2 unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private String legacyHash(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
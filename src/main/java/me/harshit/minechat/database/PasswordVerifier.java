@@ -0,0 +1,173 @@
+package me.harshit.minechat.database;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// runs password hashing on its own small bounded pool so a login burst can't eat the web worker threads
+// also keeps a failure counter per account and client address that locks that pair out for a while after too many misses,
+// keyed by both so a stranger guessing wrong can't lock the real player out from their own address.
+// a second, larger budget per account alone catches guesses spread over many addresses
+public class PasswordVerifier {
+
+    public enum Result { VALID, INVALID, LOCKED, BUSY }
+
+    private final ThreadPoolExecutor executor;
+    private final int maxFailures;
+    private final int maxAccountFailures;
+    private final long lockoutMillis;
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong lockedOut = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+
+    public PasswordVerifier(int threads, int queueSize, int maxFailures, int maxAccountFailures, int lockoutSeconds) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Minechat-Auth-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxFailures = Math.max(1, maxFailures);
+        this.maxAccountFailures = Math.max(this.maxFailures, maxAccountFailures);
+        this.lockoutMillis = Math.max(1, lockoutSeconds) * 1000L;
+    }
+
+    // check returns true for a good password. if it throws (the database couldn't be asked) the answer is BUSY
+    // and the attempt isn't counted, a mongo blip must not lock real players out
+    public CompletableFuture<Result> verify(String account, String address, Supplier<Boolean> check) {
+        String accountKey = account == null ? "" : account.toLowerCase(Locale.ROOT);
+        String key = accountKey + "|" + (address == null ? "" : address);
+        if (isLocked(key, maxFailures) || isLocked(accountKey, maxAccountFailures)) {
+            lockedOut.incrementAndGet();
+            return CompletableFuture.completedFuture(Result.LOCKED);
+        }
+
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                totalWaitNanos.addAndGet(startedAt - queuedAt);
+
+                Boolean valid;
+                try {
+                    valid = Boolean.TRUE.equals(check.get());
+                } catch (Exception e) {
+                    valid = null;
+                }
+
+                totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                completed.incrementAndGet();
+
+                if (valid == null) {
+                    errors.incrementAndGet();
+                    future.complete(Result.BUSY);
+                } else if (valid) {
+                    attempts.remove(key);
+                    attempts.remove(accountKey);
+                    future.complete(Result.VALID);
+                } else {
+                    recordFailure(key);
+                    recordFailure(accountKey);
+                    future.complete(Result.INVALID);
+                }
+            });
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            future.complete(Result.BUSY);
+        }
+        return future;
+    }
+
+    // plain hashing work (setting a password) that should also stay off the web threads
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            submitted.incrementAndGet();
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // pair keys are "account|address", account keys have no '|' (minecraft names can't contain one)
+    private boolean isLocked(String key, int limit) {
+        Attempts entry = attempts.get(key);
+        if (entry == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - entry.firstFailure > lockoutMillis) {
+            attempts.remove(key, entry);
+            return false;
+        }
+        return entry.failures.get() >= limit;
+    }
+
+    private void recordFailure(String key) {
+        long now = System.currentTimeMillis();
+        if (attempts.size() > 10000) {
+            attempts.values().removeIf(entry -> now - entry.firstFailure > lockoutMillis);
+        }
+        attempts.compute(key, (k, entry) -> {
+            if (entry == null || now - entry.firstFailure > lockoutMillis) {
+                entry = new Attempts(now);
+            }
+            entry.failures.incrementAndGet();
+            return entry;
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        long done = completed.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("threads", executor.getPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        metrics.put("submitted", submitted.get());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.get());
+        metrics.put("lockedOut", lockedOut.get());
+        metrics.put("errors", errors.get());
+        metrics.put("trackedAccounts", attempts.size());
+        metrics.put("avgWaitMs", done == 0 ? 0 : totalWaitNanos.get() / done / 1_000_000.0);
+        metrics.put("avgRunMs", done == 0 ? 0 : totalRunNanos.get() / done / 1_000_000.0);
+        return metrics;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class Attempts {
+        private final long firstFailure;
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Attempts(long firstFailure) {
+            this.firstFailure = firstFailure;
+        }
+    }
+}
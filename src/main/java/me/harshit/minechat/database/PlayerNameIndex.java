@@ -0,0 +1,99 @@
+package me.harshit.minechat.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// in memory index of every known player name, sorted by lowercase name
+// prefix lookups are a subMap walk so tab completion and typeahead never touch mongo
+public class PlayerNameIndex {
+
+    private final ConcurrentSkipListMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<UUID, String> keyByUUID = new ConcurrentHashMap<>();
+
+    public void put(UUID playerUUID, String playerName) {
+        if (playerUUID == null || playerName == null || playerName.isEmpty()) {
+            return;
+        }
+
+        String key = SearchTokens.normalize(playerName);
+        String previous = keyByUUID.put(playerUUID, key);
+
+        // name changed, drop the old key unless another account took it over
+        if (previous != null && !previous.equals(key)) {
+            byName.computeIfPresent(previous, (k, entry) -> entry.getPlayerUUID().equals(playerUUID) ? null : entry);
+        }
+
+        byName.put(key, new Entry(playerUUID, playerName));
+    }
+
+    public List<Entry> findByPrefix(String prefix, int limit, int offset) {
+        List<Entry> results = new ArrayList<>();
+        String key = SearchTokens.normalize(prefix);
+        Map<String, Entry> range = key.isEmpty() ? byName : byName.subMap(key, true, key + Character.MAX_VALUE, false);
+
+        int skipped = 0;
+        for (Entry entry : range.values()) {
+            if (skipped++ < offset) {
+                continue;
+            }
+            if (results.size() >= limit) {
+                break;
+            }
+            results.add(entry);
+        }
+        return results;
+    }
+
+    public List<String> completeNames(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        for (Entry entry : findByPrefix(prefix, limit, 0)) {
+            names.add(entry.getPlayerName());
+        }
+        return names;
+    }
+
+    public Entry get(String playerName) {
+        return byName.get(SearchTokens.normalize(playerName));
+    }
+
+    // reverse lookup, null if we never saw the uuid or its name was taken over by another account
+    public Entry get(UUID playerUUID) {
+        String key = keyByUUID.get(playerUUID);
+        Entry entry = key != null ? byName.get(key) : null;
+        return entry != null && entry.getPlayerUUID().equals(playerUUID) ? entry : null;
+    }
+
+    public List<Entry> entries() {
+        return new ArrayList<>(byName.values());
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    public boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    public static class Entry {
+        private final UUID playerUUID;
+        private final String playerName;
+
+        Entry(UUID playerUUID, String playerName) {
+            this.playerUUID = playerUUID;
+            this.playerName = playerName;
+        }
+
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// the one place names and uuids get turned into each other
+// answers come from the name index first, then user_data, and misses are remembered for a short while
+// names the bloom filter has never seen are answered as unknown without a query
+// never asks bukkit for an offline player, that can block on a profile lookup
+public class PlayerResolver {
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10000;
+
+    private final MongoCollection<Document> userCollection;
+    private final PlayerNameIndex nameIndex;
+    private final BloomFilter nameFilter;
+    private final JavaPlugin plugin;
+    private final long negativeTtlMillis;
+
+    // "n:<lowercase name>" / "u:<uuid>" -> expiry
+    private final Map<String, Long> negative = new ConcurrentHashMap<>();
+
+    private final AtomicLong indexHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong databaseLookups = new AtomicLong();
+
+    public PlayerResolver(MongoCollection<Document> userCollection, PlayerNameIndex nameIndex, BloomFilter nameFilter,
+                          JavaPlugin plugin, int negativeTtlSeconds) {
+        this.userCollection = userCollection;
+        this.nameIndex = nameIndex;
+        this.nameFilter = nameFilter;
+        this.plugin = plugin;
+        this.negativeTtlMillis = Math.max(1, negativeTtlSeconds) * 1000L;
+    }
+
+    // called whenever we learn a name for sure (join, user_data write)
+    public void remember(UUID playerUUID, String playerName) {
+        if (playerUUID == null || playerName == null || playerName.isEmpty()) {
+            return;
+        }
+        nameIndex.put(playerUUID, playerName);
+        nameFilter.put(SearchTokens.normalize(playerName));
+        negative.remove(nameKey(playerName));
+        negative.remove(uuidKey(playerUUID));
+    }
+
+    public UUID resolveUUID(String playerName) {
+        if (playerName == null || playerName.isEmpty()) {
+            return null;
+        }
+
+        PlayerNameIndex.Entry entry = nameIndex.get(playerName);
+        if (entry != null) {
+            indexHits.incrementAndGet();
+            return entry.getPlayerUUID();
+        }
+
+        String key = nameKey(playerName);
+        if (isKnownMissing(key) || !nameFilter.mightContain(SearchTokens.normalize(playerName))) {
+            return null;
+        }
+
+        try {
+            databaseLookups.incrementAndGet();
+            Document userDoc = userCollection.find(new Document("playerNameLower", SearchTokens.normalize(playerName)))
+                    .projection(new Document("playerName", 1).append("playerUUID", 1).append("_id", 0))
+                    .first();
+            if (userDoc != null && userDoc.getString("playerUUID") != null) {
+                UUID playerUUID = UUID.fromString(userDoc.getString("playerUUID"));
+                remember(playerUUID, userDoc.getString("playerName"));
+                return playerUUID;
+            }
+            nameFilter.recordFalsePositive();
+            markMissing(key);
+            return null;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to look up player UUID for " + playerName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public String resolveName(UUID playerUUID) {
+        if (playerUUID == null) {
+            return null;
+        }
+
+        PlayerNameIndex.Entry entry = nameIndex.get(playerUUID);
+        if (entry != null) {
+            indexHits.incrementAndGet();
+            return entry.getPlayerName();
+        }
+
+        String key = uuidKey(playerUUID);
+        if (isKnownMissing(key)) {
+            return null;
+        }
+
+        try {
+            databaseLookups.incrementAndGet();
+            Document userDoc = userCollection.find(new Document("playerUUID", playerUUID.toString()))
+                    .projection(new Document("playerName", 1).append("_id", 0))
+                    .first();
+            String playerName = userDoc != null ? userDoc.getString("playerName") : null;
+            if (playerName != null) {
+                remember(playerUUID, playerName);
+                return playerName;
+            }
+            markMissing(key);
+            return null;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to get player name for UUID " + playerUUID + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // bulk version of resolveName, unknown uuids are left out
+    public Map<UUID, String> resolveNames(Collection<UUID> playerUUIDs) {
+        Map<UUID, String> resolved = new LinkedHashMap<>();
+        List<String> pending = new ArrayList<>();
+
+        for (UUID playerUUID : playerUUIDs) {
+            if (playerUUID == null || resolved.containsKey(playerUUID)) {
+                continue;
+            }
+            PlayerNameIndex.Entry entry = nameIndex.get(playerUUID);
+            if (entry != null) {
+                indexHits.incrementAndGet();
+                resolved.put(playerUUID, entry.getPlayerName());
+            } else if (!isKnownMissing(uuidKey(playerUUID)) && !pending.contains(playerUUID.toString())) {
+                pending.add(playerUUID.toString());
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return resolved;
+        }
+
+        try {
+            databaseLookups.incrementAndGet();
+            for (Document userDoc : userCollection.find(new Document("playerUUID", new Document("$in", pending)))
+                    .projection(new Document("playerName", 1).append("playerUUID", 1).append("_id", 0))) {
+                String playerName = userDoc.getString("playerName");
+                String playerUUID = userDoc.getString("playerUUID");
+                if (playerName == null || playerUUID == null) {
+                    continue;
+                }
+
+                UUID uuid = UUID.fromString(playerUUID);
+                remember(uuid, playerName);
+                resolved.put(uuid, playerName);
+                pending.remove(playerUUID);
+            }
+
+            for (String missing : pending) {
+                markMissing("u:" + missing);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to bulk resolve player names: " + e.getMessage());
+        }
+        return resolved;
+    }
+
+    private boolean isKnownMissing(String key) {
+        Long expiresAt = negative.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt < System.currentTimeMillis()) {
+            negative.remove(key, expiresAt);
+            return false;
+        }
+        negativeHits.incrementAndGet();
+        return true;
+    }
+
+    private void markMissing(String key) {
+        long now = System.currentTimeMillis();
+        if (negative.size() > MAX_NEGATIVE_ENTRIES) {
+            negative.values().removeIf(expiresAt -> expiresAt < now);
+            if (negative.size() > MAX_NEGATIVE_ENTRIES) {
+                negative.clear();
+            }
+        }
+        negative.put(key, now + negativeTtlMillis);
+    }
+
+    private static String nameKey(String playerName) {
+        return "n:" + SearchTokens.normalize(playerName);
+    }
+
+    private static String uuidKey(UUID playerUUID) {
+        return "u:" + playerUUID;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("indexedNames", nameIndex.size());
+        metrics.put("negativeEntries", negative.size());
+        metrics.put("indexHits", indexHits.get());
+        metrics.put("negativeHits", negativeHits.get());
+        metrics.put("databaseLookups", databaseLookups.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,226 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import me.harshit.minechat.model.PlayerSession;
+import org.bson.Document;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+// owns the PlayerSession of every online player
+// sessions load async on join, get patched from the friend/group change hooks and are dropped on quit
+public class PlayerSessionManager implements FriendManager.FriendListener {
+
+    private final JavaPlugin plugin;
+    private final FriendManager friendManager;
+    private final GroupManager groupManager;
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+
+    public PlayerSessionManager(JavaPlugin plugin, FriendManager friendManager, GroupManager groupManager) {
+        this.plugin = plugin;
+        this.friendManager = friendManager;
+        this.groupManager = groupManager;
+
+        friendManager.addListener(this);
+        groupManager.addGroupListener(this::groupChanged);
+    }
+
+    public void open(UUID playerId, String playerName, String cleanRank, String formattedRank) {
+        PlayerSession session = new PlayerSession(playerId, playerName);
+        session.setRank(cleanRank, formattedRank);
+        sessions.put(playerId, session);
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> load(session));
+    }
+
+    public void close(UUID playerId) {
+        sessions.remove(playerId);
+    }
+
+    // null until the player is online, callers fall back to mongo
+    public PlayerSession get(UUID playerId) {
+        return sessions.get(playerId);
+    }
+
+    // only returns a session once its data is in, so readers never see a half filled friend list
+    public PlayerSession getLoaded(UUID playerId) {
+        PlayerSession session = sessions.get(playerId);
+        return session != null && session.isLoaded() ? session : null;
+    }
+
+    public void updateRank(UUID playerId, String cleanRank, String formattedRank) {
+        PlayerSession session = sessions.get(playerId);
+        if (session != null) {
+            session.setRank(cleanRank, formattedRank);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public List<UUID> getOnlinePlayerIds() {
+        return new ArrayList<>(sessions.keySet());
+    }
+
+    // a delete made on another server only tells us the _id, every session knows the ids of what it holds
+    public void registerChangeHandlers(ChangeStreamWatcher watcher) {
+        watcher.on("friends", event -> onRemoteDelete(event, PlayerSession::removeFriendByDocumentId));
+        watcher.on("friend_requests", event -> onRemoteDelete(event, PlayerSession::removeIncomingRequestByDocumentId));
+        watcher.on("chat_groups", event -> onRemoteDelete(event, PlayerSession::removeGroupByDocumentId));
+        watcher.onResync(this::reloadAll);
+    }
+
+    private void onRemoteDelete(ChangeStreamDocument<Document> event, BiPredicate<PlayerSession, Object> remove) {
+        Object documentId = event.getOperationType() == OperationType.DELETE ? ChangeStreamWatcher.documentId(event) : null;
+        if (documentId == null) {
+            return;
+        }
+        for (PlayerSession session : sessions.values()) {
+            session.patch(s -> remove.test(s, documentId));
+        }
+    }
+
+    // events were missed, load every online player's data again
+    public void reloadAll() {
+        for (PlayerSession session : sessions.values()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> load(session));
+        }
+    }
+
+    private void load(PlayerSession session) {
+        session.beginLoad();
+        try {
+            UUID playerId = session.getPlayerId();
+
+            Map<UUID, Document> friends = new HashMap<>();
+            for (Document friend : friendManager.getFriendList(playerId)) {
+                String friendUUID = friend.getString("friendUUID");
+                if (friendUUID != null) {
+                    friends.put(UUID.fromString(friendUUID), friend);
+                }
+            }
+
+            List<Document> incoming = new ArrayList<>();
+            for (Document request : friendManager.getIncomingFriendRequests(playerId)) {
+                if (request.getString("senderUUID") != null) {
+                    incoming.add(request);
+                }
+            }
+
+            List<PlayerSession.GroupMembership> groups = new ArrayList<>();
+            for (Document group : groupManager.getPlayerGroupsAsDocuments(playerId)) {
+                PlayerSession.GroupMembership membership = toMembership(group, playerId);
+                if (membership != null) {
+                    groups.add(membership);
+                }
+            }
+
+            // player may have quit while we were loading
+            if (sessions.get(playerId) != session) {
+                session.abortLoad();
+                return;
+            }
+
+            session.completeLoad(friends, incoming, groups);
+        } catch (Exception e) {
+            session.abortLoad();
+            plugin.getLogger().warning("Failed to load session for " + session.getPlayerName() + ": " + e.getMessage());
+        }
+    }
+
+    // group was written (or deleted when group is null), patch every online member and ex member
+    private void groupChanged(String groupId, Document group) {
+        UUID id = UUID.fromString(groupId);
+        for (PlayerSession session : sessions.values()) {
+            PlayerSession.GroupMembership membership = group == null ? null : toMembership(group, session.getPlayerId());
+            if (membership != null) {
+                session.patch(s -> s.putGroup(membership));
+            } else {
+                session.patch(s -> s.removeGroup(id));
+            }
+        }
+    }
+
+    private PlayerSession.GroupMembership toMembership(Document group, UUID playerId) {
+        String player = playerId.toString();
+        List<Document> members = group.getList("members", Document.class);
+        if (members == null) {
+            return null;
+        }
+
+        for (Document member : members) {
+            if (player.equals(member.getString("playerId"))) {
+                return new PlayerSession.GroupMembership(
+                        UUID.fromString(group.getString("groupId")),
+                        group.getString("groupName"),
+                        member.getString("role"),
+                        mutedUntil(group, player),
+                        group.get("_id"));
+            }
+        }
+        return null;
+    }
+
+    private long mutedUntil(Document group, String playerId) {
+        Document settings = group.get("settings", Document.class);
+        List<?> muted = settings != null ? settings.get("mutedMembers", List.class) : null;
+        if (muted == null) {
+            return 0;
+        }
+
+        long until = 0;
+        for (Object entry : muted) {
+            if (entry instanceof Document && playerId.equals(((Document) entry).getString("playerId"))) {
+                Object value = ((Document) entry).get("mutedUntil");
+                if (value instanceof Number) {
+                    until = Math.max(until, ((Number) value).longValue());
+                }
+            } else if (playerId.equals(entry)) {
+                until = Long.MAX_VALUE;
+            }
+        }
+        return until;
+    }
+
+    @Override
+    public void friendAdded(UUID playerId, Document friendship) {
+        PlayerSession session = sessions.get(playerId);
+        String friendUUID = friendship.getString("friendUUID");
+        if (session != null && friendUUID != null) {
+            session.patch(s -> s.putFriend(UUID.fromString(friendUUID), friendship));
+        }
+    }
+
+    @Override
+    public void friendRemoved(UUID playerId, UUID friendId) {
+        PlayerSession session = sessions.get(playerId);
+        if (session != null) {
+            session.patch(s -> s.removeFriend(friendId));
+        }
+    }
+
+    @Override
+    public void requestAdded(Document request) {
+        PlayerSession session = sessions.get(UUID.fromString(request.getString("targetUUID")));
+        if (session != null) {
+            session.patch(s -> s.putIncomingRequest(UUID.fromString(request.getString("senderUUID")), request.getString("senderName"), request.get("_id")));
+        }
+    }
+
+    @Override
+    public void requestRemoved(UUID senderId, UUID targetId) {
+        PlayerSession session = sessions.get(targetId);
+        if (session != null) {
+            session.patch(s -> s.removeIncomingRequest(senderId));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package me.harshit.minechat.database;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// private messages on their way to mongo, so neither the main thread (in game /msg) nor a web request waits on an insert
+// callers queue a document and get a future back that completes once mongo has acknowledged it (false if it couldn't be stored).
+// one writer thread takes whatever queued up while the previous write was in flight and inserts it as one unordered
+// insertMany, so under load the batches grow by themselves and when it's quiet a message is written right away
+public class PrivateMessageWriter {
+
+    private final MongoCollection<Document> collection;
+    private final JavaPlugin plugin;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    public PrivateMessageWriter(MongoCollection<Document> collection, JavaPlugin plugin) {
+        this.collection = collection;
+        this.plugin = plugin;
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("private-messages.persistence.batch-size", 200));
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, plugin.getConfig().getInt("private-messages.persistence.queue-size", 10000)));
+
+        this.writer = new Thread(this::run, "Minechat-PM-Writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // never blocks, a full queue (mongo far behind) answers false right away
+    // the future completes on the writer thread, whatever is chained onto it should be quick
+    public CompletableFuture<Boolean> submit(Document message) {
+        Pending pending = new Pending(message);
+        if (!running || !queue.offer(pending)) {
+            rejected.incrementAndGet();
+            pending.ack.complete(false);
+        }
+        return pending.ack;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // close() interrupts only once the loop should be finishing up
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            documents.add(pending.document);
+        }
+
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // unordered: everything but the reported documents went in
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failedIndexes.add(error.getIndex());
+            }
+            plugin.getLogger().warning("Failed to store " + failedIndexes.size() + " of " + batch.size() + " private messages: " + e.getMessage());
+        } catch (Exception e) {
+            for (int i = 0; i < batch.size(); i++) {
+                failedIndexes.add(i);
+            }
+            plugin.getLogger().warning("Failed to store " + batch.size() + " private messages: " + e.getMessage());
+        }
+
+        batches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            boolean stored = !failedIndexes.contains(i);
+            (stored ? written : failed).incrementAndGet();
+            totalLatencyNanos.addAndGet(now - pending.queuedAt);
+            pending.ack.complete(stored);
+        }
+    }
+
+    // whatever is queued still gets written, the writer gets a few seconds for it before the rest is failed
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            failed.incrementAndGet();
+            pending.ack.complete(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long acknowledged = written.get() + failed.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queued", queue.size());
+        metrics.put("written", written.get());
+        metrics.put("failed", failed.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("batches", batches.get());
+        metrics.put("largestBatch", largestBatch.get());
+        metrics.put("averageBatch", batches.get() == 0 ? 0 : (double) acknowledged / batches.get());
+        metrics.put("averageAckMillis", acknowledged == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / acknowledged));
+        return metrics;
+    }
+
+    private static final class Pending {
+        private final Document document;
+        private final CompletableFuture<Boolean> ack = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private Pending(Document document) {
+            this.document = document;
+        }
+    }
+}
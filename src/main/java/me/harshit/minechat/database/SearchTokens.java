@@ -0,0 +1,51 @@
+package me.harshit.minechat.database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// builds the edge n-gram tokens we store on searchable documents
+// "Red Stone" -> r, re, red, s, st, sto, ... so prefix searches hit a multikey index instead of a $regex scan
+final class SearchTokens {
+
+    static final int MAX_GRAM = 15;
+    private static final int MAX_WORDS = 32;
+
+    private SearchTokens() {
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : normalize(text).split("[^\\p{L}\\p{N}_]+")) {
+            if (!word.isEmpty()) {
+                words.add(word.length() > MAX_GRAM ? word.substring(0, MAX_GRAM) : word);
+            }
+        }
+        return words;
+    }
+
+    static List<String> edgeNGrams(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            List<String> words = words(text);
+            for (int i = 0; i < words.size() && i < MAX_WORDS; i++) {
+                String word = words.get(i);
+                for (int len = 1; len <= word.length(); len++) {
+                    tokens.add(word.substring(0, len));
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // query words double as tokens since every stored word prefix is indexed
+    static List<String> queryTokens(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(words(query)));
+    }
+}
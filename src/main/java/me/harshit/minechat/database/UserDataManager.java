@@ -2,26 +2,173 @@ package me.harshit.minechat.database;
 
 import me.harshit.minechat.Minechat;
 import org.bson.Document;
-import org.bukkit.Bukkit;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import org.bukkit.entity.Player;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
 
-import java.security.MessageDigest;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 // manages user data related to web access and passwords
 public class UserDataManager {
 
     private final MongoCollection<Document> userCollection;
     private final Minechat plugin;
+    private final PlayerNameIndex nameIndex = new PlayerNameIndex();
+    private final PlayerResolver playerResolver;
+    // lowercase names of every player / of players with web access, filled by loadNameIndex
+    private final BloomFilter playerNameFilter;
+    private final BloomFilter webAccessFilter;
+
+    // rank write-behind, see queueRankUpdate
+    private final Map<UUID, Document> pendingRankWrites = new ConcurrentHashMap<>();
+    private final Map<UUID, Document> lastKnownRanks = new ConcurrentHashMap<>();
+
+    private final List<Consumer<UUID>> playerDataListeners = new CopyOnWriteArrayList<>();
+
+    private final PasswordHasher passwordHasher;
+    private final PasswordVerifier passwordVerifier;
 
     public UserDataManager(MongoDatabase database, Minechat plugin) {
         this.userCollection = database.getCollection("user_data");
         this.plugin = plugin;
+        this.passwordHasher = new PasswordHasher(plugin.getConfig().getInt("web.auth.pbkdf2-iterations", 210000));
+        this.passwordVerifier = new PasswordVerifier(
+            plugin.getConfig().getInt("web.auth.threads", 2),
+            plugin.getConfig().getInt("web.auth.queue-size", 64),
+            plugin.getConfig().getInt("web.auth.max-failed-attempts", 5),
+            plugin.getConfig().getInt("web.auth.max-failed-attempts-per-account", 25),
+            plugin.getConfig().getInt("web.auth.lockout-seconds", 300)
+        );
+        double falsePositiveRate = plugin.getConfig().getDouble("bloom-filters.false-positive-rate", 0.01);
+        this.playerNameFilter = new BloomFilter("playerNames", falsePositiveRate);
+        this.webAccessFilter = new BloomFilter("webAccess", falsePositiveRate);
+        this.playerResolver = new PlayerResolver(userCollection, nameIndex, playerNameFilter, plugin,
+            plugin.getConfig().getInt("players.negative-cache-seconds", 30));
+    }
+
+    // playerNameLower backs the prefix search, older docs get it filled in here
+    public void ensureSearchIndexes() {
+        try {
+            userCollection.createIndex(Indexes.ascending("playerNameLower"), new IndexOptions().name("player_name_lower"));
+            userCollection.createIndex(Indexes.ascending("playerUUID"), new IndexOptions().name("player_uuid"));
+
+            long updated = userCollection.updateMany(
+                new Document("playerNameLower", new Document("$exists", false))
+                        .append("playerName", new Document("$type", "string")),
+                List.of(new Document("$set", new Document("playerNameLower", new Document("$toLower", "$playerName"))))
+            ).getModifiedCount();
+
+            if (updated > 0) {
+                plugin.getLogger().info("Indexed " + updated + " player names for search");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to create player search indexes: " + e.getMessage());
+        }
+    }
+
+    // fills the name index and both name filters from the users collection, only names, uuids and the web flag are pulled
+    public void loadNameIndex() {
+        if (scanUsers()) {
+            plugin.getLogger().info("Loaded " + nameIndex.size() + " player names into the search index");
+        }
+    }
+
+    // same scan on the filter rebuild interval, drops names that were renamed away or lost web access
+    public void rebuildFilters() {
+        scanUsers();
+    }
+
+    private boolean scanUsers() {
+        try {
+            long expected = userCollection.estimatedDocumentCount();
+            playerNameFilter.begin(expected);
+            webAccessFilter.begin(expected);
+
+            for (Document userDoc : userCollection.find()
+                    .projection(new Document("playerName", 1).append("playerUUID", 1).append("webAccessEnabled", 1).append("_id", 0))
+                    .batchSize(1000)) {
+                String playerName = userDoc.getString("playerName");
+                String playerUUID = userDoc.getString("playerUUID");
+                if (playerName == null) {
+                    continue;
+                }
+                playerNameFilter.put(SearchTokens.normalize(playerName));
+                if (userDoc.getBoolean("webAccessEnabled", false)) {
+                    webAccessFilter.put(SearchTokens.normalize(playerName));
+                }
+                if (playerUUID != null) {
+                    nameIndex.put(UUID.fromString(playerUUID), playerName);
+                }
+            }
+
+            playerNameFilter.commit();
+            webAccessFilter.commit();
+            return true;
+        } catch (Exception e) {
+            playerNameFilter.abort();
+            webAccessFilter.abort();
+            plugin.getLogger().warning("Failed to load player name index: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public List<BloomFilter> getFilters() {
+        return List.of(playerNameFilter, webAccessFilter);
+    }
+
+    public PlayerNameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    public PlayerResolver getPlayerResolver() {
+        return playerResolver;
+    }
+
+    // names written by other servers go straight into the name index
+    public void registerChangeHandlers(ChangeStreamWatcher watcher) {
+        watcher.on("user_data", event -> {
+            Document userDoc = event.getFullDocument();
+            String playerUUID = userDoc != null ? userDoc.getString("playerUUID") : null;
+            if (playerUUID != null && userDoc.getString("playerName") != null) {
+                playerResolver.remember(UUID.fromString(playerUUID), userDoc.getString("playerName"));
+                if (userDoc.getBoolean("webAccessEnabled", false)) {
+                    webAccessFilter.put(SearchTokens.normalize(userDoc.getString("playerName")));
+                }
+                notifyPlayerDataListeners(UUID.fromString(playerUUID));
+            }
+        });
+    }
+
+    // told the uuid after a player's name, rank or online state was written
+    public void addPlayerDataListener(Consumer<UUID> listener) {
+        playerDataListeners.add(listener);
+    }
+
+    private void notifyPlayerDataListeners(UUID playerUUID) {
+        for (Consumer<UUID> listener : playerDataListeners) {
+            try {
+                listener.accept(playerUUID);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Player data listener failed: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -34,12 +181,13 @@ public class UserDataManager {
 
     public boolean setWebPassword(UUID playerUUID, String playerName, String password) {
         try {
-            // Hash
-            String hashedPassword = hashPassword(password);
+            // Hash (salted pbkdf2, this is slow on purpose so keep it off the main/web threads)
+            String hashedPassword = passwordHasher.hash(password);
 
             Document userDoc = new Document()
                     .append("playerUUID", playerUUID.toString())
                     .append("playerName", playerName)
+                    .append("playerNameLower", SearchTokens.normalize(playerName))
                     .append("webPassword", hashedPassword)
                     .append("webAccessEnabled", true)
                     .append("lastUpdated", System.currentTimeMillis());
@@ -49,6 +197,9 @@ public class UserDataManager {
                 userDoc,
                 new com.mongodb.client.model.ReplaceOptions().upsert(true)
             );
+            playerResolver.remember(playerUUID, playerName);
+            webAccessFilter.put(SearchTokens.normalize(playerName));
+            notifyPlayerDataListeners(playerUUID);
 
             return true;
 
@@ -58,33 +209,99 @@ public class UserDataManager {
         }
     }
 
-   // Verifies the web password for a player
+    // same as setWebPassword but on the auth executor
+    public CompletableFuture<Boolean> setWebPasswordAsync(UUID playerUUID, String playerName, String password) {
+        return passwordVerifier.submit(() -> setWebPassword(playerUUID, playerName, password));
+    }
+
+   // Verifies the web password for a player, blocking - web code should use verifyWebPasswordAsync
 
     public boolean verifyWebPassword(String playerName, String password) {
         try {
-            Document userDoc = userCollection.find(new Document("playerName", playerName)).first();
-
-            if (userDoc == null || !userDoc.getBoolean("webAccessEnabled", false)) {
-                return false;
+            Document userDoc = checkWebPassword(playerName, password);
+            if (userDoc != null) {
+                rehashWebPassword(userDoc, password);
             }
+            return userDoc != null;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to verify web password for " + playerName + ": " + e.getMessage());
+            return false;
+        }
+    }
 
-            String storedHash = userDoc.getString("webPassword");
-            String inputHash = hashPassword(password);
+    // the user's document when the password matches, null when it doesn't
+    // database errors are thrown, not turned into a wrong password
+    private Document checkWebPassword(String playerName, String password) {
+        if (!webAccessFilter.mightContain(SearchTokens.normalize(playerName))) {
+            return null;
+        }
+        Document userDoc = userCollection.find(new Document("playerName", playerName))
+                .projection(new Document("playerUUID", 1).append("webPassword", 1).append("webAccessEnabled", 1))
+                .first();
 
-            return storedHash != null && storedHash.equals(inputHash);
+        if (userDoc == null || !userDoc.getBoolean("webAccessEnabled", false)) {
+            return null;
+        }
+        return passwordHasher.verify(password, userDoc.getString("webPassword")) ? userDoc : null;
+    }
 
+    // old sha-256 or lower cost hash, swap it now that we have the plain password
+    // only replaces the hash we just checked so a concurrent password change wins, and a failure here doesn't fail the login
+    private void rehashWebPassword(Document userDoc, String password) {
+        String storedHash = userDoc.getString("webPassword");
+        if (!passwordHasher.needsRehash(storedHash)) {
+            return;
+        }
+        try {
+            userCollection.updateOne(
+                new Document("playerUUID", userDoc.getString("playerUUID")).append("webPassword", storedHash),
+                new Document("$set", new Document("webPassword", passwordHasher.hash(password)))
+            );
         } catch (Exception e) {
-            plugin.getLogger().warning("Failed to verify web password for " + playerName + ": " + e.getMessage());
-            return false;
+            plugin.getLogger().warning("Failed to upgrade web password hash: " + e.getMessage());
         }
     }
 
+    // runs on the auth executor behind the attempt limiter (per account and client address)
+    // the rehash is queued separately once the check has passed
+    public CompletableFuture<PasswordVerifier.Result> verifyWebPasswordAsync(String playerName, String password, String address) {
+        AtomicReference<Document> matched = new AtomicReference<>();
+        CompletableFuture<PasswordVerifier.Result> result = passwordVerifier.verify(playerName, address, () -> {
+            matched.set(checkWebPassword(playerName, password));
+            return matched.get() != null;
+        });
+        result.thenAccept(outcome -> {
+            if (outcome == PasswordVerifier.Result.VALID && passwordHasher.needsRehash(matched.get().getString("webPassword"))) {
+                passwordVerifier.submit(() -> {
+                    rehashWebPassword(matched.get(), password);
+                    return null;
+                });
+            }
+        });
+        return result;
+    }
+
+    public PasswordVerifier getPasswordVerifier() {
+        return passwordVerifier;
+    }
+
+    public void shutdown() {
+        passwordVerifier.shutdown();
+    }
+
    // Checks if a player has web access enabled
 
     public boolean hasWebAccess(String playerName) {
+        if (!webAccessFilter.mightContain(SearchTokens.normalize(playerName))) {
+            return false;
+        }
         try {
             Document userDoc = userCollection.find(new Document("playerName", playerName)).first();
-            return userDoc != null && userDoc.getBoolean("webAccessEnabled", false);
+            boolean enabled = userDoc != null && userDoc.getBoolean("webAccessEnabled", false);
+            if (!enabled) {
+                webAccessFilter.recordFalsePositive();
+            }
+            return enabled;
         } catch (Exception e) {
             return false;
         }
@@ -108,62 +325,11 @@ public class UserDataManager {
 
 
     public UUID getPlayerUUIDByName(String playerName) {
-        try {
-            Document userDoc = userCollection.find(new Document("playerName", playerName)).first();
-            if (userDoc != null) {
-                return UUID.fromString(userDoc.getString("playerUUID"));
-            }
-            return null;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to look up player UUID for " + playerName + ": " + e.getMessage());
-            return null;
-        }
-    }
-
-
-    public UUID getPlayerUUID(String playerName) {
-        try {
-            Document userDoc = userCollection.find(new Document("playerName", playerName)).first();
-            if (userDoc != null) {
-                return UUID.fromString(userDoc.getString("playerUUID"));
-            }
-            return null;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error getting player UUID for " + playerName + ": " + e.getMessage());
-            return null;
-        }
+        return playerResolver.resolveUUID(playerName);
     }
 
     public boolean playerExists(String playerName) {
-        try {
-            Document userDoc = userCollection.find(new Document("playerName", playerName)).first();
-            return userDoc != null;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error checking if player exists " + playerName + ": " + e.getMessage());
-            return false;
-        }
-    }
-
-    private String hashPassword(String password) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-
-            return hexString.toString();
-
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to hash password: " + e.getMessage());
-            return null;
-        }
+        return playerResolver.resolveUUID(playerName) != null;
     }
 
     // cache player data  when they join
@@ -185,9 +351,117 @@ public class UserDataManager {
     }
 
 
+    // write-behind rank refresh: callers queue the latest rank, flushRankUpdates writes them in one bulk op
+    // repeated updates for the same player coalesce and unchanged ranks never get written
+    public void queueRankUpdate(UUID playerUUID, String playerName, String cleanRank, String formattedRank) {
+        Document known = lastKnownRanks.get(playerUUID);
+        if (known != null && cleanRank.equals(known.getString("cleanRank"))
+                && formattedRank.equals(known.getString("formattedRank"))) {
+            return;
+        }
+
+        Document rankData = new Document()
+                .append("playerName", playerName)
+                .append("cleanRank", cleanRank)
+                .append("formattedRank", formattedRank);
+        lastKnownRanks.put(playerUUID, rankData);
+        pendingRankWrites.put(playerUUID, rankData);
+    }
+
+    // last known ranks for the restart snapshot
+    public Map<UUID, Document> getKnownRanks() {
+        return new HashMap<>(lastKnownRanks);
+    }
+
+    public void restoreKnownRank(UUID playerUUID, String cleanRank, String formattedRank) {
+        lastKnownRanks.putIfAbsent(playerUUID, new Document()
+                .append("cleanRank", cleanRank)
+                .append("formattedRank", formattedRank));
+    }
+
+    // restored ranks may be older than what other servers wrote meanwhile, take the stored ones unless ours are still queued
+    public void reconcileKnownRanks() {
+        List<String> playerUUIDs = new ArrayList<>();
+        for (UUID playerUUID : lastKnownRanks.keySet()) {
+            playerUUIDs.add(playerUUID.toString());
+        }
+        if (playerUUIDs.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Document userDoc : userCollection.find(new Document("playerUUID", new Document("$in", playerUUIDs)))
+                    .projection(new Document("playerUUID", 1).append("cleanRank", 1).append("formattedRank", 1).append("_id", 0))) {
+                UUID playerUUID = UUID.fromString(userDoc.getString("playerUUID"));
+                if (!pendingRankWrites.containsKey(playerUUID)
+                        && userDoc.getString("cleanRank") != null && userDoc.getString("formattedRank") != null) {
+                    lastKnownRanks.put(playerUUID, new Document()
+                            .append("cleanRank", userDoc.getString("cleanRank"))
+                            .append("formattedRank", userDoc.getString("formattedRank")));
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to reconcile cached ranks: " + e.getMessage());
+        }
+    }
+
+    public void flushRankUpdates() {
+        if (pendingRankWrites.isEmpty()) {
+            return;
+        }
+
+        List<UpdateOneModel<Document>> writes = new ArrayList<>();
+        List<UUID> flushed = new ArrayList<>();
+        List<Document> flushedData = new ArrayList<>();
+        for (UUID playerUUID : new ArrayList<>(pendingRankWrites.keySet())) {
+            Document rankData = pendingRankWrites.remove(playerUUID);
+            if (rankData == null) {
+                continue;
+            }
+
+            flushed.add(playerUUID);
+            flushedData.add(rankData);
+            // no upsert, a rank alone mustn't create a user document without a name or web access fields
+            writes.add(new UpdateOneModel<>(
+                new Document("playerUUID", playerUUID.toString()),
+                new Document("$set", new Document()
+                        .append("cleanRank", rankData.getString("cleanRank"))
+                        .append("formattedRank", rankData.getString("formattedRank"))
+                        .append("lastUpdated", System.currentTimeMillis()))
+            ));
+        }
+
+        try {
+            if (!writes.isEmpty()) {
+                userCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                flushed.forEach(this::notifyPlayerDataListeners);
+            }
+        } catch (MongoBulkWriteException e) {
+            // unordered: only the reported writes failed, they go back for the next flush unless a newer rank was queued meanwhile
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(error.getIndex());
+                pendingRankWrites.putIfAbsent(flushed.get(error.getIndex()), flushedData.get(error.getIndex()));
+            }
+            for (int i = 0; i < flushed.size(); i++) {
+                if (!failed.contains(i)) {
+                    notifyPlayerDataListeners(flushed.get(i));
+                }
+            }
+            plugin.getLogger().warning("Failed to flush " + failed.size() + " of " + writes.size() + " rank updates: " + e.getMessage());
+        } catch (Exception e) {
+            for (int i = 0; i < flushed.size(); i++) {
+                pendingRankWrites.putIfAbsent(flushed.get(i), flushedData.get(i));
+            }
+            plugin.getLogger().warning("Failed to flush " + writes.size() + " rank updates: " + e.getMessage());
+        }
+    }
+
     private Document getCachedRankData(Document userDoc) {
-        String cleanRank = userDoc.getString("cleanRank");
-        String formattedRank = userDoc.getString("formattedRank");
+        String playerUUID = userDoc.getString("playerUUID");
+        Document known = playerUUID != null ? lastKnownRanks.get(UUID.fromString(playerUUID)) : null;
+        String cleanRank = known != null ? known.getString("cleanRank") : userDoc.getString("cleanRank");
+        String formattedRank = known != null ? known.getString("formattedRank") : userDoc.getString("formattedRank");
 
         // If no cached data exists, use default
         if (cleanRank == null || formattedRank == null) {
@@ -201,38 +475,70 @@ public class UserDataManager {
                 .append("formattedRank", formattedRank);
     }
 
-    public List<Document> getAllRanks() {
+    public long countPlayers() {
         try {
-            List<Document> users = new ArrayList<>();
-            for (Document userDoc : userCollection.find()) {
-                String playerName = userDoc.getString("playerName");
-                String playerUUID = userDoc.getString("playerUUID");
-                Player player = Bukkit.getPlayerExact(playerName);
-                
-                Document rankDoc = new Document()
-                        .append("playerName", playerName)
-                        .append("playerUUID", playerUUID);
-
-                if (player != null) {
-                    String cleanRank = plugin.getRankManager().getCleanRank(player);
-                    String coloredFormattedRank = plugin.getRankManager().getFormattedRank(player);
-
-                    cachePlayerRank(UUID.fromString(playerUUID), playerName, cleanRank, coloredFormattedRank);
-
-                    rankDoc.append("rank", cleanRank)
-                           .append("formattedRank", coloredFormattedRank)
-                           .append("online", true);
-                } else {
-                    Document cachedRank = getCachedRankData(userDoc);
-
-                    rankDoc.append("rank", cachedRank.getString("cleanRank"))
-                           .append("formattedRank", cachedRank.getString("formattedRank"))
-                           .append("online", false);
-                }
+            return userCollection.countDocuments();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to count players: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // pages through the users collection with a projection and hands each row to the caller as it comes off the cursor
+    // read only: ranks come from the stored/queued values, online state is a uuid lookup
+    // limit <= 0 means no limit, exceptions are left to the caller since it is usually mid response
+    public void forEachPlayer(int offset, int limit, Consumer<Document> action) {
+        FindIterable<Document> cursor = userCollection.find()
+                .projection(new Document("_id", 0)
+                        .append("playerName", 1)
+                        .append("playerUUID", 1)
+                        .append("webAccessEnabled", 1)
+                        .append("lastUpdated", 1)
+                        .append("lastSeen", 1)
+                        .append("cleanRank", 1)
+                        .append("formattedRank", 1))
+                .sort(new Document("playerNameLower", 1))
+                .skip(Math.max(0, offset))
+                .batchSize(200);
+        if (limit > 0) {
+            cursor.limit(limit);
+        }
 
-                users.add(rankDoc);
+        for (Document userDoc : cursor) {
+            String playerUUID = userDoc.getString("playerUUID");
+            if (playerUUID == null) {
+                continue;
             }
-            return users;
+
+            boolean online = plugin.getPlayerRegistry().isOnline(UUID.fromString(playerUUID));
+            Document rank = getCachedRankData(userDoc);
+
+            action.accept(new Document()
+                    .append("playerName", userDoc.getString("playerName"))
+                    .append("playerUUID", playerUUID)
+                    .append("webAccessEnabled", userDoc.getBoolean("webAccessEnabled", false))
+                    .append("lastUpdated", userDoc.getLong("lastUpdated"))
+                    .append("rank", rank.getString("cleanRank"))
+                    .append("formattedRank", rank.getString("formattedRank"))
+                    .append("lastSeen", online ? Long.valueOf(System.currentTimeMillis()) : userDoc.getLong("lastSeen"))
+                    .append("online", online));
+        }
+    }
+
+    public void forEachRank(int offset, int limit, Consumer<Document> action) {
+        forEachPlayer(offset, limit, player -> action.accept(new Document()
+                .append("playerName", player.getString("playerName"))
+                .append("playerUUID", player.getString("playerUUID"))
+                .append("rank", player.getString("rank"))
+                .append("formattedRank", player.getString("formattedRank"))
+                .append("online", player.getBoolean("online"))));
+    }
+
+    public List<Document> getAllRanks() {
+        try {
+            List<Document> ranks = new ArrayList<>();
+            forEachRank(0, 0, ranks::add);
+            return ranks;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get all ranks: " + e.getMessage());
             return new ArrayList<>();
@@ -244,25 +550,11 @@ public class UserDataManager {
         try {
             Document userDoc = userCollection.find(new Document("playerUUID", playerUUID.toString())).first();
             if (userDoc != null) {
-                String playerName = userDoc.getString("playerName");
-                Player player = Bukkit.getPlayerExact(playerName);
-                
-                // Add rank information
-                if (player != null) {
-                    String cleanRank = plugin.getRankManager().getCleanRank(player);
-                    String coloredFormattedRank = plugin.getRankManager().getFormattedRank(player);
-
-                    cachePlayerRank(playerUUID, playerName, cleanRank, coloredFormattedRank);
-
-                    userDoc.append("rank", cleanRank)
-                           .append("formattedRank", coloredFormattedRank)
-                           .append("online", true);
-                } else {
-                    Document cachedRank = getCachedRankData(userDoc);
-                    userDoc.append("rank", cachedRank.getString("cleanRank"))
-                           .append("formattedRank", cachedRank.getString("formattedRank"))
-                           .append("online", false);
-                }
+                // Add rank information, kept fresh by the rank refresh task
+                Document cachedRank = getCachedRankData(userDoc);
+                userDoc.append("rank", cachedRank.getString("cleanRank"))
+                       .append("formattedRank", cachedRank.getString("formattedRank"))
+                       .append("online", plugin.getPlayerRegistry().isOnline(playerUUID));
             }
             return userDoc;
         } catch (Exception e) {
@@ -273,53 +565,13 @@ public class UserDataManager {
 
 
     public String getPlayerNameByUUID(UUID playerUUID) {
-        try {
-            Document userDoc = userCollection.find(new Document("playerUUID", playerUUID.toString())).first();
-            if (userDoc != null) {
-                return userDoc.getString("playerName");
-            }
-            return null;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to get player name for UUID " + playerUUID + ": " + e.getMessage());
-            return null;
-        }
+        return playerResolver.resolveName(playerUUID);
     }
 
     public List<Document> getAllPlayers() {
         try {
             List<Document> players = new ArrayList<>();
-            for (Document userDoc : userCollection.find()) {
-                String playerName = userDoc.getString("playerName");
-                String playerUUID = userDoc.getString("playerUUID");
-                Player player = Bukkit.getPlayerExact(playerName);
-
-                Document playerDoc = new Document()
-                        .append("playerName", playerName)
-                        .append("playerUUID", playerUUID)
-                        .append("webAccessEnabled", userDoc.getBoolean("webAccessEnabled", false))
-                        .append("lastUpdated", userDoc.getLong("lastUpdated"));
-
-                if (player != null && player.isOnline()) {
-                    String cleanRank = plugin.getRankManager().getCleanRank(player);
-                    String coloredFormattedRank = plugin.getRankManager().getFormattedRank(player);
-
-                    // cache the current rank data
-                    cachePlayerRank(UUID.fromString(playerUUID), playerName, cleanRank, coloredFormattedRank);
-
-                    playerDoc.append("rank", cleanRank)
-                           .append("formattedRank", coloredFormattedRank)
-                           .append("lastSeen", System.currentTimeMillis())
-                           .append("online", true);
-                } else {
-                    Document cachedRank = getCachedRankData(userDoc);
-                    playerDoc.append("rank", cachedRank.getString("cleanRank"))
-                           .append("formattedRank", cachedRank.getString("formattedRank"))
-                           .append("lastSeen", userDoc.getLong("lastSeen"))
-                           .append("online", false);
-                }
-
-                players.add(playerDoc);
-            }
+            forEachPlayer(0, 0, players::add);
             return players;
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to get all players: " + e.getMessage());
@@ -329,10 +581,12 @@ public class UserDataManager {
 
 
     public void cachePlayerData(UUID playerUUID, String playerName, String cleanRank, String formattedRank) {
+        playerResolver.remember(playerUUID, playerName);
         try {
             Document playerDoc = new Document()
                     .append("playerUUID", playerUUID.toString())
                     .append("playerName", playerName)
+                    .append("playerNameLower", SearchTokens.normalize(playerName))
                     .append("cleanRank", cleanRank)
                     .append("formattedRank", formattedRank)
                     .append("webAccessEnabled", false) // default to false, can be enabled later
@@ -348,12 +602,14 @@ public class UserDataManager {
                     new Document("playerUUID", playerUUID.toString()),
                     new Document("$set", new Document()
                         .append("playerName", playerName) // update name in case it changed
+                        .append("playerNameLower", SearchTokens.normalize(playerName))
                         .append("cleanRank", cleanRank)
                         .append("formattedRank", formattedRank)
                         .append("lastSeen", System.currentTimeMillis())
                     )
                 );
             }
+            notifyPlayerDataListeners(playerUUID);
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to cache player data for " + playerName + ": " + e.getMessage());
         }
@@ -365,11 +621,17 @@ public class UserDataManager {
                 new Document("playerUUID", playerUUID.toString()),
                 new Document("$set", new Document()
                     .append("playerName", playerName)
+                    .append("playerNameLower", SearchTokens.normalize(playerName))
                     .append("cleanRank", cleanRank)
                     .append("formattedRank", formattedRank)
                     .append("lastSeen", lastSeen)
                 )
             );
+            playerResolver.remember(playerUUID, playerName);
+            // the quit write carries the latest rank, nothing left to write behind for this player
+            pendingRankWrites.remove(playerUUID);
+            lastKnownRanks.remove(playerUUID);
+            notifyPlayerDataListeners(playerUUID);
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to update player data for " + playerName + ": " + e.getMessage());
         }
@@ -377,39 +639,63 @@ public class UserDataManager {
 
 
     public List<Document> searchPlayersByName(String query) {
+        return searchPlayersByName(query, 20, 0);
+    }
+
+    // served from the in memory name index, mongo is only hit for the details of the page being returned
+    public List<Document> searchPlayersByName(String query, int limit, int offset) {
+        if (nameIndex.isEmpty()) {
+            return searchPlayersByNameInDatabase(query, limit, offset);
+        }
+
         try {
-            List<Document> players = new ArrayList<>();
+            List<PlayerNameIndex.Entry> matches = nameIndex.findByPrefix(query, Math.max(1, limit), Math.max(0, offset));
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
 
-            Document filter = new Document("playerName",
-                new Document("$regex", ".*" + query + ".*").append("$options", "i"));
+            List<String> uuids = new ArrayList<>();
+            for (PlayerNameIndex.Entry entry : matches) {
+                uuids.add(entry.getPlayerUUID().toString());
+            }
 
-            for (Document userDoc : userCollection.find(filter).limit(20)) {
-                String playerName = userDoc.getString("playerName");
-                String playerUUID = userDoc.getString("playerUUID");
-                Player player = Bukkit.getPlayerExact(playerName);
-
-                Document playerDoc = new Document()
-                        .append("playerName", playerName)
-                        .append("playerUUID", playerUUID)
-                        .append("webAccessEnabled", userDoc.getBoolean("webAccessEnabled", false))
-                        .append("firstJoin", userDoc.getLong("firstJoin"))
-                        .append("lastSeen", userDoc.getLong("lastSeen"));
-
-                if (player != null && player.isOnline()) {
-                    String cleanRank = plugin.getRankManager().getCleanRank(player);
-                    String formattedRank = plugin.getRankManager().getFormattedRank(player);
-
-                    playerDoc.append("rank", cleanRank)
-                           .append("formattedRank", formattedRank)
-                           .append("online", true);
-                } else {
-                    Document cachedRank = getCachedRankData(userDoc);
-                    playerDoc.append("rank", cachedRank.getString("cleanRank"))
-                           .append("formattedRank", cachedRank.getString("formattedRank"))
-                           .append("online", false);
+            Map<String, Document> byUUID = new HashMap<>();
+            for (Document userDoc : userCollection.find(new Document("playerUUID", new Document("$in", uuids)))
+                    .projection(searchProjection())) {
+                byUUID.put(userDoc.getString("playerUUID"), userDoc);
+            }
+
+            // keep the index order, it is already sorted by name
+            List<Document> players = new ArrayList<>();
+            for (String uuid : uuids) {
+                Document userDoc = byUUID.get(uuid);
+                if (userDoc != null) {
+                    players.add(toSearchResult(userDoc));
                 }
+            }
+            return players;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to search players: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-                players.add(playerDoc);
+    // prefix range on playerNameLower, used until the name index has loaded
+    private List<Document> searchPlayersByNameInDatabase(String query, int limit, int offset) {
+        try {
+            List<Document> players = new ArrayList<>();
+            String prefix = SearchTokens.normalize(query);
+
+            Document filter = prefix.isEmpty()
+                ? new Document("playerNameLower", new Document("$exists", true))
+                : new Document("playerNameLower", new Document("$gte", prefix).append("$lt", prefix + Character.MAX_VALUE));
+
+            for (Document userDoc : userCollection.find(filter)
+                    .projection(searchProjection())
+                    .sort(new Document("playerNameLower", 1))
+                    .skip(Math.max(0, offset))
+                    .limit(Math.max(1, limit))) {
+                players.add(toSearchResult(userDoc));
             }
             return players;
         } catch (Exception e) {
@@ -417,4 +703,29 @@ public class UserDataManager {
             return new ArrayList<>();
         }
     }
+
+    private Document searchProjection() {
+        return new Document("playerName", 1)
+                .append("playerUUID", 1)
+                .append("webAccessEnabled", 1)
+                .append("firstJoin", 1)
+                .append("lastSeen", 1)
+                .append("cleanRank", 1)
+                .append("formattedRank", 1);
+    }
+
+    private Document toSearchResult(Document userDoc) {
+        String playerUUID = userDoc.getString("playerUUID");
+        Document cachedRank = getCachedRankData(userDoc);
+
+        return new Document()
+                .append("playerName", userDoc.getString("playerName"))
+                .append("playerUUID", playerUUID)
+                .append("webAccessEnabled", userDoc.getBoolean("webAccessEnabled", false))
+                .append("firstJoin", userDoc.getLong("firstJoin"))
+                .append("lastSeen", userDoc.getLong("lastSeen"))
+                .append("rank", cachedRank.getString("cleanRank"))
+                .append("formattedRank", cachedRank.getString("formattedRank"))
+                .append("online", playerUUID != null && plugin.getPlayerRegistry().isOnline(UUID.fromString(playerUUID)));
+    }
 }
@@ -0,0 +1,170 @@
+package me.harshit.minechat.database;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// where blocking work off the main thread runs: websocket messages, the api futures and (with virtual threads) rest handlers
+// on java 21+ with workers.virtual-threads on, every task gets its own virtual thread so a slow mongo call only parks that task,
+// otherwise it's a fixed pool of platform threads. either way each downstream resource has a semaphore (workers.limits),
+// that is what actually bounds the load on mongo once the thread count stops doing it
+public class WorkExecutor {
+
+    public static final String DATABASE = "database";
+
+    private final JavaPlugin plugin;
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Map<String, Semaphore> limits = new HashMap<>();
+    private final Map<String, Integer> limitSizes = new HashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+
+    public WorkExecutor(JavaPlugin plugin) {
+        this.plugin = plugin;
+
+        ExecutorService virtualExecutor = plugin.getConfig().getBoolean("workers.virtual-threads", true) ? newVirtualExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.virtual = true;
+        } else {
+            int threads = Math.max(1, plugin.getConfig().getInt("workers.threads", 8));
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "Minechat-Worker-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.virtual = false;
+        }
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("workers.limits");
+        if (section != null) {
+            for (String resource : section.getKeys(false)) {
+                addLimit(resource, section.getInt(resource));
+            }
+        }
+        if (!limits.containsKey(DATABASE)) {
+            addLimit(DATABASE, 48);
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is java 21, looked up at runtime so the jar still targets and runs on 17
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void addLimit(String resource, int permits) {
+        int size = Math.max(1, permits);
+        limits.put(resource, new Semaphore(size, true));
+        limitSizes.put(resource, size);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void execute(String resource, Runnable task) {
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                run(resource, () -> {
+                    task.run();
+                    return null;
+                });
+            } catch (Exception e) {
+                plugin.getLogger().warning("Background task failed: " + e.getMessage());
+            }
+        });
+    }
+
+    public <T> CompletableFuture<T> supply(String resource, Supplier<T> task) {
+        submitted.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> run(resource, task), executor);
+    }
+
+    // waits for the resource's permit on the worker itself, which costs nothing but a parked task on a virtual thread
+    private <T> T run(String resource, Supplier<T> task) {
+        Semaphore limit = resource != null ? limits.get(resource) : null;
+        if (limit != null && !limit.tryAcquire()) {
+            throttled.incrementAndGet();
+            try {
+                limit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted waiting for " + resource);
+            }
+        }
+
+        running.incrementAndGet();
+        try {
+            return task.get();
+        } finally {
+            running.decrementAndGet();
+            completed.incrementAndGet();
+            if (limit != null) {
+                limit.release();
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> resources = new HashMap<>();
+        for (Map.Entry<String, Semaphore> entry : limits.entrySet()) {
+            int size = limitSizes.get(entry.getKey());
+            resources.put(entry.getKey(), Map.of(
+                    "limit", size,
+                    "inUse", size - entry.getValue().availablePermits(),
+                    "waiting", entry.getValue().getQueueLength()));
+        }
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("virtualThreads", virtual);
+        metrics.put("submitted", submitted.get());
+        metrics.put("completed", completed.get());
+        metrics.put("running", running.get());
+        metrics.put("throttled", throttled.get());
+        metrics.put("resources", resources);
+        if (executor instanceof ThreadPoolExecutor) {
+            metrics.put("queued", ((ThreadPoolExecutor) executor).getQueue().size());
+        }
+        return metrics;
+    }
+}
@@ -33,13 +33,17 @@ public class ChatListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        // cache the player's rank data when they join
+        // queue the player's rank data when they join, written behind by the rank refresh task
         // this ensures offline players show their actual last known rank
+        if (plugin.getUserDataManager() == null) {
+            return;
+        }
+
         try {
             String cleanRank = rankManager.getCleanRank(player);
             String formattedRank = rankManager.getFormattedRank(player);
 
-            plugin.getUserDataManager().cachePlayerRank(
+            plugin.getUserDataManager().queueRankUpdate(
                 player.getUniqueId(),
                 player.getName(),
                 cleanRank,
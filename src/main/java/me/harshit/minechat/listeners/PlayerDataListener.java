@@ -4,6 +4,7 @@ import me.harshit.minechat.Minechat;
 import me.harshit.minechat.database.UserDataManager;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -27,6 +28,15 @@ public class PlayerDataListener implements Listener {
         String cleanRank = plugin.getRankManager().getCleanRank(event.getPlayer());
         String formattedRank = plugin.getRankManager().getFormattedRank(event.getPlayer());
 
+        // the web side's view of who is online, it never asks bukkit itself
+        plugin.getPlayerRegistry().join(event.getPlayer(), cleanRank, formattedRank);
+
+        // name index is in memory so new players show up in search and tab completion right away
+        userDataManager.getNameIndex().put(event.getPlayer().getUniqueId(), playerName);
+
+        // friends, groups and rank for this player, loaded async and kept in memory until they quit
+        plugin.getSessionManager().open(event.getPlayer().getUniqueId(), playerName, cleanRank, formattedRank);
+
         plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
             userDataManager.cachePlayerData(
                 event.getPlayer().getUniqueId(),
@@ -39,10 +49,17 @@ public class PlayerDataListener implements Listener {
         plugin.getLogger().info("Cached player data for " + playerName);
     }
 
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        plugin.getPlayerRegistry().changeWorld(event.getPlayer());
+    }
+
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         // update last seen timestamp when player leaves
         String playerName = event.getPlayer().getName();
+        plugin.getPlayerRegistry().quit(event.getPlayer().getUniqueId());
+        plugin.getSessionManager().close(event.getPlayer().getUniqueId());
 
         String cleanRank = plugin.getRankManager().getCleanRank(event.getPlayer());
         String formattedRank = plugin.getRankManager().getFormattedRank(event.getPlayer());
@@ -0,0 +1,236 @@
+package me.harshit.minechat.model;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// everything we keep in memory about an online player, filled async on join and patched by the managers
+public class PlayerSession {
+
+    private final UUID playerId;
+    private final String playerName;
+    private volatile boolean loaded;
+
+    // while a load is fetching, every patch is also kept here and replayed over the fetched data,
+    // otherwise a change landing between the queries and replaceAll would be overwritten by the older snapshot
+    private final Object loadLock = new Object();
+    private final List<Consumer<PlayerSession>> patchesDuringLoad = new ArrayList<>();
+    private int loadsInFlight;
+
+    private final Map<UUID, Document> friends = new ConcurrentHashMap<>();
+    private final Map<UUID, String> incomingRequests = new ConcurrentHashMap<>();
+    private final Map<Object, UUID> incomingRequestIds = new ConcurrentHashMap<>();
+    private final Map<UUID, GroupMembership> groups = new ConcurrentHashMap<>();
+
+    private volatile String cleanRank;
+    private volatile String formattedRank;
+
+    public PlayerSession(UUID playerId, String playerName) {
+        this.playerId = playerId;
+        this.playerName = playerName;
+    }
+
+    public UUID getPlayerId() { return playerId; }
+    public String getPlayerName() { return playerName; }
+    public boolean isLoaded() { return loaded; }
+    public String getCleanRank() { return cleanRank; }
+    public String getFormattedRank() { return formattedRank; }
+
+    public void markLoaded() {
+        this.loaded = true;
+    }
+
+    // called before the queries of a (re)load
+    public void beginLoad() {
+        synchronized (loadLock) {
+            loadsInFlight++;
+        }
+    }
+
+    // the load failed, its snapshot is never applied
+    public void abortLoad() {
+        synchronized (loadLock) {
+            finishLoad();
+        }
+    }
+
+    // the fetched data replaces what we hold, then whatever changed since the queries started is applied again on top
+    public void completeLoad(Map<UUID, Document> friends, Collection<Document> incomingRequests, Collection<GroupMembership> groups) {
+        synchronized (loadLock) {
+            replaceAll(friends, incomingRequests, groups);
+            for (Consumer<PlayerSession> patch : patchesDuringLoad) {
+                patch.accept(this);
+            }
+            finishLoad();
+            markLoaded();
+        }
+    }
+
+    private void finishLoad() {
+        if (--loadsInFlight <= 0) {
+            loadsInFlight = 0;
+            patchesDuringLoad.clear();
+        }
+    }
+
+    // the managers' change hooks go through here so a running load can't lose them
+    public void patch(Consumer<PlayerSession> change) {
+        synchronized (loadLock) {
+            change.accept(this);
+            if (loadsInFlight > 0) {
+                patchesDuringLoad.add(change);
+            }
+        }
+    }
+
+    public void setRank(String cleanRank, String formattedRank) {
+        this.cleanRank = cleanRank;
+        this.formattedRank = formattedRank;
+    }
+
+    // friends, keyed by friendUUID, values are copies of the friends collection docs
+
+    public boolean isFriend(UUID friendId) {
+        return friends.containsKey(friendId);
+    }
+
+    public List<Document> getFriends() {
+        List<Document> copies = new ArrayList<>();
+        for (Document friend : friends.values()) {
+            copies.add(new Document(friend));
+        }
+        return copies;
+    }
+
+    public List<UUID> getFriendIds() {
+        return new ArrayList<>(friends.keySet());
+    }
+
+    public List<String> getFriendNames() {
+        List<String> names = new ArrayList<>();
+        for (Document friend : friends.values()) {
+            String name = friend.getString("friendName");
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    public void putFriend(UUID friendId, Document friendship) {
+        friends.put(friendId, new Document(friendship));
+    }
+
+    public void removeFriend(UUID friendId) {
+        friends.remove(friendId);
+    }
+
+    // deletes from other servers only carry the _id of the friends doc
+    public boolean removeFriendByDocumentId(Object documentId) {
+        return friends.values().removeIf(friend -> documentId.equals(friend.get("_id")));
+    }
+
+    // pending requests sent to this player, senderUUID -> senderName
+
+    public List<String> getIncomingRequestNames() {
+        return new ArrayList<>(incomingRequests.values());
+    }
+
+    public void putIncomingRequest(UUID senderId, String senderName, Object documentId) {
+        incomingRequests.put(senderId, senderName == null ? "" : senderName);
+        if (documentId != null) {
+            incomingRequestIds.put(documentId, senderId);
+        }
+    }
+
+    public void removeIncomingRequest(UUID senderId) {
+        incomingRequests.remove(senderId);
+        incomingRequestIds.values().removeIf(senderId::equals);
+    }
+
+    public boolean removeIncomingRequestByDocumentId(Object documentId) {
+        UUID senderId = incomingRequestIds.remove(documentId);
+        return senderId != null && incomingRequests.remove(senderId) != null;
+    }
+
+    // group memberships
+
+    public Collection<GroupMembership> getGroups() {
+        return new ArrayList<>(groups.values());
+    }
+
+    public GroupMembership getGroup(UUID groupId) {
+        return groups.get(groupId);
+    }
+
+    public GroupMembership findGroupByName(String groupName) {
+        for (GroupMembership membership : groups.values()) {
+            if (membership.getGroupName() != null && membership.getGroupName().equalsIgnoreCase(groupName)) {
+                return membership;
+            }
+        }
+        return null;
+    }
+
+    public void putGroup(GroupMembership membership) {
+        groups.put(membership.getGroupId(), membership);
+    }
+
+    public void removeGroup(UUID groupId) {
+        groups.remove(groupId);
+    }
+
+    public boolean removeGroupByDocumentId(Object documentId) {
+        return groups.values().removeIf(membership -> documentId.equals(membership.getDocumentId()));
+    }
+
+    public void replaceAll(Map<UUID, Document> friends, Collection<Document> incomingRequests, Collection<GroupMembership> groups) {
+        this.friends.clear();
+        this.friends.putAll(friends);
+        this.incomingRequests.clear();
+        this.incomingRequestIds.clear();
+        for (Document request : incomingRequests) {
+            putIncomingRequest(UUID.fromString(request.getString("senderUUID")), request.getString("senderName"), request.get("_id"));
+        }
+        this.groups.clear();
+        for (GroupMembership membership : groups) {
+            this.groups.put(membership.getGroupId(), membership);
+        }
+    }
+
+    public static class GroupMembership {
+        private final UUID groupId;
+        private final String groupName;
+        private final String role;
+        private final long mutedUntil;
+        private final Object documentId;
+
+        public GroupMembership(UUID groupId, String groupName, String role, long mutedUntil, Object documentId) {
+            this.groupId = groupId;
+            this.groupName = groupName;
+            this.role = role;
+            this.mutedUntil = mutedUntil;
+            this.documentId = documentId;
+        }
+
+        public UUID getGroupId() { return groupId; }
+        public String getGroupName() { return groupName; }
+        public String getRole() { return role; }
+        public long getMutedUntil() { return mutedUntil; }
+        public Object getDocumentId() { return documentId; }
+
+        public boolean isMuted() {
+            return mutedUntil > System.currentTimeMillis();
+        }
+
+        public boolean isAdminOrOwner() {
+            return "ADMIN".equals(role) || "OWNER".equals(role);
+        }
+    }
+}
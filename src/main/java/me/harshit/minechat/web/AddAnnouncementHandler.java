@@ -27,16 +27,6 @@ public class AddAnnouncementHandler implements HttpHandler {
     
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
-
-        if ("OPTIONS".equals(exchange.getRequestMethod())) {
-            exchange.sendResponseHeaders(200, 0);
-            exchange.close();
-            return;
-        }
-
         if ("POST".equals(exchange.getRequestMethod())) {
             try {
                 String requestBody = readRequestBody(exchange);
@@ -0,0 +1,167 @@
+package me.harshit.minechat.web;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// caps how many requests run at once, with a bounded queue in front split into priority lanes
+// a request that can't start waits without holding a thread (the exchange is async) and gets the next free slot,
+// highest lane first. the lower a lane the less of the queue it may fill, so once things back up analytics are turned
+// away first and auth/sending messages last, and a critical request arriving at a full queue pushes out the newest
+// waiter of a lower lane instead of being refused. whatever is turned away is told so right away (a 503), not left to time out
+final class AdmissionControl {
+
+    enum Lane {
+        CRITICAL(1.0),
+        NORMAL(0.9),
+        BULK(0.5);
+
+        // share of the queue this lane may fill
+        private final double queueShare;
+
+        Lane(double queueShare) {
+            this.queueShare = queueShare;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final Map<Lane, ArrayDeque<Waiter>> queues = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicLong> shed = new EnumMap<>(Lane.class);
+    private final AtomicLong admitted = new AtomicLong();
+
+    private int running;
+    private int queued;
+
+    AdmissionControl(int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxWaitMillis));
+        for (Lane lane : Lane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+            shed.put(lane, new AtomicLong());
+        }
+    }
+
+    // true when a slot was free and the caller carries on right away, otherwise the request is either queued
+    // (start runs once it gets a slot, on the releasing thread) or turned away (reject has run by the time this returns)
+    // a started request gives its slot back through release(). neither callback runs while the lock is held
+    boolean admit(Lane lane, Runnable start, Runnable reject) {
+        Waiter evicted = null;
+        boolean startNow = false;
+        boolean rejected = false;
+
+        synchronized (this) {
+            if (running < maxConcurrent) {
+                running++;
+                startNow = true;
+            } else if (queued < Math.floor(maxQueued * lane.queueShare)) {
+                enqueue(lane, start, reject);
+            } else if ((evicted = evictBelow(lane)) != null) {
+                enqueue(lane, start, reject);
+            } else {
+                rejected = true;
+            }
+        }
+
+        if (evicted != null) {
+            shed.get(evicted.lane).incrementAndGet();
+            evicted.reject.run();
+        }
+        if (rejected) {
+            shed.get(lane).incrementAndGet();
+            reject.run();
+        } else if (startNow) {
+            admitted.incrementAndGet();
+        }
+        return startNow;
+    }
+
+    // the finished request's slot goes straight to the best waiter, waiters past max-queue-wait are turned away on the way
+    void release() {
+        while (true) {
+            Waiter next;
+            boolean stale;
+            synchronized (this) {
+                next = poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+                stale = System.nanoTime() - next.queuedAt > maxWaitNanos;
+            }
+
+            if (stale) {
+                shed.get(next.lane).incrementAndGet();
+                next.reject.run();
+                continue;
+            }
+            admitted.incrementAndGet();
+            next.start.run();
+            return;
+        }
+    }
+
+    private void enqueue(Lane lane, Runnable start, Runnable reject) {
+        queues.get(lane).addLast(new Waiter(lane, start, reject, System.nanoTime()));
+        queued++;
+    }
+
+    private Waiter poll() {
+        for (Lane lane : Lane.values()) {
+            Waiter waiter = queues.get(lane).pollFirst();
+            if (waiter != null) {
+                queued--;
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    // the newest waiter of the lowest lane below this one, it has waited the least
+    private Waiter evictBelow(Lane lane) {
+        Lane[] lanes = Lane.values();
+        for (int i = lanes.length - 1; i > lane.ordinal(); i--) {
+            Waiter waiter = queues.get(lanes[i]).pollLast();
+            if (waiter != null) {
+                queued--;
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    Map<String, Object> getMetrics() {
+        Map<String, Object> shedCounts = new HashMap<>();
+        shed.forEach((lane, count) -> shedCounts.put(lane.name().toLowerCase(), count.get()));
+
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (this) {
+            metrics.put("running", running);
+            metrics.put("queued", queued);
+        }
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("maxQueued", maxQueued);
+        metrics.put("admitted", admitted.get());
+        metrics.put("shed", shedCounts);
+        return metrics;
+    }
+
+    private static final class Waiter {
+        private final Lane lane;
+        private final Runnable start;
+        private final Runnable reject;
+        private final long queuedAt;
+
+        private Waiter(Lane lane, Runnable start, Runnable reject, long queuedAt) {
+            this.lane = lane;
+            this.start = start;
+            this.reject = reject;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
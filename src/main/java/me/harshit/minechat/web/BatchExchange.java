@@ -0,0 +1,157 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// one GET inside an /api/batch request, answered into memory instead of onto the connection
+// it carries the outer request's headers (so whatever the chain checks applies per sub-request too) minus the ones
+// about the outer body and its framing: the body is spliced into the batch response, so it has to come back as plain json
+final class BatchExchange extends RoutedExchange {
+
+    private static final Set<String> DROPPED_HEADERS = Set.of("Accept-encoding", "If-none-match", "Content-length", "Content-type");
+
+    private final HttpExchange parent;
+    private final URI requestURI;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final CompletableFuture<BatchExchange> done = new CompletableFuture<>();
+
+    private OutputStream responseBody;
+    private volatile int responseCode = -1;
+
+    BatchExchange(HttpExchange parent, URI requestURI) {
+        this.parent = parent;
+        this.requestURI = requestURI;
+        for (Map.Entry<String, List<String>> header : parent.getRequestHeaders().entrySet()) {
+            if (!DROPPED_HEADERS.contains(header.getKey())) {
+                requestHeaders.put(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    // completes when the handler closes the exchange, from whichever thread answered
+    CompletableFuture<BatchExchange> getDone() {
+        return done;
+    }
+
+    // the json the handler wrote, null when it answered without a body
+    String getBody() {
+        return body.size() > 0 ? body.toString(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return "GET";
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (!markClosed()) {
+            return;
+        }
+        if (responseCode == -1) {
+            responseCode = 500;
+        }
+        done.complete(this);
+        runOnClose();
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return InputStream.nullInputStream();
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        if (responseBody == null) {
+            responseBody = new FilterOutputStream(body) {
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    BatchExchange.this.close();
+                }
+            };
+        }
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode != -1) {
+            throw new IOException("headers already sent");
+        }
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return parent.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return parent.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return parent.getProtocol();
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        if (out != null) {
+            responseBody = out;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return parent.getPrincipal();
+    }
+}
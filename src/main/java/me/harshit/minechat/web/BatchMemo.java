@@ -0,0 +1,38 @@
+package me.harshit.minechat.web;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// data shared by the sub-requests of one /api/batch call, each key is loaded by the first sub-request that asks
+// and the others running at the same time wait for that load instead of starting their own
+// lives as long as the batch, so nothing here is ever stale for longer than one request
+final class BatchMemo {
+
+    static final String ATTRIBUTE = "minechat.batch";
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> values = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, Supplier<T> loader) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = values.putIfAbsent(key, loading);
+        if (existing == null) {
+            try {
+                T value = loader.get();
+                loading.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return (T) existing.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package me.harshit.minechat.web;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// chat from the web (pms, group messages, kick notices) on its way to players in game
+// any thread may add, one repeating main thread task drains it every tick instead of a runTask per message.
+// a tick spends at most delivery.tick-budget-ms sending, whatever is left waits for the next tick in arrival order.
+// everything one player got within a tick goes out as a single multi-line message
+public class DeliveryQueue {
+
+    // how often the drain looks at the clock while it's still only moving entries off the queue
+    private static final int CLOCK_EVERY = 256;
+
+    private final long budgetNanos;
+    private final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // main thread only: taken off the queue but not sent yet, players in the order their first message arrived
+    private final Map<UUID, List<Component>> pending = new LinkedHashMap<>();
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong sends = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong carriedTicks = new AtomicLong();
+    private volatile int carried;
+
+    public DeliveryQueue(JavaPlugin plugin) {
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(
+                Math.max(100, Math.round(plugin.getConfig().getDouble("delivery.tick-budget-ms", 2.0) * 1000)));
+    }
+
+    public void send(UUID playerId, Component message) {
+        queue.add(new Delivery(playerId, message));
+        queued.incrementAndGet();
+    }
+
+    public void send(Collection<UUID> playerIds, Component message) {
+        for (UUID playerId : playerIds) {
+            send(playerId, message);
+        }
+    }
+
+    // legacy § colour codes, read the same way Player.sendMessage(String) reads them
+    public void send(UUID playerId, String message) {
+        send(playerId, LegacyComponentSerializer.legacySection().deserialize(message));
+    }
+
+    public void send(Collection<UUID> playerIds, String message) {
+        send(playerIds, LegacyComponentSerializer.legacySection().deserialize(message));
+    }
+
+    // the per tick task
+    public void drain() {
+        drain(System.nanoTime() + budgetNanos);
+    }
+
+    // on disable, nothing may be left behind
+    public void flush() {
+        drain(Long.MAX_VALUE);
+    }
+
+    private void drain(long deadline) {
+        Delivery delivery;
+        int taken = 0;
+        while ((delivery = queue.poll()) != null) {
+            queued.decrementAndGet();
+            pending.computeIfAbsent(delivery.playerId, id -> new ArrayList<>(2)).add(delivery.message);
+            if (++taken % CLOCK_EVERY == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        // at least one player per tick, so a slow tick can't stall delivery altogether
+        Iterator<Map.Entry<UUID, List<Component>>> players = pending.entrySet().iterator();
+        boolean first = true;
+        while (players.hasNext() && (first || System.nanoTime() < deadline)) {
+            first = false;
+            Map.Entry<UUID, List<Component>> entry = players.next();
+            players.remove();
+
+            List<Component> messages = entry.getValue();
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player == null) {
+                dropped.addAndGet(messages.size());
+                continue;
+            }
+            player.sendMessage(messages.size() == 1 ? messages.get(0) : Component.join(JoinConfiguration.newlines(), messages));
+            delivered.addAndGet(messages.size());
+            sends.incrementAndGet();
+        }
+
+        carried = pending.size();
+        if (carried > 0 || !queue.isEmpty()) {
+            carriedTicks.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queued", queued.get());
+        metrics.put("carriedPlayers", carried);
+        metrics.put("carriedTicks", carriedTicks.get());
+        metrics.put("delivered", delivered.get());
+        metrics.put("sends", sends.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("tickBudgetMicros", TimeUnit.NANOSECONDS.toMicros(budgetNanos));
+        return metrics;
+    }
+
+    private static final class Delivery {
+        private final UUID playerId;
+        private final Component message;
+
+        private Delivery(UUID playerId, Component message) {
+            this.playerId = playerId;
+            this.message = message;
+        }
+    }
+}
@@ -2,43 +2,113 @@ package me.harshit.minechat.web;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import com.sun.net.httpserver.HttpServer;
 import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
+import me.harshit.minechat.database.BloomFilter;
 import me.harshit.minechat.database.DatabaseManager;
 import me.harshit.minechat.database.FriendManager;
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.database.GroupStats;
+import me.harshit.minechat.database.OnlinePlayerRegistry.OnlinePlayer;
+import me.harshit.minechat.database.PasswordVerifier;
+import me.harshit.minechat.database.PlayerNameIndex;
 import me.harshit.minechat.database.UserDataManager;
+import me.harshit.minechat.database.WorkExecutor;
+import me.harshit.minechat.model.PlayerSession;
 import me.harshit.minechat.web.KickMemberHandler;
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import org.bson.Document;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
-
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.ArrayList;
 import com.google.gson.JsonElement;
 import java.util.UUID;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class EmbeddedWebServer {
 
+    private static final String SESSION_ATTRIBUTE = "minechat.session";
+    // reachable without a token: logging in and the health checks
+    private static final Set<String> OPEN_ROUTES = Set.of("/api/auth", "/api/health", "/api/health/detailed", "/api/test");
+    // the params and body fields naming who a request acts as
+    private static final List<String> IDENTITY_FIELDS = List.of("playerUUID", "senderUUID", "senderId", "adminUUID", "ownerUUID", "creatorUUID");
+    // a playerUUID here names whose profile to show, not who is asking
+    private static final Set<String> PUBLIC_PLAYER_ROUTES = Set.of("/api/users");
+
     private final Minechat plugin;
     private final DatabaseManager databaseManager;
     private final UserDataManager userDataManager;
     private final FriendManager friendManager;
     private final GroupManager groupManager;
     private final Gson gson;
-    private HttpServer server;
+    private Server server;
+    private QueuedThreadPool threadPool;
+    private MinechatWebSocketServer webSocketServer;
+    private final Router router = new Router();
+    private final List<Middleware> middleware = new ArrayList<>();
+    private final Map<String, RouteStats> routeStats = new ConcurrentHashMap<>();
+    private final boolean corsEnabled;
+    private final SessionTokens sessionTokens;
+    private final boolean requireToken;
+    private final RateLimiter addressLimiter;
+    private final RateLimiter accountLimiter;
+    private final AdmissionControl admission;
+    private final Map<String, AdmissionControl.Lane> routeLanes = new HashMap<>();
+    private final boolean compressionEnabled;
+    private final int compressionThreshold;
+    private final int maxBatchRequests;
     private final int port;
+    private final String host;
+    private final int minThreads;
+    private final int maxThreads;
+    private final int threadIdleMillis;
+    private final int selectors;
+    private final long keepAliveMillis;
+    private final long asyncTimeoutMillis;
+    private final boolean h2c;
+    private final ResponseCache responseCache;
+    private final Map<String, Long> responseTtls = new HashMap<>();
 
     public EmbeddedWebServer(Minechat plugin, DatabaseManager databaseManager, UserDataManager userDataManager,
                            FriendManager friendManager, GroupManager groupManager) {
@@ -49,118 +119,617 @@ public class EmbeddedWebServer {
         this.groupManager = groupManager;
         this.gson = new Gson();
         this.port = plugin.getConfig().getInt("web.port", 8080);
+        this.host = plugin.getConfig().getString("web.server.host", "");
+        this.maxThreads = Math.max(4, plugin.getConfig().getInt("web.server.max-threads", 64));
+        this.minThreads = Math.min(maxThreads, Math.max(2, plugin.getConfig().getInt("web.server.min-threads", 8)));
+        this.threadIdleMillis = (int) TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getInt("web.server.thread-idle-seconds", 60)));
+        this.selectors = plugin.getConfig().getInt("web.server.selectors", -1);
+        this.keepAliveMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getLong("web.server.keep-alive-seconds", 30)));
+        this.asyncTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, plugin.getConfig().getLong("web.server.request-timeout-seconds", 30)));
+        this.h2c = plugin.getConfig().getBoolean("web.server.h2c", false);
+        this.corsEnabled = plugin.getConfig().getBoolean("web.enable-cors", true);
+        this.sessionTokens = plugin.getSessionTokens();
+        this.requireToken = plugin.getConfig().getBoolean("web.auth.require-token", true);
+        this.compressionEnabled = plugin.getConfig().getBoolean("web.compression.enable", true);
+        this.compressionThreshold = Math.max(0, plugin.getConfig().getInt("web.compression.min-size-bytes", 1024));
+        this.maxBatchRequests = Math.max(1, plugin.getConfig().getInt("web.batch.max-requests", 10));
+
+        this.addressLimiter = new RateLimiter(plugin.getConfig().getDouble("web.rate-limit.per-ip.requests-per-second", 20),
+                plugin.getConfig().getDouble("web.rate-limit.per-ip.burst", 60));
+        this.accountLimiter = new RateLimiter(plugin.getConfig().getDouble("web.rate-limit.per-account.requests-per-second", 10),
+                plugin.getConfig().getDouble("web.rate-limit.per-account.burst", 40));
+        this.admission = new AdmissionControl(plugin.getConfig().getInt("web.admission.max-concurrent", 48),
+                plugin.getConfig().getInt("web.admission.max-queued", 256),
+                plugin.getConfig().getLong("web.admission.max-queue-wait-ms", 2000));
+        laneRoutes("web.admission.critical-routes", List.of("/api/auth", "/api/logout", "/api/send-message", "/api/send-group-message", "/api/health"))
+                .forEach(pattern -> routeLanes.put(pattern, AdmissionControl.Lane.CRITICAL));
+        laneRoutes("web.admission.bulk-routes", List.of("/api/group-stats", "/api/groups/{groupId}/stats", "/api/players", "/api/health/detailed"))
+                .forEach(pattern -> routeLanes.put(pattern, AdmissionControl.Lane.BULK));
+
+        // runs in this order in front of every route
+        middleware.add(this::mapErrors);
+        middleware.add(this::recordMetrics);
+        middleware.add(this::applyCors);
+        middleware.add(this::limitByAddress);
+        middleware.add(this::authenticate);
+        middleware.add(this::admit);
+
+        this.responseCache = new ResponseCache(plugin.getConfig().getInt("web.response-cache.max-entries", 1000));
+        boolean cacheResponses = plugin.getConfig().getBoolean("web.response-cache.enable", true);
+        Map<String, Integer> defaultTtls = Map.of(
+                "public-groups", 30, "trending-groups", 60, "recommended-groups", 120, "ranks", 30, "group-details", 15);
+        defaultTtls.forEach((endpoint, seconds) -> responseTtls.put(endpoint, cacheResponses
+                ? plugin.getConfig().getLong("web.response-cache.ttl-seconds." + endpoint, seconds) * 1000L : 0L));
+
+        // group writes drop the listings and that group's details, player data writes drop the rank pages
+        groupManager.addGroupListener((groupId, group) -> {
+            responseCache.invalidate("groups");
+            responseCache.invalidate("group:" + groupId);
+        });
+        userDataManager.addPlayerDataListener(playerUUID -> responseCache.invalidate("ranks"));
+    }
+
+    // mounts /ws on this server's port, must be called before start
+    public void attachWebSocket(MinechatWebSocketServer webSocketServer) {
+        this.webSocketServer = webSocketServer;
     }
 
     public void start() {
         try {
-            server = HttpServer.create(new InetSocketAddress(port), 0);
-            server.setExecutor(Executors.newFixedThreadPool(4));
-
-            server.createContext("/", new CORSHandler());
-
-            server.createContext("/api/auth", new AuthHandler());
-
-            server.createContext("/api/friends", new FriendsHandler());
-            server.createContext("/api/send-friend-request", new SendFriendRequestHandler());
-            server.createContext("/api/accept-friend-request", new AcceptFriendRequestHandler());
-            server.createContext("/api/reject-friend-request", new RejectFriendRequestHandler());
-            server.createContext("/api/remove-friend", new RemoveFriendHandler());
-            server.createContext("/api/cancel-friend-request", new CancelFriendRequestHandler());
-            server.createContext("/api/friend-requests", new FriendRequestsHandler());
-            server.createContext("/api/friend-requests/incoming", new IncomingFriendRequestsHandler());
-            server.createContext("/api/friend-requests/outgoing", new OutgoingFriendRequestsHandler());
-            server.createContext("/api/friend-stats", new FriendStatsHandler());
+            threadPool = new QueuedThreadPool(maxThreads, minThreads, threadIdleMillis);
+            threadPool.setName("Minechat-Web");
+            server = new Server(threadPool);
+
+            HttpConfiguration httpConfig = new HttpConfiguration();
+            httpConfig.setSendServerVersion(false);
+            HttpConnectionFactory http1 = new HttpConnectionFactory(httpConfig);
+            // nio selectors multiplex the idle keep-alive connections, a pool thread is only taken while a request runs
+            ServerConnector connector = h2c
+                    ? new ServerConnector(server, -1, selectors, http1, new HTTP2CServerConnectionFactory(httpConfig))
+                    : new ServerConnector(server, -1, selectors, http1);
+            connector.setPort(port);
+            if (!host.isEmpty()) {
+                connector.setHost(host);
+            }
+            connector.setIdleTimeout(keepAliveMillis);
+            connector.setReuseAddress(true);
+            server.addConnector(connector);
+
+            ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+            context.setContextPath("/");
+            ServletHolder rest = new ServletHolder("rest", new RestServlet());
+            rest.setAsyncSupported(true);
+            context.addServlet(rest, "/*");
+            if (webSocketServer != null) {
+                webSocketServer.attach(server, context);
+            }
+            server.setHandler(context);
+
+            router.add("POST", "/api/auth", new AuthHandler());
+            router.add("POST", "/api/logout", new LogoutHandler());
+            router.add("POST", "/api/batch", new BatchHandler());
+
+            router.add("GET", "/api/friends", new FriendsHandler());
+            router.add("POST", "/api/send-friend-request", new SendFriendRequestHandler());
+            router.add("POST", "/api/accept-friend-request", new AcceptFriendRequestHandler());
+            router.add("POST", "/api/reject-friend-request", new RejectFriendRequestHandler());
+            router.add("POST", "/api/remove-friend", new RemoveFriendHandler());
+            router.add("POST", "/api/cancel-friend-request", new CancelFriendRequestHandler());
+            router.add("GET", "/api/friend-requests", new FriendRequestsHandler());
+            router.add("GET", "/api/friend-requests/incoming", new IncomingFriendRequestsHandler());
+            router.add("GET", "/api/friend-requests/outgoing", new OutgoingFriendRequestsHandler());
+            router.add("GET", "/api/friend-stats", new FriendStatsHandler());
       
-            server.createContext("/api/groups", new GroupsHandler());
-            server.createContext("/api/create-group", new CreateGroupHandler());
-            server.createContext("/api/delete-group", new DeleteGroupHandler());
-            server.createContext("/api/join-group", new JoinGroupHandler());
-            server.createContext("/api/join-group-by-code", new JoinGroupByCodeHandler(plugin));
-            server.createContext("/api/leave-group", new LeaveGroupHandler());
-            server.createContext("/api/update-group", new UpdateGroupHandler());
-            server.createContext("/api/group-stats", new GroupStatsHandler());
-            server.createContext("/api/group-members", new GroupMembersHandler());
-            server.createContext("/api/group-invites", new GroupInvitesHandler(plugin, groupManager));
-            server.createContext("/api/accept-group-invite", new AcceptGroupInviteHandler(plugin));
-            server.createContext("/api/reject-group-invite", new RejectGroupInviteHandler(plugin));
-            server.createContext("/api/add-announcement", new AddAnnouncementHandler(plugin));
-            server.createContext("/api/group-details", new GroupDetailsHandler());
+            router.add("GET", "/api/groups", new GroupsHandler());
+            router.add("POST", "/api/create-group", new CreateGroupHandler());
+            router.add("POST", "/api/delete-group", new DeleteGroupHandler());
+            router.add("POST", "/api/join-group", new JoinGroupHandler());
+            router.add("POST", "/api/join-group-by-code", new JoinGroupByCodeHandler(plugin));
+            router.add("POST", "/api/leave-group", new LeaveGroupHandler());
+            router.add("POST", "/api/update-group", new UpdateGroupHandler());
+            router.add("GET", "/api/group-stats", new GroupStatsHandler());
+            router.add("GET", "/api/group-members", new GroupMembersHandler());
+            router.add("GET", "/api/group-invites", new GroupInvitesHandler(plugin, groupManager));
+            router.add("POST", "/api/accept-group-invite", new AcceptGroupInviteHandler(plugin));
+            router.add("POST", "/api/reject-group-invite", new RejectGroupInviteHandler(plugin));
+            router.add("POST", "/api/add-announcement", new AddAnnouncementHandler(plugin));
+            router.add("GET", "/api/group-details", new GroupDetailsHandler());
+            // resource style paths for the same handlers, the {param} lands in the same parameter map as the query string
+            router.add("GET", "/api/groups/{groupId}", new GroupDetailsHandler());
+            router.add("GET", "/api/groups/{groupId}/members", new GroupMembersHandler());
+            router.add("GET", "/api/groups/{groupId}/messages", new GroupMessagesHandler());
+            router.add("GET", "/api/groups/{groupId}/stats", new GroupStatsHandler());
+            router.add("GET", "/api/players/{playerUUID}/friends", new FriendsHandler());
             
             KickMemberHandler moderationHandler = new KickMemberHandler(plugin);
-            server.createContext("/api/kick-member", moderationHandler);
-            server.createContext("/api/ban-member", moderationHandler);
-            server.createContext("/api/mute-member", moderationHandler);
-            server.createContext("/api/unmute-member", moderationHandler);
-            server.createContext("/api/promote-member", moderationHandler);
-            server.createContext("/api/demote-member", moderationHandler);
-            server.createContext("/api/update-group-motd", moderationHandler);
-            server.createContext("/api/update-announcement", moderationHandler);
-            server.createContext("/api/remove-announcement", moderationHandler);
-
-            server.createContext("/api/public-groups", new GroupsHandler());
-            server.createContext("/api/trending-groups", new GroupsHandler());
-            server.createContext("/api/recommended-groups", new GroupsHandler());
-
-            server.createContext("/api/messages", new MessagesHandler());
-            server.createContext("/api/private-messages", new PrivateMessagesHandler());
-            server.createContext("/api/send-message", new SendMessageHandler());
-            server.createContext("/api/group-messages", new GroupMessagesHandler());
-            server.createContext("/api/send-group-message", new SendGroupMessageHandler());
-
-            server.createContext("/api/users", new UsersHandler());
-            server.createContext("/api/players", new PlayersHandler());
-            server.createContext("/api/search-players", new SearchPlayersHandler());
-            server.createContext("/api/ranks", new RanksHandler());
-
-            server.createContext("/api/user-settings", new UserSettingsHandler());
-            server.createContext("/api/enable-web-access", new EnableWebAccessHandler());
-            server.createContext("/api/disable-web-access", new DisableWebAccessHandler());
-            server.createContext("/api/update-web-password", new UpdateWebPasswordHandler());
-
-            server.createContext("/api/health", new HealthHandler());
-            server.createContext("/api/health/detailed", new HealthHandler());
-            server.createContext("/api/test", new TestHandler());
+            router.add("POST", "/api/kick-member", moderationHandler);
+            router.add("POST", "/api/ban-member", moderationHandler);
+            router.add("POST", "/api/mute-member", moderationHandler);
+            router.add("POST", "/api/unmute-member", moderationHandler);
+            router.add("POST", "/api/promote-member", moderationHandler);
+            router.add("POST", "/api/demote-member", moderationHandler);
+            router.add("POST", "/api/update-group-motd", moderationHandler);
+            router.add("POST", "/api/update-announcement", moderationHandler);
+            router.add("POST", "/api/remove-announcement", moderationHandler);
+
+            router.add("GET", "/api/public-groups", new GroupsHandler());
+            router.add("GET", "/api/trending-groups", new GroupsHandler());
+            router.add("GET", "/api/recommended-groups", new GroupsHandler());
+
+            router.add("GET", "/api/messages", new MessagesHandler());
+            router.add("GET", "/api/private-messages", new PrivateMessagesHandler());
+            router.add("POST", "/api/send-message", new SendMessageHandler());
+            router.add("GET", "/api/group-messages", new GroupMessagesHandler());
+            router.add("POST", "/api/send-group-message", new SendGroupMessageHandler());
+
+            router.add("GET", "/api/users", new UsersHandler());
+            router.add("GET", "/api/players", new PlayersHandler());
+            router.add("GET", "/api/search-players", new SearchPlayersHandler());
+            router.add("GET", "/api/ranks", new RanksHandler());
+
+            router.add("GET", "/api/user-settings", new UserSettingsHandler());
+            router.add("POST", "/api/enable-web-access", new EnableWebAccessHandler());
+            router.add("POST", "/api/disable-web-access", new DisableWebAccessHandler());
+            router.add("POST", "/api/update-web-password", new UpdateWebPasswordHandler());
+
+            router.add("GET", "/api/health", new HealthHandler());
+            router.add("GET", "/api/health/detailed", new HealthHandler());
+            router.add("GET", "/api/test", new TestHandler());
 
             server.start();
-            plugin.getLogger().info("Web server started successfully on port " + port);
+            plugin.getLogger().info("Web server started successfully on port " + port + (h2c ? " (http/1.1 + h2c)" : ""));
             plugin.getLogger().info("Access web API at: http://localhost:" + port);
+            if (webSocketServer != null) {
+                plugin.getLogger().info("WebSocket endpoint: ws://localhost:" + port + "/ws");
+            }
 
         } catch (IOException e) {
             plugin.getLogger().severe("Failed to start web server on port " + port + ": " + e.getMessage());
             plugin.getLogger().severe("Make sure port " + port + " is not in use by another application");
+            stop();
         } catch (Exception e) {
             plugin.getLogger().severe("Unexpected error starting web server: " + e.getMessage());
             e.printStackTrace();
+            stop();
         }
     }
 
     public void stop() {
         if (server != null) {
-            server.stop(0);
-            plugin.getLogger().info("Web server stopped");
+            try {
+                server.stop();
+                plugin.getLogger().info("Web server stopped");
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error stopping web server: " + e.getMessage());
+            }
+            server = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return server != null && server.isRunning();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        QueuedThreadPool pool = threadPool;
+        if (pool != null) {
+            metrics.put("threads", pool.getThreads());
+            metrics.put("idleThreads", pool.getIdleThreads());
+            metrics.put("busyThreads", pool.getBusyThreads());
+            metrics.put("queuedRequests", pool.getQueueSize());
+            metrics.put("maxThreads", pool.getMaxThreads());
         }
+        metrics.put("h2c", h2c);
+        metrics.put("websocket", webSocketServer != null);
+        return metrics;
     }
 
-    private class CORSHandler implements HttpHandler {
+    // every request is made async, matched once against the router and run through the middleware chain
+    // handlers answer on the dispatching thread or later from their own executor, either way closing the exchange completes it
+    private class RestServlet extends HttpServlet {
         @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-            exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            AsyncContext async = request.startAsync();
+            async.setTimeout(asyncTimeoutMillis);
+            JettyExchange exchange = new JettyExchange(request, response, async);
+
+            async.addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) throws IOException {
+                    // a handler that already started answering is cut short instead
+                    if (!exchange.timeOut(gson.toJson(Map.of("error", "Request timed out")))) {
+                        exchange.close();
+                    }
+                }
 
-            if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                exchange.sendResponseHeaders(200, 0);
-                exchange.close();
+                @Override
+                public void onError(AsyncEvent event) {
+                    exchange.close();
+                }
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+
+            Router.Match match;
+            try {
+                match = router.match(request.getRequestURI());
+                exchange.setParams(RequestParams.parse(request.getQueryString(), match != null ? match.getParams() : Map.of()));
+            } catch (IllegalArgumentException e) {
+                // a bad % escape in the path or query, there is nothing to route so it's answered here
+                try {
+                    applyCors(exchange, null, () -> sendErrorResponse(exchange, "Invalid request", 400));
+                } catch (IOException ignored) {
+                    exchange.close();
+                }
                 return;
             }
+            Router.Route route = match != null ? match.getRoute() : null;
+
+            // with virtual threads the handler leaves the jetty pool, its blocking mongo calls then only park that request
+            WorkExecutor workers = plugin.getWorkers();
+            if (workers != null && workers.isVirtual()) {
+                try {
+                    workers.execute(WorkExecutor.DATABASE, () -> dispatch(exchange, route, 0));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // shutting down, answer from here
+                }
+            }
+            dispatch(exchange, route, 0);
         }
     }
 
-    private class AuthHandler implements HttpHandler {
+    private void dispatch(RoutedExchange exchange, Router.Route route, int step) {
+        try {
+            proceed(exchange, route, step);
+        } catch (IOException e) {
+            // the error middleware maps everything a handler throws, what's left is the client going away
+            exchange.close();
+        }
+    }
+
+    private void proceed(RoutedExchange exchange, Router.Route route, int step) throws IOException {
+        if (step < middleware.size()) {
+            middleware.get(step).handle(exchange, route, () -> proceed(exchange, route, step + 1));
+            return;
+        }
+
+        if (route == null) {
+            sendErrorResponse(exchange, "Not found", 404);
+            return;
+        }
+        HttpHandler handler = route.getHandler(exchange.getRequestMethod());
+        if (handler == null) {
+            exchange.getResponseHeaders().set("Allow", route.getAllowedMethods());
+            sendErrorResponse(exchange, "Method not allowed", 405);
+            return;
+        }
+        handler.handle(exchange);
+    }
+
+    // outermost: anything a handler throws becomes a json error instead of a dropped connection
+    // bad uuids and malformed bodies are the caller's fault (400), the rest is ours (500)
+    private void mapErrors(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        try {
+            next.proceed();
+        } catch (Exception e) {
+            answerFailure(exchange, e);
+        }
+    }
+
+    private void answerFailure(RoutedExchange exchange, Exception e) throws IOException {
+        if (exchange.isClosed()) {
+            return;
+        }
+        boolean badRequest = e instanceof IllegalArgumentException || e instanceof JsonParseException;
+        if (!badRequest) {
+            plugin.getLogger().warning("Failed to handle " + exchange.getRequestURI().getPath() + ": " + e.getMessage());
+        }
+        if (exchange.getResponseCode() == -1) {
+            sendErrorResponse(exchange, badRequest ? "Invalid request" : "Internal server error", badRequest ? 400 : 500);
+        } else {
+            exchange.close();
+        }
+    }
+
+    // per route request counts, error counts and latency, taken when the response completes so async answers count too
+    private void recordMetrics(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        long startedAt = System.nanoTime();
+        RouteStats stats = routeStats.computeIfAbsent(route != null ? route.getPattern() : "(unmatched)", k -> new RouteStats());
+        exchange.onClose(() -> stats.record(exchange.getResponseCode(), System.nanoTime() - startedAt));
+        next.proceed();
+    }
+
+    // cors headers on every answer, preflights are answered here and never reach a handler
+    private void applyCors(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        if (corsEnabled) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Methods", route != null ? route.getAllowedMethods() : "GET, POST, OPTIONS");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        }
+
+        if ("OPTIONS".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(route != null ? 204 : 404, -1);
+            exchange.close();
+            return;
+        }
+        next.proceed();
+    }
+
+    // every address gets its own token bucket, checked before authentication so a flood of bad tokens is limited too
+    private void limitByAddress(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        long waitNanos = addressLimiter.acquire(clientAddress(exchange));
+        if (waitNanos > 0) {
+            tooManyRequests(exchange, waitNanos);
+            return;
+        }
+        next.proceed();
+    }
+
+    private static String clientAddress(HttpExchange exchange) {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        return remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : "unknown";
+    }
+
+    // the account's token bucket, then a slot in the admission queue. a request that has to wait gives its thread back
+    // and is resumed by whichever request frees the slot. batch sub-requests only take from the bucket,
+    // the batch they belong to already holds a slot (and waiting on a slot of their own could deadlock it)
+    private void admit(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        if (route == null) {
+            next.proceed();
+            return;
+        }
+
+        SessionTokens.Session session = session(exchange);
+        long waitNanos = session != null ? accountLimiter.acquire(session.getPlayerUUID().toString()) : 0;
+        if (waitNanos > 0) {
+            tooManyRequests(exchange, waitNanos);
+            return;
+        }
+        if (exchange instanceof BatchExchange) {
+            next.proceed();
+            return;
+        }
+
+        // released exactly once, also when the exchange was answered (timed out) while it sat in the queue
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                admission.release();
+            }
+        };
+
+        boolean admitted = admission.admit(routeLanes.getOrDefault(route.getPattern(), AdmissionControl.Lane.NORMAL),
+                () -> resume(() -> {
+                    exchange.onClose(release);
+                    if (exchange.isClosed()) {
+                        release.run();
+                        return;
+                    }
+                    try {
+                        next.proceed();
+                    } catch (Exception e) {
+                        try {
+                            answerFailure(exchange, e);
+                        } catch (IOException ignored) {
+                            exchange.close();
+                        }
+                    }
+                }),
+                () -> {
+                    try {
+                        exchange.getResponseHeaders().set("Retry-After", "1");
+                        sendErrorResponse(exchange, "Server is busy, try again shortly", 503);
+                    } catch (IOException e) {
+                        exchange.close();
+                    }
+                });
+        if (admitted) {
+            exchange.onClose(release);
+            next.proceed();
+        }
+    }
+
+    // a queued request picks up on the same kind of thread it would have started on
+    private void resume(Runnable task) {
+        WorkExecutor workers = plugin.getWorkers();
+        try {
+            if (workers != null && workers.isVirtual()) {
+                workers.execute(WorkExecutor.DATABASE, task);
+            } else {
+                threadPool.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void tooManyRequests(HttpExchange exchange, long waitNanos) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+        sendErrorResponse(exchange, "Too many requests", 429);
+    }
+
+    private List<String> laneRoutes(String path, List<String> defaults) {
+        return plugin.getConfig().isList(path) ? plugin.getConfig().getStringList(path) : defaults;
+    }
+
+    // the bearer token is checked in memory (signature, expiry, revocation) and its session pinned on the exchange,
+    // then every identity the request claims to act as (playerUUID, senderUUID, adminUUID...) has to be the token's player
+    // with web.auth.require-token off a request without a token still goes through, a bad token never does
+    private void authenticate(RoutedExchange exchange, Router.Route route, Middleware.Chain next) throws IOException {
+        if (route == null || OPEN_ROUTES.contains(route.getPattern())) {
+            next.proceed();
+            return;
+        }
+
+        String token = bearerToken(exchange);
+        SessionTokens.Session session = sessionTokens.verify(token);
+        if (session == null) {
+            if (token != null || requireToken) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                sendErrorResponse(exchange, token != null ? "Invalid or expired session" : "Authentication required", 401);
+                return;
+            }
+            next.proceed();
+            return;
+        }
+
+        exchange.setAttribute(SESSION_ATTRIBUTE, session);
+        String claimed = claimedIdentity(exchange, route);
+        if (claimed != null && !claimed.equalsIgnoreCase(session.getPlayerUUID().toString())) {
+            sendErrorResponse(exchange, "Session does not belong to this player", 403);
+            return;
+        }
+        next.proceed();
+    }
+
+    private String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = header.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    // the first identity param or body field that isn't the same player on every claim, or the player they all agree on
+    // a json body is read here and handed back to the handler through setStreams, so it still sees the whole body
+    private String claimedIdentity(RoutedExchange exchange, Router.Route route) throws IOException {
+        String claimed = null;
+        if (!PUBLIC_PLAYER_ROUTES.contains(route.getPattern())) {
+            for (String field : IDENTITY_FIELDS) {
+                String value = param(exchange, field);
+                if (value != null) {
+                    if (claimed != null && !claimed.equalsIgnoreCase(value)) {
+                        return value;
+                    }
+                    claimed = value;
+                }
+            }
+        }
+
+        if ("POST".equals(exchange.getRequestMethod())) {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.setStreams(new ByteArrayInputStream(body), null);
+            JsonObject json;
+            try {
+                JsonElement parsed = JsonParser.parseString(new String(body, StandardCharsets.UTF_8));
+                json = parsed.isJsonObject() ? parsed.getAsJsonObject() : null;
+            } catch (JsonParseException e) {
+                json = null;
+            }
+            if (json != null) {
+                for (String field : IDENTITY_FIELDS) {
+                    JsonElement value = json.get(field);
+                    if (value != null && value.isJsonPrimitive()) {
+                        if (claimed != null && !claimed.equalsIgnoreCase(value.getAsString())) {
+                            return value.getAsString();
+                        }
+                        claimed = value.getAsString();
+                    }
+                }
+            }
+        }
+        return claimed;
+    }
+
+    // the session a request was authenticated with, null when tokens aren't required and none was sent
+    static SessionTokens.Session session(HttpExchange exchange) {
+        Object session = exchange.getAttribute(SESSION_ATTRIBUTE);
+        return session instanceof SessionTokens.Session ? (SessionTokens.Session) session : null;
+    }
+
+    // a group's messages are only for its members, requests without a token (require-token off) aren't checked
+    private boolean sessionInGroup(HttpExchange exchange, UUID groupId) {
+        SessionTokens.Session session = session(exchange);
+        return session == null || groupManager.getGroupMember(groupId, session.getPlayerUUID()) != null;
+    }
+
+    // who a request acts as: with a token that's the session's player, the body's copy only counts without one
+    static String actingName(HttpExchange exchange, JsonObject json, String field) {
+        SessionTokens.Session session = session(exchange);
+        if (session != null) {
+            return session.getPlayerName();
+        }
+        return json.has(field) && !json.get(field).isJsonNull() ? json.get(field).getAsString() : null;
+    }
+
+    static String actingUUID(HttpExchange exchange, JsonObject json, String field) {
+        SessionTokens.Session session = session(exchange);
+        if (session != null) {
+            return session.getPlayerUUID().toString();
+        }
+        return json.has(field) && !json.get(field).isJsonNull() ? json.get(field).getAsString() : null;
+    }
+
+    private Map<String, Object> getAdmissionMetrics() {
+        Map<String, Object> metrics = admission.getMetrics();
+        metrics.put("rateLimitedByAddress", addressLimiter.getLimited());
+        metrics.put("rateLimitedByAccount", accountLimiter.getLimited());
+        metrics.put("trackedAddresses", addressLimiter.size());
+        metrics.put("trackedAccounts", accountLimiter.size());
+        return metrics;
+    }
+
+    private Map<String, Object> getRouteMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        routeStats.forEach((pattern, stats) -> metrics.put(pattern, stats.toMap()));
+        return metrics;
+    }
+
+    private static final class RouteStats {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(int status, long nanos) {
+            requests.incrementAndGet();
+            if (status >= 500 || status == -1) {
+                serverErrors.incrementAndGet();
+            } else if (status >= 400) {
+                clientErrors.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Map<String, Object> toMap() {
+            long count = requests.get();
+            return Map.of(
+                    "requests", count,
+                    "clientErrors", clientErrors.get(),
+                    "serverErrors", serverErrors.get(),
+                    "avgMillis", count == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / count,
+                    "maxMillis", maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    // drops the token it was sent with, the player's other sessions stay signed in
+    private class LogoutHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
+            SessionTokens.Session session = session(exchange);
+            if (session == null) {
+                sendErrorResponse(exchange, "Authentication required", 401);
+                return;
+            }
+            sessionTokens.revoke(session);
+            sendJsonResponse(exchange, Map.of("success", true), 200);
+        }
+    }
 
+    private class AuthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -169,46 +738,15 @@ public class EmbeddedWebServer {
                     String username = json.get("username").getAsString();
                     String password = json.get("password").getAsString();
 
-                    // verify creds
-                    boolean isValid = userDataManager.verifyWebPassword(username, password);
-
-                    Map<String, Object> response = new HashMap<>();
-                    if (isValid) {
-                        Player player = Bukkit.getPlayerExact(username);
-                        UUID playerUUID = player != null ? player.getUniqueId() : getPlayerUUID(username);
-
-                        // get rank info
-                        String rank = "";
-                        String formattedRank = "";
-                        boolean isOnline = false;
-
-                        if (player != null && player.isOnline()) {
-                            rank = plugin.getRankManager().getPlayerRank(player);
-                            formattedRank = plugin.getRankManager().getFormattedRank(player);
-                            isOnline = true;
+                    // verify creds on the auth executor, the exchange is answered from there so this worker is free right away
+                    userDataManager.verifyWebPasswordAsync(username, password, clientAddress(exchange)).whenComplete((result, error) -> {
+                        try {
+                            sendLoginResponse(exchange, username, error != null ? PasswordVerifier.Result.BUSY : result);
+                        } catch (Exception e) {
+                            plugin.getLogger().warning("Failed to send auth response: " + e.getMessage());
+                            exchange.close();
                         }
-
-                        response.put("success", true);
-                        response.put("user", Map.of(
-                            "playerUUID", playerUUID.toString(),
-                            "playerName", username,
-                            "webAccessEnabled", true,
-                            "rank", rank,
-                            "formattedRank", formattedRank,
-                            "online", isOnline,
-                            "loginTime", System.currentTimeMillis()
-                        ));
-                        response.put("sessionToken", UUID.randomUUID().toString());
-
-                        // Log successful authentication with rank info
-                        plugin.getLogger().info("Web authentication successful for " + username +
-                            (isOnline ? " (Online, Rank: " + rank + ")" : " (Offline)"));
-                    } else {
-                        response.put("success", false);
-                        response.put("error", "Invalid credentials");
-                    }
-
-                    sendJsonResponse(exchange, response, isValid ? 200 : 401);
+                    });
 
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
@@ -217,29 +755,197 @@ public class EmbeddedWebServer {
                 sendErrorResponse(exchange, "Method not allowed", 405);
             }
         }
+
+        private void sendLoginResponse(HttpExchange exchange, String username, PasswordVerifier.Result result) throws IOException {
+            if (result == PasswordVerifier.Result.LOCKED) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(plugin.getConfig().getInt("web.auth.lockout-seconds", 300)));
+                sendErrorResponse(exchange, "Too many failed attempts, try again later", 429);
+                return;
+            }
+            if (result == PasswordVerifier.Result.BUSY) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendErrorResponse(exchange, "Authentication is busy, try again shortly", 503);
+                return;
+            }
+
+            boolean isValid = result == PasswordVerifier.Result.VALID;
+
+            Map<String, Object> response = new HashMap<>();
+            if (isValid) {
+                OnlinePlayer player = plugin.getPlayerRegistry().getByName(username);
+                UUID playerUUID = player != null ? player.getPlayerId() : userDataManager.getPlayerUUIDByName(username);
+
+                // get rank info
+                String rank = "";
+                String formattedRank = "";
+                boolean isOnline = false;
+
+                if (player != null) {
+                    rank = player.getRank();
+                    formattedRank = player.getFormattedRank();
+                    isOnline = true;
+                }
+
+                response.put("success", true);
+                response.put("user", Map.of(
+                    "playerUUID", playerUUID.toString(),
+                    "playerName", username,
+                    "webAccessEnabled", true,
+                    "rank", rank,
+                    "formattedRank", formattedRank,
+                    "online", isOnline,
+                    "loginTime", System.currentTimeMillis()
+                ));
+                response.put("sessionToken", sessionTokens.issue(playerUUID, username));
+                response.put("expiresAt", System.currentTimeMillis() + sessionTokens.getTtlMillis());
+
+                // Log successful authentication with rank info
+                plugin.getLogger().info("Web authentication successful for " + username +
+                    (isOnline ? " (Online, Rank: " + rank + ")" : " (Offline)"));
+            } else {
+                response.put("success", false);
+                response.put("error", "Invalid credentials");
+            }
+
+            sendJsonResponse(exchange, response, isValid ? 200 : 401);
+        }
     }
 
-    private class FriendsHandler implements HttpHandler {
+    // POST {"requests": [{"id": "friends", "path": "/api/friends?playerUUID=..."}, ...]}, answered with
+    // {"responses": [{"id", "status", "body"}, ...]} in the same order. every sub-request is a GET routed and run through
+    // the middleware exactly like a request of its own, all of them concurrently on the workers, and they share one BatchMemo
+    // so what several of them need (the pending friend requests) is loaded once. the dashboard's seven calls become one round trip
+    private class BatchHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
+            JsonObject json = gson.fromJson(readRequestBody(exchange), JsonObject.class);
+            if (json == null || !json.has("requests") || !json.get("requests").isJsonArray()) {
+                sendErrorResponse(exchange, "requests array required", 400);
+                return;
+            }
+            List<JsonElement> requests = new ArrayList<>();
+            json.getAsJsonArray("requests").forEach(requests::add);
+            if (requests.isEmpty() || requests.size() > maxBatchRequests) {
+                sendErrorResponse(exchange, "Between 1 and " + maxBatchRequests + " requests per batch", 400);
+                return;
+            }
+
+            List<String> ids = new ArrayList<>();
+            List<BatchExchange> subRequests = new ArrayList<>();
+            for (JsonElement element : requests) {
+                JsonObject request = element.isJsonObject() ? element.getAsJsonObject() : null;
+                String path = request != null && request.has("path") ? request.get("path").getAsString() : null;
+                if (path == null || !path.startsWith("/api/") || path.startsWith("/api/batch")) {
+                    sendErrorResponse(exchange, "Every request needs a path under /api/ (and not /api/batch)", 400);
+                    return;
+                }
+                ids.add(request.has("id") ? request.get("id").getAsString() : path);
+                subRequests.add(new BatchExchange(exchange, URI.create(path)));
+            }
+
+            // every sub-request is matched before any runs, a bad escape in one fails the whole batch with a 400
+            List<Router.Route> routes = new ArrayList<>();
+            for (BatchExchange subRequest : subRequests) {
+                Router.Match match = router.match(subRequest.getRequestURI().getRawPath());
+                routes.add(match != null ? match.getRoute() : null);
+                subRequest.setParams(RequestParams.parse(subRequest.getRequestURI().getRawQuery(), match != null ? match.getParams() : Map.of()));
+            }
+
+            BatchMemo memo = new BatchMemo();
+            for (int i = 0; i < subRequests.size(); i++) {
+                BatchExchange subRequest = subRequests.get(i);
+                Router.Route route = routes.get(i);
+                subRequest.setAttribute(BatchMemo.ATTRIBUTE, memo);
+                try {
+                    plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> dispatch(subRequest, route, 0));
+                } catch (RejectedExecutionException e) {
+                    dispatch(subRequest, route, 0);
+                }
+            }
 
+            // answered from whichever thread finishes the last sub-request, a sub-request still running when the
+            // batch gives up is reported as a 504 so the rest still reach the client before the request itself times out
+            CompletableFuture.allOf(subRequests.stream().map(BatchExchange::getDone).toArray(CompletableFuture[]::new))
+                    .completeOnTimeout(null, Math.max(1000, asyncTimeoutMillis - 1000), TimeUnit.MILLISECONDS)
+                    .whenComplete((ignored, error) -> {
+                        try {
+                            sendJsonStream(exchange, 200, writer -> {
+                                writer.name("responses").beginArray();
+                                for (int i = 0; i < subRequests.size(); i++) {
+                                    BatchExchange subRequest = subRequests.get(i);
+                                    boolean finished = subRequest.getDone().isDone();
+                                    writer.beginObject();
+                                    writer.name("id").value(ids.get(i));
+                                    writer.name("status").value(finished ? subRequest.getResponseCode() : 504);
+                                    String body = finished ? subRequest.getBody() : null;
+                                    if (body != null) {
+                                        writer.name("body").jsonValue(body);
+                                    } else if (!finished) {
+                                        writer.name("body").beginObject().name("error").value("Timed out").endObject();
+                                    } else {
+                                        writer.name("body").nullValue();
+                                    }
+                                    writer.endObject();
+                                }
+                                writer.endArray();
+                            });
+                        } catch (IOException e) {
+                            exchange.close();
+                        }
+                    });
+        }
+    }
+
+    private boolean inBatch(HttpExchange exchange) {
+        return exchange.getAttribute(BatchMemo.ATTRIBUTE) != null;
+    }
+
+    // within a batch the first sub-request to ask loads the value and the others reuse it, on its own it's just loader.get()
+    private <T> T shared(HttpExchange exchange, String key, Supplier<T> loader) {
+        Object memo = exchange.getAttribute(BatchMemo.ATTRIBUTE);
+        return memo instanceof BatchMemo ? ((BatchMemo) memo).get(key, loader) : loader.get();
+    }
+
+    // both sides of a player's pending friend requests, wanted by four of the dashboard's calls
+    private Document requestsOverview(HttpExchange exchange, UUID playerId) {
+        return shared(exchange, "friend-requests:" + playerId, () -> friendManager.getFriendRequestsOverview(playerId));
+    }
+
+    private class FriendsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
                     }
 
-                    List<Document> friends = friendManager.getFriendList(UUID.fromString(playerUUID));
+                    // online players are served from their session, everyone else from mongo
+                    PlayerSession session = plugin.getSessionManager().getLoaded(UUID.fromString(playerUUID));
+                    List<Document> friends = session != null
+                        ? session.getFriends()
+                        : friendManager.getFriendList(UUID.fromString(playerUUID));
+
+                    // friendName is whatever the friend was called when the friendship was made, current names in one bulk lookup
+                    List<UUID> friendIds = new ArrayList<>();
+                    for (Document friend : friends) {
+                        String friendUUID = friend.getString("friendUUID");
+                        if (friendUUID != null) {
+                            friendIds.add(UUID.fromString(friendUUID));
+                        }
+                    }
+                    Map<UUID, String> currentNames = userDataManager.getPlayerResolver().resolveNames(friendIds);
 
                     friends.forEach(friend -> {
-                        String friendName = friend.getString("friendName");
-                        Player onlineFriend = Bukkit.getPlayerExact(friendName);
-                        friend.append("online", onlineFriend != null && onlineFriend.isOnline());
+                        String friendUUID = friend.getString("friendUUID");
+                        UUID friendId = friendUUID != null ? UUID.fromString(friendUUID) : null;
+                        if (friendId != null && currentNames.containsKey(friendId)) {
+                            friend.put("friendName", currentNames.get(friendId));
+                        }
+                        friend.append("online", friendId != null && plugin.getPlayerRegistry().isOnline(friendId));
                     });
 
                     Map<String, Object> response = Map.of("friends", friends);
@@ -257,12 +963,9 @@ public class EmbeddedWebServer {
     private class UserSettingsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
@@ -297,14 +1000,12 @@ public class EmbeddedWebServer {
     private class EnableWebAccessHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String body = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(body, JsonObject.class);
-                    String playerUUID = json.has("playerUUID") ? json.get("playerUUID").getAsString() : null;
-                    String playerName = json.has("playerName") ? json.get("playerName").getAsString() : null;
+                    String playerUUID = actingUUID(exchange, json, "playerUUID");
+                    String playerName = actingName(exchange, json, "playerName");
                     String password = json.has("password") ? json.get("password").getAsString() : null;
 
                     if (playerUUID == null || playerName == null || password == null || password.isEmpty()) {
@@ -312,11 +1013,22 @@ public class EmbeddedWebServer {
                         return;
                     }
 
-                    boolean success = userDataManager.setWebPassword(UUID.fromString(playerUUID), playerName, password);
-                    Map<String, Object> res = new HashMap<>();
-                    res.put("success", success);
-                    res.put("message", success ? "Web access enabled" : "Failed to enable web access");
-                    sendJsonResponse(exchange, res, success ? 200 : 500);
+                    userDataManager.setWebPasswordAsync(UUID.fromString(playerUUID), playerName, password)
+                        .whenComplete((success, error) -> {
+                            try {
+                                if (error != null) {
+                                    exchange.getResponseHeaders().add("Retry-After", "1");
+                                    sendErrorResponse(exchange, "Authentication is busy, try again shortly", 503);
+                                    return;
+                                }
+                                Map<String, Object> res = new HashMap<>();
+                                res.put("success", success);
+                                res.put("message", success ? "Web access enabled" : "Failed to enable web access");
+                                sendJsonResponse(exchange, res, success ? 200 : 500);
+                            } catch (IOException e) {
+                                exchange.close();
+                            }
+                        });
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
                 }
@@ -329,8 +1041,6 @@ public class EmbeddedWebServer {
     private class DisableWebAccessHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String body = readRequestBody(exchange);
@@ -341,6 +1051,9 @@ public class EmbeddedWebServer {
                         return;
                     }
                     boolean success = userDataManager.disableWebAccess(UUID.fromString(playerUUID));
+                    if (success) {
+                        sessionTokens.revokeAll(UUID.fromString(playerUUID));
+                    }
                     Map<String, Object> res = new HashMap<>();
                     res.put("success", success);
                     res.put("message", success ? "Web access disabled" : "Failed to disable web access");
@@ -357,35 +1070,57 @@ public class EmbeddedWebServer {
     private class UpdateWebPasswordHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String body = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(body, JsonObject.class);
-                    String playerUUID = json.has("playerUUID") ? json.get("playerUUID").getAsString() : null;
-                    String playerName = json.has("playerName") ? json.get("playerName").getAsString() : null;
+                    String playerUUID = actingUUID(exchange, json, "playerUUID");
+                    String playerName = actingName(exchange, json, "playerName");
                     String currentPassword = json.has("currentPassword") ? json.get("currentPassword").getAsString() : null;
                     String newPassword = json.has("newPassword") ? json.get("newPassword").getAsString() : null;
 
-                    if (playerUUID == null || playerName == null || newPassword == null || newPassword.isEmpty()) {
-                        sendErrorResponse(exchange, "playerUUID, playerName and newPassword are required", 400);
+                    // a token alone must not be enough to take the account over, the current password is always checked
+                    if (playerUUID == null || playerName == null || currentPassword == null || currentPassword.isEmpty()
+                            || newPassword == null || newPassword.isEmpty()) {
+                        sendErrorResponse(exchange, "playerUUID, playerName, currentPassword and newPassword are required", 400);
                         return;
                     }
 
-                    if (currentPassword != null && !currentPassword.isEmpty()) {
-                        boolean ok = userDataManager.verifyWebPassword(playerName, currentPassword);
-                        if (!ok) {
-                            sendErrorResponse(exchange, "Current password incorrect", 401);
-                            return;
-                        }
-                    }
+                    // both the check and the new hash run on the auth executor
+                    CompletableFuture<PasswordVerifier.Result> check =
+                        userDataManager.verifyWebPasswordAsync(playerName, currentPassword, clientAddress(exchange));
 
-                    boolean success = userDataManager.setWebPassword(UUID.fromString(playerUUID), playerName, newPassword);
-                    Map<String, Object> res = new HashMap<>();
-                    res.put("success", success);
-                    res.put("message", success ? "Password updated" : "Failed to update password");
-                    sendJsonResponse(exchange, res, success ? 200 : 500);
+                    check.thenCompose(result -> {
+                        if (result != PasswordVerifier.Result.VALID) {
+                            return CompletableFuture.completedFuture(result);
+                        }
+                        return userDataManager.setWebPasswordAsync(UUID.fromString(playerUUID), playerName, newPassword)
+                            .thenApply(success -> success ? PasswordVerifier.Result.VALID : null);
+                    }).whenComplete((result, error) -> {
+                        try {
+                            if (error != null || result == PasswordVerifier.Result.BUSY) {
+                                exchange.getResponseHeaders().add("Retry-After", "1");
+                                sendErrorResponse(exchange, "Authentication is busy, try again shortly", 503);
+                            } else if (result == PasswordVerifier.Result.LOCKED) {
+                                sendErrorResponse(exchange, "Too many failed attempts, try again later", 429);
+                            } else if (result == PasswordVerifier.Result.INVALID) {
+                                sendErrorResponse(exchange, "Current password incorrect", 401);
+                            } else {
+                                boolean success = result == PasswordVerifier.Result.VALID;
+                                Map<String, Object> res = new HashMap<>();
+                                res.put("success", success);
+                                res.put("message", success ? "Password updated" : "Failed to update password");
+                                // tokens from before the change stop working, this client carries on with a fresh one
+                                if (success) {
+                                    sessionTokens.revokeAll(UUID.fromString(playerUUID));
+                                    res.put("sessionToken", sessionTokens.issue(UUID.fromString(playerUUID), playerName));
+                                }
+                                sendJsonResponse(exchange, res, success ? 200 : 500);
+                            }
+                        } catch (IOException e) {
+                            exchange.close();
+                        }
+                    });
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
                 }
@@ -398,21 +1133,18 @@ public class EmbeddedWebServer {
     private class GroupsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
                     String path = exchange.getRequestURI().getPath();
-                    String query = exchange.getRequestURI().getQuery();
 
                     if (path.endsWith("/public-groups")) {
                         handlePublicGroups(exchange);
                     } else if (path.endsWith("/trending-groups")) {
                         handleTrendingGroups(exchange);
                     } else if (path.endsWith("/recommended-groups")) {
-                        handleRecommendedGroups(exchange, query);
+                        handleRecommendedGroups(exchange);
                     } else {
-                        String playerUUID = getQueryParam(query, "playerUUID");
+                        String playerUUID = param(exchange, "playerUUID");
                         if (playerUUID == null) {
                             sendErrorResponse(exchange, "Player UUID required", 400);
                             return;
@@ -468,58 +1200,60 @@ public class EmbeddedWebServer {
 
         private void handlePublicGroups(HttpExchange exchange) throws IOException {
             try {
-                List<Document> publicGroups = groupManager.getAllPublicGroups();
-                for (Document group : publicGroups) {
-                    Document settings = group.get("settings", Document.class);
-                    if (settings != null) {
-                        String motd = settings.getString("groupMotd");
-                        if (motd != null && !motd.isEmpty()) {
-                            group.append("motd", motd);
-                        }
-                        
-                        List<String> announcements = settings.getList("announcements", String.class);
-                        if (announcements != null && !announcements.isEmpty()) {
-                            group.append("announcements", announcements);
-                        }
-                    }
-                    
-                    if (!group.containsKey("motd") && group.getInteger("memberCount", 0) <= 1) {
-                        group.append("motd", "Join " + group.getString("groupName") + " and be part of our growing community!");
+                sendCachedJson(exchange, "groups", "public-groups", this::renderPublicGroups);
+            } catch (Exception e) {
+                sendErrorResponse(exchange, "Failed to load public groups", 500);
+            }
+        }
+
+        private byte[] renderPublicGroups() {
+            List<Document> publicGroups = groupManager.getAllPublicGroups();
+            for (Document group : publicGroups) {
+                Document settings = group.get("settings", Document.class);
+                if (settings != null) {
+                    String motd = settings.getString("groupMotd");
+                    if (motd != null && !motd.isEmpty()) {
+                        group.append("motd", motd);
                     }
-                    if (!group.containsKey("announcements") && group.getInteger("memberCount", 0) <= 1) {
-                        group.append("announcements", List.of(
-                            "🌟 New members always welcome!",
-                            "💬 Active community - join the conversation!"
-                        ));
+                
+                    List<String> announcements = settings.getList("announcements", String.class);
+                    if (announcements != null && !announcements.isEmpty()) {
+                        group.append("announcements", announcements);
                     }
                 }
-                Map<String, Object> response = Map.of("groups", publicGroups);
-                sendJsonResponse(exchange, response, 200);
-            } catch (Exception e) {
-                sendErrorResponse(exchange, "Failed to load public groups", 500);
+            
+                if (!group.containsKey("motd") && group.getInteger("memberCount", 0) <= 1) {
+                    group.append("motd", "Join " + group.getString("groupName") + " and be part of our growing community!");
+                }
+                if (!group.containsKey("announcements") && group.getInteger("memberCount", 0) <= 1) {
+                    group.append("announcements", List.of(
+                        "🌟 New members always welcome!",
+                        "💬 Active community - join the conversation!"
+                    ));
+                }
             }
+            return toJsonBytes(Map.of("groups", publicGroups));
         }
 
         private void handleTrendingGroups(HttpExchange exchange) throws IOException {
             try {
-                List<Document> trendingGroups = groupManager.getTrendingGroups();
-                Map<String, Object> response = Map.of("groups", trendingGroups);
-                sendJsonResponse(exchange, response, 200);
+                sendCachedJson(exchange, "groups", "trending-groups",
+                        () -> toJsonBytes(Map.of("groups", groupManager.getTrendingGroups())));
             } catch (Exception e) {
                 sendErrorResponse(exchange, "Failed to load trending groups", 500);
             }
         }
 
-        private void handleRecommendedGroups(HttpExchange exchange, String query) throws IOException {
+        private void handleRecommendedGroups(HttpExchange exchange) throws IOException {
             try {
-                String playerUUID = getQueryParam(query, "playerUUID");
+                String playerUUID = param(exchange, "playerUUID");
                 if (playerUUID == null) {
                     sendErrorResponse(exchange, "Player UUID required", 400);
                     return;
                 }
-                List<Document> recommendedGroups = groupManager.getRecommendedGroups(UUID.fromString(playerUUID));
-                Map<String, Object> response = Map.of("groups", recommendedGroups);
-                sendJsonResponse(exchange, response, 200);
+                UUID playerId = UUID.fromString(playerUUID);
+                sendCachedJson(exchange, "groups", "recommended-groups",
+                        () -> toJsonBytes(Map.of("groups", plugin.getGroupRecommender().getRecommendations(playerId))));
             } catch (Exception e) {
                 sendErrorResponse(exchange, "Failed to load recommended groups", 500);
             }
@@ -529,13 +1263,10 @@ public class EmbeddedWebServer {
     private class GroupDetailsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String groupId = getQueryParam(query, "groupId");
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String groupId = param(exchange, "groupId");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (groupId == null) {
                         sendErrorResponse(exchange, "Group ID required", 400);
@@ -543,65 +1274,66 @@ public class EmbeddedWebServer {
                     }
 
                     UUID groupUUID = UUID.fromString(groupId);
-                    Document groupDoc = groupManager.getGroup(groupUUID);
-                    if (groupDoc == null) {
-                        sendErrorResponse(exchange, "Group not found", 404);
-                        return;
-                    }
-
-                    Map<String, Object> group = new HashMap<>();
-                    group.put("groupId", groupId);
-                    group.put("groupName", groupDoc.getString("groupName"));
-                    group.put("description", groupDoc.getString("description"));
-                    group.put("maxMembers", groupDoc.getInteger("maxMembers", 20));
-                    group.put("isPrivate", groupDoc.getBoolean("isPrivate", false));
-
-                    if (groupDoc.containsKey("createdAt")) {
-                        try {
-                            Object createdAt = groupDoc.get("createdAt");
-                            if (createdAt instanceof Number) {
-                                group.put("createdAt", ((Number) createdAt).longValue());
-                            }
-                        } catch (Exception ignored) {}
-                    }
+                    sendCachedJson(exchange, "group:" + groupUUID, "group-details", () -> {
+                        Document groupDoc = groupManager.getGroup(groupUUID);
+                        if (groupDoc == null) {
+                            sendErrorResponse(exchange, "Group not found", 404);
+                            return null;
+                        }
 
-                    List<Document> members = groupDoc.getList("members", Document.class);
-                    int memberCount = members != null ? members.size() : 0;
-                    group.put("memberCount", memberCount);
+                        Map<String, Object> group = new HashMap<>();
+                        group.put("groupId", groupId);
+                        group.put("groupName", groupDoc.getString("groupName"));
+                        group.put("description", groupDoc.getString("description"));
+                        group.put("maxMembers", groupDoc.getInteger("maxMembers", 20));
+                        group.put("isPrivate", groupDoc.getBoolean("isPrivate", false));
 
-                    if (playerUUID != null && members != null) {
-                        String role = members.stream()
-                                .filter(m -> playerUUID.equals(m.getString("playerId")))
-                                .map(m -> m.getString("role"))
-                                .findFirst()
-                                .orElse(null);
-                        if (role != null) {
-                            group.put("role", role);
+                        if (groupDoc.containsKey("createdAt")) {
+                            try {
+                                Object createdAt = groupDoc.get("createdAt");
+                                if (createdAt instanceof Number) {
+                                    group.put("createdAt", ((Number) createdAt).longValue());
+                                }
+                            } catch (Exception ignored) {}
                         }
-                    }
 
-                    if (groupDoc.containsKey("ownerId")) {
-                        group.put("ownerId", groupDoc.getString("ownerId"));
-                    }
-                    if (groupDoc.containsKey("ownerName")) {
-                        group.put("ownerName", groupDoc.getString("ownerName"));
-                    }
+                        List<Document> members = groupDoc.getList("members", Document.class);
+                        int memberCount = members != null ? members.size() : 0;
+                        group.put("memberCount", memberCount);
+
+                        if (playerUUID != null && members != null) {
+                            String role = members.stream()
+                                    .filter(m -> playerUUID.equals(m.getString("playerId")))
+                                    .map(m -> m.getString("role"))
+                                    .findFirst()
+                                    .orElse(null);
+                            if (role != null) {
+                                group.put("role", role);
+                            }
+                        }
 
-                    Document settings = groupDoc.get("settings", Document.class);
-                    if (settings != null) {
-                        String motd = settings.getString("groupMotd");
-                        if (motd != null && !motd.isEmpty()) {
-                            group.put("motd", motd);
+                        if (groupDoc.containsKey("ownerId")) {
+                            group.put("ownerId", groupDoc.getString("ownerId"));
+                        }
+                        if (groupDoc.containsKey("ownerName")) {
+                            group.put("ownerName", groupDoc.getString("ownerName"));
                         }
 
-                        List<String> announcements = settings.getList("announcements", String.class);
-                        if (announcements != null && !announcements.isEmpty()) {
-                            group.put("announcements", announcements);
+                        Document settings = groupDoc.get("settings", Document.class);
+                        if (settings != null) {
+                            String motd = settings.getString("groupMotd");
+                            if (motd != null && !motd.isEmpty()) {
+                                group.put("motd", motd);
+                            }
+
+                            List<String> announcements = settings.getList("announcements", String.class);
+                            if (announcements != null && !announcements.isEmpty()) {
+                                group.put("announcements", announcements);
+                            }
                         }
-                    }
 
-                    Map<String, Object> response = Map.of("group", group);
-                    sendJsonResponse(exchange, response, 200);
+                        return toJsonBytes(Map.of("group", group));
+                    });
                 } catch (IllegalArgumentException e) {
                     sendErrorResponse(exchange, "Invalid UUID format", 400);
                 } catch (Exception e) {
@@ -616,19 +1348,21 @@ public class EmbeddedWebServer {
     private class MessagesHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String groupId = getQueryParam(query, "groupId");
-                    String limit = getQueryParam(query, "limit");
+                    String groupId = param(exchange, "groupId");
+                    String limit = param(exchange, "limit");
 
                     if (groupId == null) {
                         sendErrorResponse(exchange, "Group ID required", 400);
                         return;
                     }
 
+                    if (!sessionInGroup(exchange, UUID.fromString(groupId))) {
+                        sendErrorResponse(exchange, "You are not a member of this group", 403);
+                        return;
+                    }
+
                     int messageLimit = limit != null ? Integer.parseInt(limit) : 50;
                     List<Document> messages = groupManager.getGroupMessages(UUID.fromString(groupId), messageLimit);
 
@@ -647,20 +1381,25 @@ public class EmbeddedWebServer {
     private class PrivateMessagesHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String player1 = getQueryParam(query, "player1");
-                    String player2 = getQueryParam(query, "player2");
-                    String limitParam = getQueryParam(query, "limit");
+                    String player1 = param(exchange, "player1");
+                    String player2 = param(exchange, "player2");
+                    String limitParam = param(exchange, "limit");
 
                     if (player1 == null || player2 == null) {
                         sendErrorResponse(exchange, "player1 and player2 are required", 400);
                         return;
                     }
 
+                    // only a conversation the token's player is part of
+                    SessionTokens.Session session = session(exchange);
+                    if (session != null && !session.getPlayerName().equalsIgnoreCase(player1)
+                            && !session.getPlayerName().equalsIgnoreCase(player2)) {
+                        sendErrorResponse(exchange, "Session does not belong to this conversation", 403);
+                        return;
+                    }
+
                     int limit = 100;
                     if (limitParam != null) {
                         try { limit = Integer.parseInt(limitParam); } catch (NumberFormatException ignored) {}
@@ -683,41 +1422,35 @@ public class EmbeddedWebServer {
     private class SendMessageHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String senderId = json.get("senderId").getAsString();
-                    String senderName = json.get("senderName").getAsString();
+                    String senderId = actingUUID(exchange, json, "senderId");
+                    String senderName = actingName(exchange, json, "senderName");
                     String message = json.get("message").getAsString();
                     String groupId = json.get("groupId").getAsString();
+                    if (senderId == null || senderName == null) {
+                        sendErrorResponse(exchange, "senderId and senderName are required", 400);
+                        return;
+                    }
 
    
 
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        Document group = groupManager.getGroup(UUID.fromString(groupId));
-                        if (group != null) {
-                            String groupName = group.getString("groupName");
-                            String format = plugin.getConfig().getString("chat-groups.format",
-                                "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
-                            String formattedMessage = format
-                                    .replace("{group}", groupName)
-                                    .replace("{player}", senderName + " (Web)")
-                                    .replace("{message}", message);
+                    Document group = groupManager.getGroup(UUID.fromString(groupId));
+                    if (group != null) {
+                        String groupName = group.getString("groupName");
+                        String format = plugin.getConfig().getString("chat-groups.format",
+                            "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
+                        String formattedMessage = format
+                                .replace("{group}", groupName)
+                                .replace("{player}", senderName + " (Web)")
+                                .replace("{message}", message);
 
-                            List<Document> members = group.getList("members", Document.class);
-                            for (Document member : members) {
-                                String memberName = member.getString("playerName");
-                                Player onlineMember = Bukkit.getPlayerExact(memberName);
-                                if (onlineMember != null && onlineMember.isOnline()) {
-                                    onlineMember.sendMessage(formattedMessage.replace("&", "§"));
-                                }
-                            }
-                        }
-                    });
+                        List<Document> members = group.getList("members", Document.class);
+                        tellOnline(onlineMembers(members, null), formattedMessage.replace("&", "§"));
+                    }
 
                     Map<String, Object> response = Map.of("success", true);
                     sendJsonResponse(exchange, response, 200);
@@ -734,15 +1467,13 @@ public class EmbeddedWebServer {
     private class SendFriendMessageHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String senderUUIDStr = json.has("senderUUID") && !json.get("senderUUID").isJsonNull() ? json.get("senderUUID").getAsString() : null;
-                    String senderName = json.has("senderName") && !json.get("senderName").isJsonNull() ? json.get("senderName").getAsString() : null;
+                    String senderUUIDStr = actingUUID(exchange, json, "senderUUID");
+                    String senderName = actingName(exchange, json, "senderName");
                     String targetUUIDStr = json.has("targetUUID") && !json.get("targetUUID").isJsonNull() ? json.get("targetUUID").getAsString() : null;
                     String targetName = json.has("targetName") && !json.get("targetName").isJsonNull() ? json.get("targetName").getAsString() : null;
                     String message = json.has("message") && !json.get("message").isJsonNull() ? json.get("message").getAsString() : null;
@@ -757,7 +1488,7 @@ public class EmbeddedWebServer {
                         try { senderUUID = UUID.fromString(senderUUIDStr); } catch (Exception ignored) {}
                     }
                     if (senderUUID == null && senderName != null) {
-                        senderUUID = getPlayerUUID(senderName);
+                        senderUUID = userDataManager.getPlayerUUIDByName(senderName);
                     }
                     if (senderName == null && senderUUID != null) {
                         senderName = getPlayerNameByUUID(senderUUID);
@@ -768,7 +1499,7 @@ public class EmbeddedWebServer {
                         try { targetUUID = UUID.fromString(targetUUIDStr); } catch (Exception ignored) {}
                     }
                     if (targetUUID == null && targetName != null) {
-                        targetUUID = getPlayerUUID(targetName);
+                        targetUUID = userDataManager.getPlayerUUIDByName(targetName);
                     }
                     if (targetName == null && targetUUID != null) {
                         targetName = getPlayerNameByUUID(targetUUID);
@@ -790,50 +1521,9 @@ public class EmbeddedWebServer {
                         return;
                     }
 
-                    Player target = Bukkit.getPlayerExact(targetName);
+                    OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
                     // Allow messaging to offline players, just store in database and notify web sessions
-
-                    final String finalSenderName = senderName;
-                    final String finalMessage = message;
-                    final UUID finalSenderUUID = senderUUID;
-                    final String finalTargetName = targetName;
-                    final UUID finalTargetUUID = targetUUID;
-                    final Player finalTarget = target;
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        // Send to Minecraft if player is online
-                        if (finalTarget != null && finalTarget.isOnline()) {
-                            String format = plugin.getConfig().getString("private-messages.format",
-                                "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
-
-                            String formattedMessage = format
-                                .replace("{sender}", finalSenderName + " (Web)")
-                                .replace("{receiver}", finalTarget.getName())
-                                .replace("{message}", finalMessage);
-
-                            finalTarget.sendMessage(formattedMessage.replace("&", "§"));
-                        }
-
-                        if (plugin.getDatabaseManager() != null) {
-                            plugin.getDatabaseManager().storePrivateMessage(
-                                finalSenderName, finalSenderUUID, 
-                                finalTargetName, finalTargetUUID, 
-                                finalMessage, "web"
-                            );
-                        }
-
-                        if (plugin.getWebAPIHandler() != null) {
-                            plugin.getWebAPIHandler().broadcastMinecraftMessage(finalSenderUUID, finalSenderName, finalMessage,
-                                "friend_message", finalTargetUUID);
-                        }
-                    });
-
-                    Map<String, Object> response = Map.of(
-                        "success", true,
-                        "targetName", targetName,
-                        "timestamp", System.currentTimeMillis(),
-                        "delivered", target != null && target.isOnline()
-                    );
-                    sendJsonResponse(exchange, response, 200);
+                    sendPrivateMessage(exchange, senderName, senderUUID, targetName, targetUUID, message, target);
 
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
@@ -847,15 +1537,13 @@ public class EmbeddedWebServer {
     private class SendDirectMessageHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String senderUUIDStr = json.has("senderUUID") && !json.get("senderUUID").isJsonNull() ? json.get("senderUUID").getAsString() : null;
-                    String senderName = json.has("senderName") && !json.get("senderName").isJsonNull() ? json.get("senderName").getAsString() : null;
+                    String senderUUIDStr = actingUUID(exchange, json, "senderUUID");
+                    String senderName = actingName(exchange, json, "senderName");
                     String targetUUIDStr = json.has("targetUUID") && !json.get("targetUUID").isJsonNull() ? json.get("targetUUID").getAsString() : null;
                     String targetName = json.has("targetName") && !json.get("targetName").isJsonNull() ? json.get("targetName").getAsString() : null;
                     String message = json.has("message") && !json.get("message").isJsonNull() ? json.get("message").getAsString() : null;
@@ -870,7 +1558,7 @@ public class EmbeddedWebServer {
                         try { senderUUID = UUID.fromString(senderUUIDStr); } catch (Exception ignored) {}
                     }
                     if (senderUUID == null && senderName != null) {
-                        senderUUID = getPlayerUUID(senderName);
+                        senderUUID = userDataManager.getPlayerUUIDByName(senderName);
                     }
                     if (senderName == null && senderUUID != null) {
                         senderName = getPlayerNameByUUID(senderUUID);
@@ -881,7 +1569,7 @@ public class EmbeddedWebServer {
                         try { targetUUID = UUID.fromString(targetUUIDStr); } catch (Exception ignored) {}
                     }
                     if (targetUUID == null && targetName != null) {
-                        targetUUID = getPlayerUUID(targetName);
+                        targetUUID = userDataManager.getPlayerUUIDByName(targetName);
                     }
                     if (targetName == null && targetUUID != null) {
                         targetName = getPlayerNameByUUID(targetUUID);
@@ -897,50 +1585,9 @@ public class EmbeddedWebServer {
                         return;
                     }
 
-                    Player target = Bukkit.getPlayerExact(targetName);
+                    OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
                     // Allow messaging to offline players, just store in database and notify web sessions
-
-                    final String finalSenderName = senderName;
-                    final String finalMessage = message;
-                    final UUID finalSenderUUID = senderUUID;
-                    final String finalTargetName = targetName;
-                    final UUID finalTargetUUID = targetUUID;
-                    final Player finalTarget = target;
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        // Send to Minecraft if player is online
-                        if (finalTarget != null && finalTarget.isOnline()) {
-                            String format = plugin.getConfig().getString("private-messages.format",
-                                "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
-
-                            String formattedMessage = format
-                                .replace("{sender}", finalSenderName + " (Web)")
-                                .replace("{receiver}", finalTarget.getName())
-                                .replace("{message}", finalMessage);
-
-                            finalTarget.sendMessage(formattedMessage.replace("&", "§"));
-                        }
-
-                        if (plugin.getDatabaseManager() != null) {
-                            plugin.getDatabaseManager().storePrivateMessage(
-                                finalSenderName, finalSenderUUID, 
-                                finalTargetName, finalTargetUUID, 
-                                finalMessage, "web"
-                            );
-                        }
-
-                        if (plugin.getWebAPIHandler() != null) {
-                            plugin.getWebAPIHandler().broadcastMinecraftMessage(finalSenderUUID, finalSenderName, finalMessage,
-                                "friend_message", finalTargetUUID);
-                        }
-                    });
-
-                    Map<String, Object> response = Map.of(
-                        "success", true,
-                        "targetName", targetName,
-                        "timestamp", System.currentTimeMillis(),
-                        "delivered", target != null && target.isOnline()
-                    );
-                    sendJsonResponse(exchange, response, 200);
+                    sendPrivateMessage(exchange, senderName, senderUUID, targetName, targetUUID, message, target);
 
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
@@ -954,8 +1601,6 @@ public class EmbeddedWebServer {
     private class TestHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 Map<String, Object> response = Map.of("status", "Server is running");
                 sendJsonResponse(exchange, response, 200);
@@ -968,8 +1613,6 @@ public class EmbeddedWebServer {
     private class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
                     String path = exchange.getRequestURI().getPath();
@@ -1005,7 +1648,7 @@ public class EmbeddedWebServer {
                         try {
                             components.put("bukkit", Map.of(
                                 "status", "UP",
-                                "onlinePlayers", Bukkit.getOnlinePlayers().size(),
+                                "onlinePlayers", plugin.getPlayerRegistry().size(),
                                 "maxPlayers", Bukkit.getMaxPlayers()
                             ));
                         } catch (Exception e) {
@@ -1015,6 +1658,39 @@ public class EmbeddedWebServer {
                             ));
                         }
 
+                        components.put("auth", userDataManager.getPasswordVerifier().getMetrics());
+                        components.put("groupCache", groupManager.getGroupCache().getMetrics());
+                        components.put("groupTrending", groupManager.getTrending().getMetrics());
+                        components.put("groupStats", groupManager.getStats().getMetrics());
+                        Map<String, Object> filters = new HashMap<>();
+                        List<BloomFilter> allFilters = new ArrayList<>(userDataManager.getFilters());
+                        allFilters.addAll(groupManager.getFilters());
+                        allFilters.addAll(friendManager.getFilters());
+                        for (BloomFilter filter : allFilters) {
+                            filters.put(filter.getName(), filter.getMetrics());
+                        }
+                        components.put("bloomFilters", filters);
+                        if (plugin.getCacheSnapshot() != null) {
+                            components.put("cacheSnapshot", plugin.getCacheSnapshot().getMetrics());
+                        }
+                        if (plugin.getGroupRecommender() != null) {
+                            components.put("groupRecommender", plugin.getGroupRecommender().getMetrics());
+                        }
+                        components.put("playerResolver", userDataManager.getPlayerResolver().getMetrics());
+                        components.put("responseCache", responseCache.getMetrics());
+                        components.put("webServer", getMetrics());
+                        components.put("routes", getRouteMetrics());
+                        components.put("workers", plugin.getWorkers().getMetrics());
+                        components.put("sessions", sessionTokens.getMetrics());
+                        components.put("admission", getAdmissionMetrics());
+                        components.put("delivery", plugin.getDeliveryQueue().getMetrics());
+                        if (databaseManager.getPrivateMessageWriter() != null) {
+                            components.put("privateMessages", databaseManager.getPrivateMessageWriter().getMetrics());
+                        }
+                        if (plugin.getChangeStreamWatcher() != null) {
+                            components.put("changeStreams", plugin.getChangeStreamWatcher().getMetrics());
+                        }
+
                         health.put("components", components);
                         sendJsonResponse(exchange, health, 200);
                     } else {
@@ -1041,13 +1717,18 @@ public class EmbeddedWebServer {
     private class RanksHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    List<Document> ranks = userDataManager.getAllRanks();
-                    Map<String, Object> response = Map.of("ranks", ranks);
-                    sendJsonResponse(exchange, response, 200);
+                    int limit = Math.max(1, parsePageParam(param(exchange, "limit"), 100, 500));
+                    int offset = parsePageParam(param(exchange, "offset"), 0, Integer.MAX_VALUE);
+
+                    sendCachedJson(exchange, "ranks", "ranks", () -> toJsonBytes(writer -> {
+                        writer.name("ranks").beginArray();
+                        userDataManager.forEachRank(offset, limit, rank -> writeDocument(writer, rank));
+                        writer.endArray();
+                        writer.name("limit").value(limit);
+                        writer.name("offset").value(offset);
+                    }));
 
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
@@ -1061,12 +1742,9 @@ public class EmbeddedWebServer {
     private class UsersHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
@@ -1090,16 +1768,18 @@ public class EmbeddedWebServer {
     private class SendFriendRequestHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String senderUUID = json.get("senderUUID").getAsString();
-                    String senderName = json.get("senderName").getAsString();
+                    String senderUUID = actingUUID(exchange, json, "senderUUID");
+                    String senderName = actingName(exchange, json, "senderName");
                     String targetName = json.get("targetName").getAsString();
+                    if (senderUUID == null || senderName == null) {
+                        sendErrorResponse(exchange, "senderUUID and senderName are required", 400);
+                        return;
+                    }
 
                     if (!userDataManager.playerExists(targetName)) {
                         sendErrorResponse(exchange, "Player not found", 404);
@@ -1112,10 +1792,7 @@ public class EmbeddedWebServer {
                     );
 
                     if (success) {
-                        Player targetPlayer = Bukkit.getPlayerExact(targetName);
-                        if (targetPlayer != null && targetPlayer.isOnline()) {
-                            targetPlayer.sendMessage("§aYou received a friend request from " + senderName + " (via web)");
-                        }
+                        tellOnline(targetName, "§aYou received a friend request from " + senderName + " (via web)");
 
                         Map<String, Object> response = Map.of("success", true, "message", "Friend request sent");
                         sendJsonResponse(exchange, response, 200);
@@ -1135,8 +1812,6 @@ public class EmbeddedWebServer {
     private class AcceptFriendRequestHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1151,10 +1826,9 @@ public class EmbeddedWebServer {
 
                     if (success) {
                         String requesterName = getPlayerNameByUUID(UUID.fromString(requesterUUID));
-                        Player requesterPlayer = Bukkit.getPlayerExact(requesterName);
-                        if (requesterPlayer != null && requesterPlayer.isOnline()) {
+                        if (plugin.getPlayerRegistry().isOnline(requesterName)) {
                             String playerName = getPlayerNameByUUID(UUID.fromString(playerUUID));
-                            requesterPlayer.sendMessage("§a" + playerName + " accepted your friend request!");
+                            tellOnline(requesterName, "§a" + playerName + " accepted your friend request!");
                         }
 
                         Map<String, Object> response = Map.of("success", true, "message", "Friend request accepted");
@@ -1175,8 +1849,6 @@ public class EmbeddedWebServer {
     private class RejectFriendRequestHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1204,8 +1876,6 @@ public class EmbeddedWebServer {
     private class RemoveFriendHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1233,8 +1903,6 @@ public class EmbeddedWebServer {
     private class CreateGroupHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1281,16 +1949,18 @@ public class EmbeddedWebServer {
     private class JoinGroupHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String playerUUID = json.get("playerUUID").getAsString();
-                    String playerName = json.get("playerName").getAsString();
+                    String playerUUID = actingUUID(exchange, json, "playerUUID");
+                    String playerName = actingName(exchange, json, "playerName");
                     String groupId = json.get("groupId").getAsString();
+                    if (playerUUID == null || playerName == null) {
+                        sendErrorResponse(exchange, "playerUUID and playerName are required", 400);
+                        return;
+                    }
 
                     boolean success = groupManager.joinGroup(
                         UUID.fromString(groupId), UUID.fromString(playerUUID), playerName
@@ -1302,13 +1972,7 @@ public class EmbeddedWebServer {
                         if (group != null) {
                             String groupName = group.getString("groupName");
                             List<Document> members = group.getList("members", Document.class);
-                            for (Document member : members) {
-                                String memberName = member.getString("playerName");
-                                Player onlineMember = Bukkit.getPlayerExact(memberName);
-                                if (onlineMember != null && onlineMember.isOnline() && !memberName.equals(playerName)) {
-                                    onlineMember.sendMessage("§a" + playerName + " joined the group " + groupName + " (via web)");
-                                }
-                            }
+                            tellOnline(onlineMembers(members, playerName), "§a" + playerName + " joined the group " + groupName + " (via web)");
                         }
 
                         Map<String, Object> response = Map.of("success", true, "message", "Joined group successfully");
@@ -1357,8 +2021,6 @@ public class EmbeddedWebServer {
     private class LeaveGroupHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1386,8 +2048,6 @@ public class EmbeddedWebServer {
     private class DeleteGroupHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1415,13 +2075,7 @@ public class EmbeddedWebServer {
                         String groupName = group.getString("groupName");
                         String ownerName = getPlayerNameByUUID(UUID.fromString(ownerUUID));
                         
-                        for (Document member : members) {
-                            String memberName = member.getString("playerName");
-                            Player onlineMember = Bukkit.getPlayerExact(memberName);
-                            if (onlineMember != null && onlineMember.isOnline() && !memberName.equals(ownerName)) {
-                                onlineMember.sendMessage("§cThe group '" + groupName + "' has been deleted by " + ownerName);
-                            }
-                        }
+                        tellOnline(onlineMembers(members, ownerName), "§cThe group '" + groupName + "' has been deleted by " + ownerName);
 
                         Map<String, Object> response = Map.of("success", true, "message", "Group deleted successfully");
                         sendJsonResponse(exchange, response, 200);
@@ -1441,19 +2095,19 @@ public class EmbeddedWebServer {
     private class FriendRequestsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
                     }
 
-                    List<Document> pendingRequests = friendManager.getPendingRequests(UUID.fromString(playerUUID));
+                    // incoming first, then outgoing, same as FriendManager.getPendingRequests
+                    Document overview = requestsOverview(exchange, UUID.fromString(playerUUID));
+                    List<Document> pendingRequests = new ArrayList<>(overview.getList("incoming", Document.class));
+                    pendingRequests.addAll(overview.getList("outgoing", Document.class));
                     Map<String, Object> response = Map.of("requests", pendingRequests);
                     sendJsonResponse(exchange, response, 200);
 
@@ -1469,19 +2123,46 @@ public class EmbeddedWebServer {
     private class PlayersHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    List<Document> allPlayers = userDataManager.getAllPlayers();
-                    
-                    Map<String, Object> response = Map.of(
-                        "players", allPlayers,
-                        "totalPlayers", allPlayers.size(),
-                        "onlinePlayers", (int) allPlayers.stream().filter(p -> 
-                            p.getBoolean("online", false)).count()
-                    );
-                    sendJsonResponse(exchange, response, 200);
+                    // ?query= is the typeahead path, answered from the name index only
+                    String typeahead = param(exchange, "query");
+                    if (typeahead != null) {
+                        String limitParam = param(exchange, "limit");
+                        int limit = 10;
+                        try {
+                            if (limitParam != null) {
+                                limit = Math.min(Math.max(Integer.parseInt(limitParam), 1), 50);
+                            }
+                        } catch (NumberFormatException e) {
+                        }
+
+                        List<Map<String, Object>> suggestions = new ArrayList<>();
+                        for (PlayerNameIndex.Entry entry : userDataManager.getNameIndex().findByPrefix(
+                                java.net.URLDecoder.decode(typeahead, StandardCharsets.UTF_8), limit, 0)) {
+                            Map<String, Object> suggestion = new HashMap<>();
+                            suggestion.put("playerName", entry.getPlayerName());
+                            suggestion.put("playerUUID", entry.getPlayerUUID().toString());
+                            suggestions.add(suggestion);
+                        }
+
+                        sendJsonResponse(exchange, Map.of("players", suggestions), 200);
+                        return;
+                    }
+
+                    int limit = Math.max(1, parsePageParam(param(exchange, "limit"), 100, 500));
+                    int offset = parsePageParam(param(exchange, "offset"), 0, Integer.MAX_VALUE);
+                    long totalPlayers = userDataManager.countPlayers();
+
+                    sendJsonStream(exchange, 200, writer -> {
+                        writer.name("players").beginArray();
+                        userDataManager.forEachPlayer(offset, limit, player -> writeDocument(writer, player));
+                        writer.endArray();
+                        writer.name("totalPlayers").value(totalPlayers);
+                        writer.name("onlinePlayers").value(plugin.getPlayerRegistry().size());
+                        writer.name("limit").value(limit);
+                        writer.name("offset").value(offset);
+                    });
 
                 } catch (Exception e) {
                     sendErrorResponse(exchange, "Internal server error", 500);
@@ -1495,32 +2176,37 @@ public class EmbeddedWebServer {
     private class SearchPlayersHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String searchQuery = getQueryParam(query, "query");
-                    String limitParam = getQueryParam(query, "limit");
+                    String searchQuery = param(exchange, "query");
+                    String limitParam = param(exchange, "limit");
+                    String offsetParam = param(exchange, "offset");
 
                     if (searchQuery == null) {
                         sendErrorResponse(exchange, "Query parameter is required", 400);
                         return;
                     }
 
-                    List<Document> players = userDataManager.searchPlayersByName(searchQuery);
-                    
-                    if (limitParam != null) {
-                        try {
-                            int limit = Integer.parseInt(limitParam);
-                            if (players.size() > limit) {
-                                players = players.subList(0, limit);
-                            }
-                        } catch (NumberFormatException e) {
+                    int limit = 20;
+                    int offset = 0;
+                    try {
+                        if (limitParam != null) {
+                            limit = Math.min(Math.max(Integer.parseInt(limitParam), 1), 50);
                         }
+                        if (offsetParam != null) {
+                            offset = Math.max(Integer.parseInt(offsetParam), 0);
+                        }
+                    } catch (NumberFormatException e) {
                     }
 
-                    Map<String, Object> response = Map.of("players", players);
+                    searchQuery = java.net.URLDecoder.decode(searchQuery, StandardCharsets.UTF_8);
+                    List<Document> players = userDataManager.searchPlayersByName(searchQuery, limit, offset);
+
+                    Map<String, Object> response = Map.of(
+                        "players", players,
+                        "limit", limit,
+                        "offset", offset
+                    );
                     sendJsonResponse(exchange, response, 200);
 
                 } catch (Exception e) {
@@ -1535,19 +2221,20 @@ public class EmbeddedWebServer {
     private class IncomingFriendRequestsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
                     }
 
-                    List<Document> requests = friendManager.getIncomingFriendRequests(UUID.fromString(playerUUID));
+                    // on its own the one-sided query is cheaper, in a batch the other side is usually wanted too
+                    UUID playerId = UUID.fromString(playerUUID);
+                    List<Document> requests = inBatch(exchange)
+                        ? requestsOverview(exchange, playerId).getList("incoming", Document.class)
+                        : friendManager.getIncomingFriendRequests(playerId);
                     Map<String, Object> response = Map.of("requests", requests);
                     sendJsonResponse(exchange, response, 200);
 
@@ -1563,19 +2250,20 @@ public class EmbeddedWebServer {
     private class OutgoingFriendRequestsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
                     }
 
-                    List<Document> requests = friendManager.getOutgoingFriendRequests(UUID.fromString(playerUUID));
+                    // on its own the one-sided query is cheaper, in a batch the other side is usually wanted too
+                    UUID playerId = UUID.fromString(playerUUID);
+                    List<Document> requests = inBatch(exchange)
+                        ? requestsOverview(exchange, playerId).getList("outgoing", Document.class)
+                        : friendManager.getOutgoingFriendRequests(playerId);
                     Map<String, Object> response = Map.of("requests", requests);
                     sendJsonResponse(exchange, response, 200);
 
@@ -1591,20 +2279,27 @@ public class EmbeddedWebServer {
     private class FriendStatsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String playerUUID = getQueryParam(query, "playerUUID");
+                    String playerUUID = param(exchange, "playerUUID");
 
                     if (playerUUID == null) {
                         sendErrorResponse(exchange, "Player UUID required", 400);
                         return;
                     }
 
-                    Document stats = friendManager.getFriendStats(UUID.fromString(playerUUID));
-                    Map<String, Object> response = Map.of("stats", stats);
+                    UUID playerId = UUID.fromString(playerUUID);
+                    Document stats = friendManager.getFriendStats(playerId);
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("stats", stats);
+
+                    // lets the friends page pick up both request lists with the stats call
+                    if ("true".equals(param(exchange, "includeRequests"))) {
+                        Document overview = requestsOverview(exchange, playerId);
+                        response.put("incoming", overview.getList("incoming", Document.class));
+                        response.put("outgoing", overview.getList("outgoing", Document.class));
+                    }
+
                     sendJsonResponse(exchange, response, 200);
 
                 } catch (Exception e) {
@@ -1619,8 +2314,6 @@ public class EmbeddedWebServer {
     private class CancelFriendRequestHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1648,12 +2341,9 @@ public class EmbeddedWebServer {
     private class GroupMembersHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String groupId = getQueryParam(query, "groupId");
+                    String groupId = param(exchange, "groupId");
 
                     if (groupId == null) {
                         sendErrorResponse(exchange, "Group ID required", 400);
@@ -1670,14 +2360,12 @@ public class EmbeddedWebServer {
 
                     members.forEach(member -> {
                         String memberName = member.getString("playerName");
-                        Player onlineMember = Bukkit.getPlayerExact(memberName);
-                        member.append("online", onlineMember != null && onlineMember.isOnline());
-
-                        if (onlineMember != null && onlineMember.isOnline()) {
-                            String cleanRank = plugin.getRankManager().getCleanRank(onlineMember);
-                            String formattedRank = plugin.getRankManager().getFormattedRank(onlineMember);
-                            member.append("rank", cleanRank);
-                            member.append("formattedRank", formattedRank);
+                        OnlinePlayer onlineMember = plugin.getPlayerRegistry().getByName(memberName);
+                        member.append("online", onlineMember != null);
+
+                        if (onlineMember != null) {
+                            member.append("rank", onlineMember.getRank());
+                            member.append("formattedRank", onlineMember.getFormattedRank());
                         }
                     });
 
@@ -1696,8 +2384,6 @@ public class EmbeddedWebServer {
     private class LegacyKickMemberHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
@@ -1733,18 +2419,8 @@ public class EmbeddedWebServer {
                         String groupName = group.getString("groupName");
 
                         List<Document> members = group.getList("members", Document.class);
-                        for (Document member : members) {
-                            String memberName = member.getString("playerName");
-                            Player onlineMember = Bukkit.getPlayerExact(memberName);
-                            if (onlineMember != null && onlineMember.isOnline()) {
-                                onlineMember.sendMessage("§e" + targetName + " was kicked from " + groupName + " by " + adminName + " (via web)");
-                            }
-                        }
-
-                        Player kickedPlayer = Bukkit.getPlayerExact(targetName);
-                        if (kickedPlayer != null && kickedPlayer.isOnline()) {
-                            kickedPlayer.sendMessage("§cYou were kicked from " + groupName + " by " + adminName + ". Reason: " + reason);
-                        }
+                        tellOnline(onlineMembers(members, null), "§e" + targetName + " was kicked from " + groupName + " by " + adminName + " (via web)");
+                        tellOnline(targetName, "§cYou were kicked from " + groupName + " by " + adminName + ". Reason: " + reason);
 
                         Map<String, Object> response = Map.of("success", true, "message", "Member kicked successfully");
                         sendJsonResponse(exchange, response, 200);
@@ -1764,19 +2440,21 @@ public class EmbeddedWebServer {
     private class GroupMessagesHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String groupId = getQueryParam(query, "groupId");
-                    String limit = getQueryParam(query, "limit");
+                    String groupId = param(exchange, "groupId");
+                    String limit = param(exchange, "limit");
 
                     if (groupId == null) {
                         sendErrorResponse(exchange, "Group ID required", 400);
                         return;
                     }
 
+                    if (!sessionInGroup(exchange, UUID.fromString(groupId))) {
+                        sendErrorResponse(exchange, "You are not a member of this group", 403);
+                        return;
+                    }
+
                     int messageLimit = limit != null ? Integer.parseInt(limit) : 50;
                     List<Document> messages = groupManager.getGroupMessages(UUID.fromString(groupId), messageLimit);
 
@@ -1795,39 +2473,33 @@ public class EmbeddedWebServer {
     private class SendGroupMessageHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
                     JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-                    String senderId = json.get("senderId").getAsString();
-                    String senderName = json.get("senderName").getAsString();
+                    String senderId = actingUUID(exchange, json, "senderId");
+                    String senderName = actingName(exchange, json, "senderName");
                     String message = json.get("message").getAsString();
                     String groupId = json.get("groupId").getAsString();
+                    if (senderId == null || senderName == null) {
+                        sendErrorResponse(exchange, "senderId and senderName are required", 400);
+                        return;
+                    }
 
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        Document group = groupManager.getGroup(UUID.fromString(groupId));
-                        if (group != null) {
-                            String groupName = group.getString("groupName");
-                            String format = plugin.getConfig().getString("chat-groups.format",
-                                "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
-                            String formattedMessage = format
-                                    .replace("{group}", groupName)
-                                    .replace("{player}", senderName + " (Web)")
-                                    .replace("{message}", message);
+                    Document group = groupManager.getGroup(UUID.fromString(groupId));
+                    if (group != null) {
+                        String groupName = group.getString("groupName");
+                        String format = plugin.getConfig().getString("chat-groups.format",
+                            "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
+                        String formattedMessage = format
+                                .replace("{group}", groupName)
+                                .replace("{player}", senderName + " (Web)")
+                                .replace("{message}", message);
 
-                            List<Document> members = group.getList("members", Document.class);
-                            for (Document member : members) {
-                                String memberName = member.getString("playerName");
-                                Player onlineMember = Bukkit.getPlayerExact(memberName);
-                                if (onlineMember != null && onlineMember.isOnline()) {
-                                    onlineMember.sendMessage(formattedMessage.replace("&", "§"));
-                                }
-                            }
-                        }
-                    });
+                        List<Document> members = group.getList("members", Document.class);
+                        tellOnline(onlineMembers(members, null), formattedMessage.replace("&", "§"));
+                    }
 
                     Map<String, Object> response = Map.of("success", true);
                     sendJsonResponse(exchange, response, 200);
@@ -1844,12 +2516,9 @@ public class EmbeddedWebServer {
     private class GroupStatsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("GET".equals(exchange.getRequestMethod())) {
                 try {
-                    String query = exchange.getRequestURI().getQuery();
-                    String groupId = getQueryParam(query, "groupId");
+                    String groupId = param(exchange, "groupId");
 
                     if (groupId == null) {
                         sendErrorResponse(exchange, "Group ID required", 400);
@@ -1865,19 +2534,19 @@ public class EmbeddedWebServer {
                     }
 
                     List<Document> members = group.getList("members", Document.class);
-                    List<Document> messages = groupManager.getGroupMessages(groupUUID, 1000); // Get last 1000 messages for stats
+                    GroupStats.Snapshot counters = groupManager.getStats().get(groupUUID.toString());
 
                     int totalMembers = members.size();
                     int onlineMembers = 0;
                     int admins = 0;
                     int moderators = 0;
 
+                    // online members are the ones with a session, no player lookups per member
                     for (Document member : members) {
-                        String memberName = member.getString("playerName");
+                        String memberId = member.getString("playerId");
                         String role = member.getString("role");
 
-                        Player onlinePlayer = Bukkit.getPlayerExact(memberName);
-                        if (onlinePlayer != null && onlinePlayer.isOnline()) {
+                        if (memberId != null && plugin.getSessionManager().get(UUID.fromString(memberId)) != null) {
                             onlineMembers++;
                         }
 
@@ -1888,63 +2557,11 @@ public class EmbeddedWebServer {
                         }
                     }
 
-                    int totalMessages = messages.size();
-                    long todayMessages = messages.stream()
-                        .mapToLong(msg -> {
-                            try {
-                                Object timestamp = msg.get("timestamp");
-                                if (timestamp instanceof String) {
-                                    return Long.parseLong((String) timestamp);
-                                } else if (timestamp instanceof Long) {
-                                    return (Long) timestamp;
-                                } else if (timestamp instanceof Number) {
-                                    return ((Number) timestamp).longValue();
-                                }
-                                return 0L; 
-                            } catch (Exception e) {
-                                return 0L; 
-                            }
-                        })
-                        .filter(timestamp -> {
-                            long oneDayAgo = System.currentTimeMillis() - (24 * 60 * 60 * 1000);
-                            return timestamp > oneDayAgo;
-                        })
-                        .count();
-
-                    long weekMessages = messages.stream()
-                        .mapToLong(msg -> {
-                            try {
-                                Object timestamp = msg.get("timestamp");
-                                if (timestamp instanceof String) {
-                                    return Long.parseLong((String) timestamp);
-                                } else if (timestamp instanceof Long) {
-                                    return (Long) timestamp;
-                                } else if (timestamp instanceof Number) {
-                                    return ((Number) timestamp).longValue();
-                                }
-                                return 0L; 
-                            } catch (Exception e) {
-                                return 0L;
-                            }
-                        })
-                        .filter(timestamp -> {
-                            long oneWeekAgo = System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000);
-                            return timestamp > oneWeekAgo;
-                        })
-                        .count();
-
-                    Map<String, Long> memberMessageCounts = new HashMap<>();
-                    for (Document message : messages) {
-                        String sender = message.getString("senderName");
-                        memberMessageCounts.put(sender, memberMessageCounts.getOrDefault(sender, 0L) + 1);
-                    }
-
-                    String mostActiveMember = memberMessageCounts.entrySet().stream()
-                        .max(Map.Entry.comparingByValue())
-                        .map(Map.Entry::getKey)
-                        .orElse("N/A");
-
-                    long mostActiveCount = memberMessageCounts.getOrDefault(mostActiveMember, 0L);
+                    long totalMessages = counters.getTotal();
+                    long todayMessages = counters.getToday();
+                    long weekMessages = counters.getThisWeek();
+                    String mostActiveMember = counters.getMostActiveMember();
+                    long mostActiveCount = counters.getMostActiveCount();
 
                     long groupAge = System.currentTimeMillis() - group.getLong("createdDate");
                     double daysSinceCreation = Math.max(1, groupAge / (24.0 * 60 * 60 * 1000));
@@ -1985,12 +2602,13 @@ public class EmbeddedWebServer {
                     ownerInfo.put("name", group.getString("ownerName"));
                     ownerInfo.put("uuid", group.getString("ownerId"));
 
-                    Player ownerPlayer = Bukkit.getPlayerExact(group.getString("ownerName"));
-                    ownerInfo.put("online", ownerPlayer != null && ownerPlayer.isOnline());
+                    String ownerId = group.getString("ownerId");
+                    PlayerSession ownerSession = ownerId != null ? plugin.getSessionManager().get(UUID.fromString(ownerId)) : null;
+                    ownerInfo.put("online", ownerSession != null);
 
-                    if (ownerPlayer != null && ownerPlayer.isOnline()) {
-                        ownerInfo.put("rank", plugin.getRankManager().getCleanRank(ownerPlayer));
-                        ownerInfo.put("formattedRank", plugin.getRankManager().getFormattedRank(ownerPlayer));
+                    if (ownerSession != null) {
+                        ownerInfo.put("rank", ownerSession.getCleanRank());
+                        ownerInfo.put("formattedRank", ownerSession.getFormattedRank());
                     }
                     stats.put("owner", ownerInfo);
 
@@ -2015,16 +2633,145 @@ public class EmbeddedWebServer {
         return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
     }
 
+    // streamed straight from gson into the response, nothing bigger than the compression threshold is held in memory
     private void sendJsonResponse(HttpExchange exchange, Object data, int statusCode) throws IOException {
-        String jsonResponse = gson.toJson(data);
-        byte[] responseBytes = jsonResponse.getBytes(StandardCharsets.UTF_8);
+        ResponseStream body = openBody(exchange, statusCode);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        try {
+            gson.toJson(data, writer);
+            writer.close();
+        } catch (JsonIOException e) {
+            body.abort();
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+    }
+
+    private ResponseStream openBody(HttpExchange exchange, int statusCode) {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        String encoding = null;
+        if (compressionEnabled) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            encoding = ResponseStream.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        }
+        return new ResponseStream(exchange, statusCode, compressionThreshold, encoding);
+    }
+
+    private interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private interface CachedBody {
+        // the json to send, or null when the render already answered with an error
+        byte[] render() throws IOException;
+    }
+
+    // GET answers that rarely change: rendered once per endpoint ttl and dropped by the manager listeners,
+    // clients that send back the ETag they have get a bodyless 304
+    private void sendCachedJson(HttpExchange exchange, String scope, String endpoint, CachedBody body) throws IOException {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String key = exchange.getRequestURI().getPath() + (rawQuery != null ? "?" + rawQuery : "");
+        long ttl = responseTtls.getOrDefault(endpoint, 0L);
+
+        ResponseCache.Entry entry = ttl > 0 ? responseCache.get(key) : null;
+        if (entry == null) {
+            long generation = responseCache.generation(scope);
+            byte[] rendered = body.render();
+            if (rendered == null) {
+                return;
+            }
+            entry = ttl > 0 ? responseCache.put(scope, key, rendered, ttl, generation) : responseCache.uncached(rendered);
+        }
+
+        // the compressed copy is made once per entry and has its own etag, a cached gzip body is never re-compressed
+        String encoding = null;
+        if (compressionEnabled) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (entry.getBody().length >= compressionThreshold) {
+                encoding = ResponseStream.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            }
+        }
+        String etag = entry.getEtag(encoding);
+
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (ResponseCache.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            responseCache.recordNotModified();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = encoding != null ? entry.getCompressed(encoding) : entry.getBody();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private byte[] toJsonBytes(Object data) {
+        return gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // same shape as sendJsonStream, but into memory so the result can be cached
+    private byte[] toJsonBytes(JsonBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            body.write(writer);
+            writer.endObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return out.toByteArray();
+    }
+
+    // response written straight from the cursor (chunked and compressed once it's past the threshold),
+    // the body is wrapped in one top level object
+    // once headers are out an error can only cut the stream short, so callers should validate first
+    private void sendJsonStream(HttpExchange exchange, int statusCode, JsonBody body) throws IOException {
+        ResponseStream out = openBody(exchange, statusCode);
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        try {
+            writer.beginObject();
+            body.write(writer);
+            writer.endObject();
+            writer.close();
+        } catch (UncheckedIOException e) {
+            out.abort();
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            if (!out.abort()) {
+                throw e;
+            }
+            // headers are already sent, all we can do is log and drop the connection
+            plugin.getLogger().warning("Streamed response aborted: " + e.getMessage());
+        }
+    }
 
-        exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+    private void writeDocument(JsonWriter writer, Document document) {
+        try {
+            gson.toJson(document, Map.class, writer);
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException("Failed to write document", e));
+        }
+    }
 
-        OutputStream outputStream = exchange.getResponseBody();
-        outputStream.write(responseBytes);
-        outputStream.close();
+    private int parsePageParam(String value, int defaultValue, int max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.min(Math.max(Integer.parseInt(value), 0), max);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     private void sendErrorResponse(HttpExchange exchange, String error, int statusCode) throws IOException {
@@ -2032,28 +2779,81 @@ public class EmbeddedWebServer {
         sendJsonResponse(exchange, errorResponse, statusCode);
     }
 
-    private String getQueryParam(String query, String param) {
-        if (query == null) return null;
+    private String param(HttpExchange exchange, String name) {
+        return RequestParams.of(exchange).get(name);
+    }
+
+    // a web pm goes in game right away through the delivery queue and is then stored. web sessions hear about it and
+    // the caller gets its answer once mongo has acknowledged the write, the request stays open meanwhile without holding a thread
+    private void sendPrivateMessage(HttpExchange exchange, String senderName, UUID senderUUID,
+                                    String targetName, UUID targetUUID, String message, OnlinePlayer target) {
+        if (target != null) {
+            String format = plugin.getConfig().getString("private-messages.format",
+                "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
+
+            String formattedMessage = format
+                .replace("{sender}", senderName + " (Web)")
+                .replace("{receiver}", target.getPlayerName())
+                .replace("{message}", message);
+
+            plugin.getDeliveryQueue().send(target.getPlayerId(), formattedMessage.replace("&", "§"));
+        }
+
+        CompletableFuture<Boolean> stored = plugin.getDatabaseManager() != null
+                ? plugin.getDatabaseManager().storePrivateMessage(senderName, senderUUID, targetName, targetUUID, message, "web")
+                : CompletableFuture.completedFuture(false);
+
+        // off the writer thread, it has the next batch to get to
+        stored.whenComplete((persisted, error) -> resume(() -> {
+            if (plugin.getWebAPIHandler() != null) {
+                plugin.getWebAPIHandler().broadcastMinecraftMessage(senderUUID, senderName, message,
+                    "friend_message", targetUUID);
+            }
 
-        for (String pair : query.split("&")) {
-            String[] keyValue = pair.split("=");
-            if (keyValue.length == 2 && keyValue[0].equals(param)) {
-                return keyValue[1];
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "targetName", targetName,
+                "timestamp", System.currentTimeMillis(),
+                "delivered", target != null,
+                "stored", Boolean.TRUE.equals(persisted)
+            );
+            try {
+                sendJsonResponse(exchange, response, 200);
+            } catch (IOException e) {
+                exchange.close();
             }
+        }));
+    }
+
+    // in-game message from a web thread: who's online comes from the registry, the send goes through the delivery queue
+    private void tellOnline(List<OnlinePlayer> recipients, String message) {
+        for (OnlinePlayer recipient : recipients) {
+            plugin.getDeliveryQueue().send(recipient.getPlayerId(), message);
         }
-        return null;
     }
 
-    private UUID getPlayerUUID(String playerName) {
-        UUID uuid = userDataManager.getPlayerUUIDByName(playerName);
-        return uuid != null ? uuid : UUID.nameUUIDFromBytes(("OfflinePlayer:" + playerName).getBytes());
+    private void tellOnline(String playerName, String message) {
+        OnlinePlayer recipient = plugin.getPlayerRegistry().getByName(playerName);
+        if (recipient != null) {
+            tellOnline(List.of(recipient), message);
+        }
     }
 
-    private String getPlayerNameByUUID(UUID playerUUID) {
-        Player player = Bukkit.getPlayer(playerUUID);
-        if (player != null) {
-            return player.getName();
+    // the members of a group document that are online right now, minus one name (the actor) when given
+    private List<OnlinePlayer> onlineMembers(List<Document> members, String except) {
+        List<OnlinePlayer> online = new ArrayList<>();
+        for (Document member : members) {
+            String memberName = member.getString("playerName");
+            OnlinePlayer onlineMember = plugin.getPlayerRegistry().getByName(memberName);
+            if (onlineMember != null && !memberName.equals(except)) {
+                online.add(onlineMember);
+            }
         }
+        return online;
+    }
+
+    // online players are in the name index too, so this never needs bukkit
+    private String getPlayerNameByUUID(UUID playerUUID) {
         String playerName = userDataManager.getPlayerNameByUUID(playerUUID);
         return playerName != null ? playerName : "Unknown Player";
     }
@@ -2061,8 +2861,6 @@ public class EmbeddedWebServer {
     private class UpdateGroupHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            new CORSHandler().handle(exchange);
-
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     String requestBody = readRequestBody(exchange);
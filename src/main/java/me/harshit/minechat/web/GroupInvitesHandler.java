@@ -31,15 +31,6 @@ public class GroupInvitesHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
-
-        if ("OPTIONS".equals(exchange.getRequestMethod())) {
-            exchange.sendResponseHeaders(200, -1);
-            return;
-        }
-
         try {
             if ("GET".equals(exchange.getRequestMethod())) {
                 handleGetGroupInvites(exchange);
@@ -55,15 +46,9 @@ public class GroupInvitesHandler implements HttpHandler {
 
     private void handleGetGroupInvites(HttpExchange exchange) throws IOException {
         try {
-            String query = exchange.getRequestURI().getQuery();
-            if (query == null || !query.contains("playerUUID=")) {
-                sendErrorResponse(exchange, 400, "Missing playerUUID parameter");
-                return;
-            }
-
-            String playerUUIDStr = extractPlayerUUID(query);
+            String playerUUIDStr = RequestParams.of(exchange).get("playerUUID");
             if (playerUUIDStr == null) {
-                sendErrorResponse(exchange, 400, "Invalid playerUUID parameter");
+                sendErrorResponse(exchange, 400, "Missing playerUUID parameter");
                 return;
             }
 
@@ -101,16 +86,6 @@ public class GroupInvitesHandler implements HttpHandler {
         }
     }
 
-    private String extractPlayerUUID(String query) {
-        String[] params = query.split("&");
-        for (String param : params) {
-            if (param.startsWith("playerUUID=")) {
-                return param.substring("playerUUID=".length());
-            }
-        }
-        return null;
-    }
-
     private void sendSuccessResponse(HttpExchange exchange, JsonObject data) throws IOException {
         String response = gson.toJson(data);
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
@@ -8,9 +8,8 @@ import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
 import me.harshit.minechat.api.GroupMember;
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.database.OnlinePlayerRegistry.OnlinePlayer;
 import org.bson.Document;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -90,25 +89,30 @@ public class GroupMembersHandler implements HttpHandler {
             List<GroupMember> members = group.getMembers();
             List<Map<String, Object>> memberList = new ArrayList<>();
 
+            // the name stored with a member is the one they joined under, current names come in one bulk lookup
+            List<UUID> memberIds = new ArrayList<>();
+            for (GroupMember member : members) {
+                memberIds.add(member.getPlayerId());
+            }
+            Map<UUID, String> currentNames = plugin.getUserDataManager().getPlayerResolver().resolveNames(memberIds);
+
             for (GroupMember member : members) {
                 Map<String, Object> memberData = new HashMap<>();
                 memberData.put("playerUUID", member.getPlayerId().toString());
                 memberData.put("playerId", member.getPlayerId().toString());
-                memberData.put("playerName", member.getPlayerName());
+                memberData.put("playerName", currentNames.getOrDefault(member.getPlayerId(), member.getPlayerName()));
                 memberData.put("role", member.getRole().name());
                 memberData.put("roleDisplayName", member.getRole().getDisplayName());
                 memberData.put("joinedAt", member.getJoinedDate().toInstant(ZoneOffset.UTC).toEpochMilli());
                 memberData.put("joinedDate", member.getJoinedDate().toString());
 
-                Player onlinePlayer = Bukkit.getPlayer(member.getPlayerId());
-                memberData.put("online", onlinePlayer != null && onlinePlayer.isOnline());
+                OnlinePlayer onlinePlayer = plugin.getPlayerRegistry().get(member.getPlayerId());
+                memberData.put("online", onlinePlayer != null);
 
                 // add rank information if player is online
-                if (onlinePlayer != null && onlinePlayer.isOnline()) {
-                    String rank = plugin.getRankManager().getPlayerRank(onlinePlayer);
-                    String formattedRank = plugin.getRankManager().getFormattedRank(onlinePlayer);
-                    memberData.put("rank", rank);
-                    memberData.put("formattedRank", formattedRank);
+                if (onlinePlayer != null) {
+                    memberData.put("rank", onlinePlayer.getRank());
+                    memberData.put("formattedRank", onlinePlayer.getFormattedRank());
                 } else {
                     memberData.put("rank", "");
                     memberData.put("formattedRank", "");
@@ -0,0 +1,214 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpPrincipal;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// lets the existing HttpHandlers run on jetty unchanged: an HttpExchange backed by an async servlet request
+// the request stays open after handle() returns (handlers may answer from another thread, like auth does)
+// and completes when the handler closes the response body or the exchange
+class JettyExchange extends RoutedExchange {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final AsyncContext async;
+    private final URI requestURI;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+
+    private InputStream requestBody;
+    private OutputStream responseBody;
+    // the handler and the async timeout may both try to answer, only the first one gets to send headers
+    private final AtomicBoolean responded = new AtomicBoolean();
+    private volatile int responseCode = -1;
+
+    JettyExchange(HttpServletRequest request, HttpServletResponse response, AsyncContext async) {
+        this.request = request;
+        this.response = response;
+        this.async = async;
+
+        String query = request.getQueryString();
+        this.requestURI = URI.create(request.getRequestURI() + (query != null ? "?" + query : ""));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            requestHeaders.put(name, Collections.list(request.getHeaders(name)));
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.getMethod();
+    }
+
+    // there are no jdk contexts behind this, nothing in the handlers asks for one
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (!markClosed()) {
+            return;
+        }
+        try {
+            if (responseCode == -1) {
+                response.setStatus(500);
+                response.setContentLength(0);
+            }
+            response.getOutputStream().close();
+        } catch (IOException ignored) {
+            // client went away, nothing left to answer
+        } finally {
+            async.complete();
+            runOnClose();
+        }
+    }
+
+    // the async timeout's answer, only if the handler hasn't started one. the exchange is marked closed before anything is
+    // written, so a handler finishing late can neither send headers nor complete the request underneath it
+    boolean timeOut(String json) {
+        if (!responded.compareAndSet(false, true) || !markClosed()) {
+            return false;
+        }
+        responseCode = 503;
+        try {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            response.setStatus(503);
+            for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+            response.setContentType("application/json");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            response.getOutputStream().close();
+        } catch (IOException ignored) {
+            // client went away, nothing left to answer
+        } finally {
+            async.complete();
+            runOnClose();
+        }
+        return true;
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        if (requestBody == null) {
+            try {
+                requestBody = request.getInputStream();
+            } catch (IOException e) {
+                requestBody = InputStream.nullInputStream();
+            }
+        }
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        if (responseBody == null) {
+            try {
+                OutputStream out = response.getOutputStream();
+                responseBody = new FilterOutputStream(out) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() {
+                        JettyExchange.this.close();
+                    }
+                };
+            } catch (IOException e) {
+                responseBody = OutputStream.nullOutputStream();
+            }
+        }
+        return responseBody;
+    }
+
+    // same contract as the jdk server: length > 0 is exact, 0 streams (chunked), -1 means no body
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (!responded.compareAndSet(false, true)) {
+            throw new IOException("headers already sent");
+        }
+        responseCode = rCode;
+        response.setStatus(rCode);
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                response.addHeader(header.getKey(), value);
+            }
+        }
+        if (responseLength > 0) {
+            response.setContentLengthLong(responseLength);
+        } else if (responseLength == -1) {
+            response.setContentLength(0);
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return new InetSocketAddress(request.getRemoteAddr(), request.getRemotePort());
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress(request.getLocalAddr(), request.getLocalPort());
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.getProtocol();
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        if (in != null) {
+            requestBody = in;
+        }
+        if (out != null) {
+            responseBody = out;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+}
@@ -26,15 +26,6 @@ public class JoinGroupByCodeHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "POST, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
-
-        if ("OPTIONS".equals(exchange.getRequestMethod())) {
-            exchange.sendResponseHeaders(200, -1);
-            return;
-        }
-
         try {
             if ("POST".equals(exchange.getRequestMethod())) {
                 handleJoinGroupByCode(exchange);
@@ -53,13 +44,13 @@ public class JoinGroupByCodeHandler implements HttpHandler {
             String requestBody = readRequestBody(exchange);
             JsonObject json = gson.fromJson(requestBody, JsonObject.class);
 
-            if (!json.has("playerUUID") || !json.has("playerName") || !json.has("inviteCode")) {
+            String playerUUIDStr = EmbeddedWebServer.actingUUID(exchange, json, "playerUUID");
+            String playerName = EmbeddedWebServer.actingName(exchange, json, "playerName");
+            if (playerUUIDStr == null || playerName == null || !json.has("inviteCode")) {
                 sendErrorResponse(exchange, 400, "Missing required parameters: playerUUID, playerName, or inviteCode");
                 return;
             }
 
-            String playerUUIDStr = json.get("playerUUID").getAsString();
-            String playerName = json.get("playerName").getAsString();
             String inviteCode = json.get("inviteCode").getAsString();
 
             UUID playerUUID = UUID.fromString(playerUUIDStr);
@@ -9,8 +9,6 @@ import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
 import me.harshit.minechat.api.GroupMember;
 import me.harshit.minechat.database.GroupManager;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -35,15 +33,6 @@ public class KickMemberHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
-
-        if ("OPTIONS".equals(exchange.getRequestMethod())) {
-            exchange.sendResponseHeaders(200, -1);
-            return;
-        }
-
         try {
             if ("POST".equals(exchange.getRequestMethod())) {
                 String path = exchange.getRequestURI().getPath();
@@ -139,36 +128,34 @@ public class KickMemberHandler implements HttpHandler {
             boolean success = groupManager.kickMember(groupUUID, targetId, adminId, reason);
 
             if (success) {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    String adminName = getPlayerNameByUUID(adminId);
-                    String targetName = getPlayerNameByUUID(targetId);
-                    String groupName = group.getString("groupName");
-
-                    List<Document> updatedMembers = group.getList("members", Document.class);
-                    for (Document member : updatedMembers) {
-                        String memberIdStr = member.getString("playerId");
-                        if (memberIdStr != null) {
-                            try {
-                                UUID memberId = UUID.fromString(memberIdStr);
-                                Player onlineMember = Bukkit.getPlayer(memberId);
-                                if (onlineMember != null && onlineMember.isOnline()) {
-                                    onlineMember.sendMessage("§e" + targetName + " was kicked from " + groupName + " by " + adminName + " (via web)");
-                                }
-                            } catch (IllegalArgumentException e) {
+                String adminName = getPlayerNameByUUID(adminId);
+                String targetName = getPlayerNameByUUID(targetId);
+                String groupName = group.getString("groupName");
+
+                List<UUID> onlineMembers = new ArrayList<>();
+                List<Document> updatedMembers = group.getList("members", Document.class);
+                for (Document member : updatedMembers) {
+                    String memberIdStr = member.getString("playerId");
+                    if (memberIdStr != null) {
+                        try {
+                            UUID memberId = UUID.fromString(memberIdStr);
+                            if (plugin.getPlayerRegistry().isOnline(memberId)) {
+                                onlineMembers.add(memberId);
                             }
+                        } catch (IllegalArgumentException e) {
                         }
                     }
+                }
+                plugin.getDeliveryQueue().send(onlineMembers, "§e" + targetName + " was kicked from " + groupName + " by " + adminName + " (via web)");
 
-                    Player kickedPlayer = Bukkit.getPlayer(targetId);
-                    if (kickedPlayer != null && kickedPlayer.isOnline()) {
-                        kickedPlayer.sendMessage("§cYou were kicked from " + groupName + " by " + adminName + ". Reason: " + reason);
-                    }
-                });
+                if (plugin.getPlayerRegistry().isOnline(targetId)) {
+                    plugin.getDeliveryQueue().send(targetId, "§cYou were kicked from " + groupName + " by " + adminName + ". Reason: " + reason);
+                }
 
                 JsonObject response = new JsonObject();
                 response.addProperty("success", true);
                 response.addProperty("message", "Member kicked successfully");
-                response.addProperty("kickedPlayer", getPlayerNameByUUID(targetId));
+                response.addProperty("kickedPlayer", targetName);
                 response.addProperty("reason", reason);
 
                 sendJsonResponse(exchange, 200, response);
@@ -184,11 +171,6 @@ public class KickMemberHandler implements HttpHandler {
     }
 
     private String getPlayerNameByUUID(UUID playerUUID) {
-        Player player = Bukkit.getPlayer(playerUUID);
-        if (player != null) {
-            return player.getName();
-        }
-
         String playerName = plugin.getUserDataManager().getPlayerNameByUUID(playerUUID);
         return playerName != null ? playerName : "Unknown Player";
     }
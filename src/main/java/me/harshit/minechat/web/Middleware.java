@@ -0,0 +1,14 @@
+package me.harshit.minechat.web;
+
+import java.io.IOException;
+
+// one step in front of the route handlers, either calls next.proceed() or answers the exchange itself
+// route is null when nothing matched the path, the end of the chain turns that into a 404
+interface Middleware {
+
+    void handle(RoutedExchange exchange, Router.Route route, Chain next) throws IOException;
+
+    interface Chain {
+        void proceed() throws IOException;
+    }
+}
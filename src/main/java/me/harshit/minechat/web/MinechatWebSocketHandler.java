@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import me.harshit.minechat.Minechat;
+import me.harshit.minechat.database.PasswordVerifier;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
@@ -12,6 +13,8 @@ import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -119,26 +122,53 @@ public class MinechatWebSocketHandler extends WebSocketAdapter {
         }
     }
 
+    private String remoteAddress() {
+        Session session = getSession();
+        SocketAddress remote = session != null ? session.getRemoteAddress() : null;
+        if (remote instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            return inet.getAddress().getHostAddress();
+        }
+        return "unknown";
+    }
+
     private void handleAuthentication(JsonObject data) {
         try {
+            if (data.has("token")) {
+                boolean authenticated = apiHandler.authenticateSession(sessionId, data.get("token").getAsString());
+                JsonObject response = new JsonObject();
+                response.addProperty("type", "auth_response");
+                response.addProperty("success", authenticated);
+                response.addProperty("message", authenticated ? "Authentication successful" : "Invalid or expired session");
+                sendMessage(getSession(), response);
+                return;
+            }
+
             String username = data.get("username").getAsString();
             String password = data.get("password").getAsString();
 
-            boolean authenticated = apiHandler.authenticateSession(sessionId, username, password);
-
-            JsonObject response = new JsonObject();
-            response.addProperty("type", "auth_response");
-            response.addProperty("success", authenticated);
-
-            if (authenticated) {
-                response.addProperty("message", "Authentication successful");
-                response.addProperty("username", username);
-            } else {
-                response.addProperty("message", "Authentication failed");
-                plugin.getLogger().warning("WebSocket authentication failed for: " + username);
-            }
+            // answered from the auth executor so the jetty thread isn't held while the password hashes
+            apiHandler.authenticateSession(sessionId, username, password, remoteAddress()).whenComplete((result, error) -> {
+                boolean authenticated = error == null && result == PasswordVerifier.Result.VALID;
+
+                JsonObject response = new JsonObject();
+                response.addProperty("type", "auth_response");
+                response.addProperty("success", authenticated);
+
+                if (authenticated) {
+                    response.addProperty("message", "Authentication successful");
+                    response.addProperty("username", username);
+                    response.addProperty("token", apiHandler.issueSessionToken(sessionId));
+                } else if (result == PasswordVerifier.Result.LOCKED) {
+                    response.addProperty("message", "Too many failed attempts, try again later");
+                } else if (error != null || result == PasswordVerifier.Result.BUSY) {
+                    response.addProperty("message", "Authentication is busy, try again shortly");
+                } else {
+                    response.addProperty("message", "Authentication failed");
+                    plugin.getLogger().warning("WebSocket authentication failed for: " + username);
+                }
 
-            sendMessage(getSession(), response);
+                sendMessage(getSession(), response);
+            });
 
         } catch (Exception e) {
             if (!Minechat.QUIET_WS_LOGS) plugin.getLogger().warning("Error during WebSocket authentication: " + e.getMessage());
@@ -12,6 +12,8 @@ public class MinechatWebSocketServer {
     private final WebAPIHandler apiHandler;
     private final int port;
     private Server server;
+    // the rest server when /ws is mounted on its port, that server owns the lifecycle
+    private Server sharedServer;
 
     public MinechatWebSocketServer(Minechat plugin, WebAPIHandler apiHandler, int port) {
         this.plugin = plugin;
@@ -19,7 +21,29 @@ public class MinechatWebSocketServer {
         this.port = port;
     }
 
+    // called by EmbeddedWebServer before it starts
+    void attach(Server server, ServletContextHandler context) {
+        this.sharedServer = server;
+        configure(context);
+    }
+
+    private void configure(ServletContextHandler context) {
+        JettyWebSocketServletContainerInitializer.configure(context, (servletContext, wsContainer) -> {
+            wsContainer.setMaxTextMessageSize(65536);
+            wsContainer.setIdleTimeout(java.time.Duration.ofMinutes(10));
+
+            wsContainer.addMapping("/ws", (upgradeRequest, upgradeResponse) ->
+                new MinechatWebSocketHandler(plugin, apiHandler));
+        });
+    }
+
     public void start() {
+        // already served by the rest server, only falls back to its own port when that one didn't come up
+        if (sharedServer != null && sharedServer.isRunning()) {
+            return;
+        }
+        sharedServer = null;
+
         // Stop any existing server first
         stop();
 
@@ -37,13 +61,7 @@ public class MinechatWebSocketServer {
             context.setContextPath("/");
             server.setHandler(context);
 
-            JettyWebSocketServletContainerInitializer.configure(context, (servletContext, wsContainer) -> {
-                wsContainer.setMaxTextMessageSize(65536);
-                wsContainer.setIdleTimeout(java.time.Duration.ofMinutes(10));
-
-                wsContainer.addMapping("/ws", (upgradeRequest, upgradeResponse) ->
-                    new MinechatWebSocketHandler(plugin, apiHandler));
-            });
+            configure(context);
 
             server.start();
             plugin.getLogger().info("WebSocket server started on port " + port);
@@ -108,13 +126,7 @@ public class MinechatWebSocketServer {
                 context.setContextPath("/");
                 server.setHandler(context);
 
-                JettyWebSocketServletContainerInitializer.configure(context, (servletContext, wsContainer) -> {
-                    wsContainer.setMaxTextMessageSize(65536);
-                    wsContainer.setIdleTimeout(java.time.Duration.ofMinutes(10));
-
-                    wsContainer.addMapping("/ws", (upgradeRequest, upgradeResponse) ->
-                        new MinechatWebSocketHandler(plugin, apiHandler));
-                });
+                configure(context);
 
                 server.start();
                 plugin.getLogger().info("✓ WebSocket server started successfully on alternative port " + altPort);
@@ -133,6 +145,12 @@ public class MinechatWebSocketServer {
     }
 
     public void stop() {
+        if (sharedServer != null) {
+            MinechatWebSocketHandler.cleanup();
+            sharedServer = null;
+            return;
+        }
+
         if (server != null) {
             try {
                 MinechatWebSocketHandler.cleanup();
@@ -162,12 +180,14 @@ public class MinechatWebSocketServer {
     }
 
     public boolean isRunning() {
-        return server != null && server.isRunning();
+        Server current = sharedServer != null ? sharedServer : server;
+        return current != null && current.isRunning();
     }
 
     public int getPort() {
-        if (server != null && server.getConnectors().length > 0) {
-            ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+        Server current = sharedServer != null ? sharedServer : server;
+        if (current != null && current.getConnectors().length > 0) {
+            ServerConnector connector = (ServerConnector) current.getConnectors()[0];
             return connector.getLocalPort();
         }
         return port;
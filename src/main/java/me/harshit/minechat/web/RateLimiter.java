@@ -0,0 +1,71 @@
+package me.harshit.minechat.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// one token bucket per key (an ip, an account), refilled continuously at ratePerSecond up to burst
+// buckets nobody has touched for a while are full again anyway, they're dropped every so often to keep the map small
+final class RateLimiter {
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int PRUNE_EVERY = 4096;
+
+    private final double ratePerNano;
+    private final double burst;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong limited = new AtomicLong();
+
+    RateLimiter(double ratePerSecond, double burst) {
+        this.ratePerNano = Math.max(0.001, ratePerSecond) / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+    }
+
+    // 0 when the key had a token, otherwise the nanos until it will have one
+    long acquire(String key) {
+        long now = System.nanoTime();
+        if (calls.incrementAndGet() % PRUNE_EVERY == 0) {
+            buckets.values().removeIf(bucket -> bucket.idleSince(now) > IDLE_NANOS);
+        }
+
+        long wait = buckets.computeIfAbsent(key, k -> new Bucket(burst, now)).take(now, ratePerNano, burst);
+        if (wait > 0) {
+            limited.incrementAndGet();
+        }
+        return wait;
+    }
+
+    long getLimited() {
+        return limited.get();
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        private synchronized long take(long now, double ratePerNano, double burst) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerNano);
+        }
+
+        private synchronized long idleSince(long now) {
+            return now - refilledAt;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// the query string decoded once per request, plus the {param} values of the matched route
+// the first value of a repeated key wins and empty values count as missing, same as the old per-handler parsing
+final class RequestParams {
+
+    private static final RequestParams EMPTY = new RequestParams(Map.of());
+
+    private final Map<String, String> values;
+
+    private RequestParams(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static RequestParams parse(String rawQuery, Map<String, String> pathParams) {
+        if ((rawQuery == null || rawQuery.isEmpty()) && pathParams.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery != null) {
+            int start = 0;
+            while (start <= rawQuery.length()) {
+                int end = rawQuery.indexOf('&', start);
+                if (end == -1) {
+                    end = rawQuery.length();
+                }
+                int equals = rawQuery.indexOf('=', start);
+                if (equals > start && equals < end - 1) {
+                    String key = URLDecoder.decode(rawQuery.substring(start, equals), StandardCharsets.UTF_8);
+                    values.putIfAbsent(key, URLDecoder.decode(rawQuery.substring(equals + 1, end), StandardCharsets.UTF_8));
+                }
+                start = end + 1;
+            }
+        }
+        // path segments name the resource, they win over a query param of the same name
+        values.putAll(pathParams);
+        return new RequestParams(values);
+    }
+
+    // the exchange's parsed params, parsed on the spot for an exchange that didn't come through the router
+    static RequestParams of(HttpExchange exchange) {
+        if (exchange instanceof RoutedExchange && ((RoutedExchange) exchange).getParams() != null) {
+            return ((RoutedExchange) exchange).getParams();
+        }
+        return parse(exchange.getRequestURI().getRawQuery(), Map.of());
+    }
+
+    String get(String name) {
+        return values.get(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+}
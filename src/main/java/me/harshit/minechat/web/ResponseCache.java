@@ -0,0 +1,181 @@
+package me.harshit.minechat.web;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// rendered json bodies of the read mostly GET endpoints, keyed by path + query
+// every entry belongs to a scope ("groups", "group:<id>", "ranks"), mutations bump the scope's generation
+// and drop its entries, a render only gets stored if its scope didn't move while it was being built
+class ResponseCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Long> generations = new HashMap<>();
+    private long generation;
+    private long pruneMark;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    ResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    synchronized long generation(String scope) {
+        return generations.getOrDefault(scope, pruneMark);
+    }
+
+    // always hands back an entry for the current response, it is just not kept if the scope changed meanwhile
+    Entry put(String scope, String key, byte[] body, long ttlMillis, long expectedGeneration) {
+        Entry entry = new Entry(scope, body, etag(body), System.currentTimeMillis() + ttlMillis);
+        synchronized (this) {
+            if (generations.getOrDefault(scope, pruneMark) == expectedGeneration) {
+                entries.put(key, entry);
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+                while (entries.size() > maxEntries && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return entry;
+    }
+
+    // etag'd entry that is never stored, for endpoints with caching turned off
+    Entry uncached(byte[] body) {
+        return new Entry(null, body, etag(body), 0);
+    }
+
+    synchronized void invalidate(String scope) {
+        invalidations.incrementAndGet();
+        generations.put(scope, ++generation);
+        entries.values().removeIf(entry -> entry.scope.equals(scope));
+
+        // scopes of deleted groups would pile up otherwise, raising the prune mark makes anything in flight miss its store
+        if (generations.size() > maxEntries * 4) {
+            generations.clear();
+            entries.clear();
+            pruneMark = ++generation;
+        }
+    }
+
+    void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // strong validator: digest of the exact bytes we send
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder tag = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                tag.append(Character.forDigit((digest[i] >> 4) & 0xf, 16)).append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+            return tag.append('"').toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (this) {
+            metrics.put("size", entries.size());
+        }
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.get());
+        metrics.put("notModified", notModified.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return metrics;
+    }
+
+    static final class Entry {
+        private final String scope;
+        private final byte[] body;
+        private final String etag;
+        private final long expiresAt;
+        private volatile Compressed compressed;
+
+        private Entry(String scope, byte[] body, String etag, long expiresAt) {
+            this.scope = scope;
+            this.body = body;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        // the compressed variant gets its own validator, a cache between us and the client must not mix the two
+        String getEtag(String encoding) {
+            return encoding == null ? etag : etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        }
+
+        // compressed once on first use, entries are immutable so racing threads just compute the same bytes
+        byte[] getCompressed(String encoding) throws IOException {
+            Compressed current = compressed;
+            if (current == null || !current.encoding.equals(encoding)) {
+                current = new Compressed(encoding, ResponseStream.compress(body, encoding));
+                compressed = current;
+            }
+            return current.body;
+        }
+    }
+
+    private static final class Compressed {
+        private final String encoding;
+        private final byte[] body;
+
+        private Compressed(String encoding, byte[] body) {
+            this.encoding = encoding;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// response body for the json helpers, the framing is decided by how much gets written:
+// a body that stays under the threshold is held and sent as is with a content length (compressing it isn't worth it),
+// once it outgrows the threshold the headers go out chunked and the rest streams through gzip/deflate
+// if the client's Accept-Encoding allows it, so a large body is never held whole in memory
+final class ResponseStream extends OutputStream {
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final int threshold;
+    private final String encoding;
+
+    private byte[] buffer;
+    private int count;
+    private OutputStream out;
+    private boolean closed;
+
+    ResponseStream(HttpExchange exchange, int status, int threshold, String encoding) {
+        this.exchange = exchange;
+        this.status = status;
+        this.threshold = Math.max(0, threshold);
+        this.encoding = encoding;
+        this.buffer = new byte[Math.min(this.threshold, 4096)];
+    }
+
+    // the encoding to use for an Accept-Encoding header, gzip preferred, null for identity
+    // a coding listed with q=0 is refused, and "*" doesn't bring it back
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        Set<String> accepted = new HashSet<>();
+        Set<String> refused = new HashSet<>();
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            boolean zero = false;
+            for (int i = 1; i < tokens.length; i++) {
+                zero |= tokens[i].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+            (zero ? refused : accepted).add(coding);
+        }
+        for (String coding : new String[] {"gzip", "deflate"}) {
+            if (accepted.contains(coding) || (accepted.contains("*") && !refused.contains(coding))) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    // whole body compressed in one go, for bodies that are already in memory (the response cache)
+    static byte[] compress(byte[] body, String encoding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream out = wrap(bytes, encoding)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OutputStream wrap(OutputStream out, String encoding) throws IOException {
+        if ("gzip".equals(encoding)) {
+            return new GZIPOutputStream(out, 8192);
+        }
+        if ("deflate".equals(encoding)) {
+            // http's "deflate" is the zlib wrapped format, which is what DeflaterOutputStream writes
+            return new DeflaterOutputStream(out);
+        }
+        return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Response already finished");
+        }
+        if (out != null) {
+            out.write(b, off, len);
+            return;
+        }
+        if (count + len <= threshold) {
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(threshold, Math.max(buffer.length * 2, count + len)));
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+
+        commit();
+        out.write(buffer, 0, count);
+        buffer = null;
+        out.write(b, off, len);
+    }
+
+    private void commit() throws IOException {
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(status, 0);
+        out = wrap(exchange.getResponseBody(), encoding);
+    }
+
+    // held bytes stay held, flushing them would give up the content length
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (out != null) {
+            // finishes the compressor and closes the exchange's body, which completes the exchange
+            out.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(buffer, 0, count);
+        }
+    }
+
+    // serialization failed: nothing is sent if the headers are still ours (the caller can answer with an error instead),
+    // a body that's already streaming can only be cut short. true when the exchange was already answered
+    boolean abort() {
+        if (closed) {
+            return true;
+        }
+        closed = true;
+        buffer = null;
+        if (out != null) {
+            exchange.close();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// what the router and the middleware chain work with: a live jetty request or a sub-request of /api/batch
+// holds the parsed params, the attributes and the completion callbacks, subclasses decide where the response goes
+abstract class RoutedExchange extends HttpExchange {
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<Runnable> onClose = new CopyOnWriteArrayList<>();
+
+    private volatile RequestParams params;
+
+    // true for the one caller that gets to complete the exchange
+    protected boolean markClosed() {
+        return closed.compareAndSet(false, true);
+    }
+
+    protected void runOnClose() {
+        for (Runnable callback : onClose) {
+            callback.run();
+        }
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // runs once the response is complete, whichever thread completes it, in the order they were added
+    void onClose(Runnable callback) {
+        onClose.add(callback);
+    }
+
+    RequestParams getParams() {
+        return params;
+    }
+
+    void setParams(RequestParams params) {
+        this.params = params;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    // null removes, the jdk exchange allows null values but a ConcurrentHashMap doesn't
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+}
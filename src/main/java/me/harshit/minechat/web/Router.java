@@ -0,0 +1,129 @@
+package me.harshit.minechat.web;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// exact and {param} routes compiled into a trie of path segments, a lookup walks one node per segment
+// a literal segment wins over a parameter at the same depth (/api/groups/search beats /api/groups/{groupId})
+// and there is no prefix matching, a path either names a route or it's a 404
+final class Router {
+
+    private final Node root = new Node();
+    private final List<Route> routes = new ArrayList<>();
+
+    void add(String method, String pattern, HttpHandler handler) {
+        Node node = root;
+        for (String segment : segments(pattern)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.param == null) {
+                    node.param = new Node();
+                    node.paramName = name;
+                } else if (!node.paramName.equals(name)) {
+                    throw new IllegalArgumentException("Route " + pattern + " names {" + name + "} where another route has {" + node.paramName + "}");
+                }
+                node = node.param;
+            } else {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+
+        if (node.route == null) {
+            node.route = new Route(pattern);
+            routes.add(node.route);
+        }
+        node.route.handlers.put(method, handler);
+    }
+
+    Match match(String path) {
+        Map<String, String> params = null;
+        Node node = root;
+        for (String segment : segments(path)) {
+            Node next = node.children.get(segment);
+            if (next == null && node.param != null) {
+                if (params == null) {
+                    params = new HashMap<>();
+                }
+                params.put(node.paramName, URLDecoder.decode(segment, StandardCharsets.UTF_8));
+                next = node.param;
+            }
+            if (next == null) {
+                return null;
+            }
+            node = next;
+        }
+        return node.route != null ? new Match(node.route, params != null ? params : Map.of()) : null;
+    }
+
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node param;
+        private String paramName;
+        private Route route;
+    }
+
+    static final class Route {
+        private final String pattern;
+        private final Map<String, HttpHandler> handlers = new TreeMap<>();
+
+        private Route(String pattern) {
+            this.pattern = pattern;
+        }
+
+        String getPattern() {
+            return pattern;
+        }
+
+        // null when the route exists but not for this method
+        HttpHandler getHandler(String method) {
+            return handlers.get(method);
+        }
+
+        String getAllowedMethods() {
+            return String.join(", ", handlers.keySet()) + ", OPTIONS";
+        }
+    }
+
+    static final class Match {
+        private final Route route;
+        private final Map<String, String> params;
+
+        private Match(Route route, Map<String, String> params) {
+            this.route = route;
+            this.params = params;
+        }
+
+        Route getRoute() {
+            return route;
+        }
+
+        Map<String, String> getParams() {
+            return params;
+        }
+    }
+}
@@ -52,6 +52,7 @@ public class SearchGroupsHandler implements HttpHandler {
 
         String searchQuery = null;
         int limit = 10;
+        int offset = 0;
 
         String[] params = query.split("&");
         for (String param : params) {
@@ -69,6 +70,13 @@ public class SearchGroupsHandler implements HttpHandler {
                             limit = 10;
                         }
                         break;
+                    case "offset":
+                        try {
+                            offset = Math.max(Integer.parseInt(keyValue[1]), 0);
+                        } catch (NumberFormatException e) {
+                            offset = 0;
+                        }
+                        break;
                 }
             }
         }
@@ -79,7 +87,7 @@ public class SearchGroupsHandler implements HttpHandler {
         }
 
         try {
-            List<Document> results = groupManager.searchPublicGroups(searchQuery, limit);
+            List<Document> results = groupManager.searchPublicGroups(searchQuery, limit, offset);
 
             JsonObject response = new JsonObject();
             JsonObject[] groupsArray = new JsonObject[results.size()];
@@ -9,8 +9,6 @@ import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
 import me.harshit.minechat.api.GroupMember;
 import me.harshit.minechat.database.GroupManager;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 import org.bson.Document;
 import net.kyori.adventure.text.Component;
 
@@ -67,8 +65,8 @@ public class SendGroupMessageHandler implements HttpHandler {
             JsonObject json = JsonParser.parseString(requestBody).getAsJsonObject();
 
             String groupId = json.get("groupId").getAsString();
-            String senderId = json.get("senderId").getAsString();
-            String senderName = json.get("senderName").getAsString();
+            String senderId = EmbeddedWebServer.actingUUID(exchange, json, "senderId");
+            String senderName = EmbeddedWebServer.actingName(exchange, json, "senderName");
             String message = json.get("message").getAsString();
 
             if (groupId == null || senderId == null || senderName == null || message == null || message.trim().isEmpty()) {
@@ -97,30 +95,23 @@ public class SendGroupMessageHandler implements HttpHandler {
                 return;
             }
 
-            
-
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                try {
-                    String format = plugin.getConfig().getString("chat-groups.format",
-                        "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
-                    String formattedMessage = format
-                            .replace("{group}", group.getGroupName())
-                            .replace("{player}", senderName + " (Web)")
-                            .replace("{message}", message);
-
-                    Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
-
-                    List<GroupMember> members = group.getMembers();
-                    for (GroupMember member : members) {
-                        Player onlineMember = Bukkit.getPlayer(member.getPlayerId());
-                        if (onlineMember != null && onlineMember.isOnline()) {
-                            onlineMember.sendMessage(messageComponent);
-                        }
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Error sending group message to online players: " + e.getMessage());
+            groupManager.recordGroupMessage(groupUUID, senderUUID, senderName);
+
+            String format = plugin.getConfig().getString("chat-groups.format",
+                "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
+            String formattedMessage = format
+                    .replace("{group}", group.getGroupName())
+                    .replace("{player}", senderName + " (Web)")
+                    .replace("{message}", message);
+
+            Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
+
+            List<GroupMember> members = group.getMembers();
+            for (GroupMember member : members) {
+                if (plugin.getPlayerRegistry().isOnline(member.getPlayerId())) {
+                    plugin.getDeliveryQueue().send(member.getPlayerId(), messageComponent);
                 }
-            });
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -0,0 +1,293 @@
+package me.harshit.minechat.web;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// signed, expiring session tokens for the rest api and the websocket, checked without mongo or a password hash:
+// base64url("keyId|playerUUID|playerName|issuedAt|expiresAt|tokenId") + "." + base64url(hmac-sha256 of that part)
+// the signing keys live in session-keys.txt in the data folder, newest first. a new key is made once the current one is
+// older than web.auth.key-rotation-hours and the previous one is kept for verifying until its tokens have expired.
+// revocations (logout, password change) are held in memory until the revoked tokens would have expired anyway
+public class SessionTokens {
+
+    private static final String KEY_FILE = "session-keys.txt";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // initialised Macs kept per signing key, about as many as requests verify at the same moment
+    private static final int MAC_POOL_SIZE = 32;
+
+    private final JavaPlugin plugin;
+    private final File keyFile;
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final long rotationMillis;
+
+    private volatile List<SigningKey> keys = List.of();
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SessionTokens(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.keyFile = new File(plugin.getDataFolder(), KEY_FILE);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(1, plugin.getConfig().getLong("web.auth.token-ttl-minutes", 720)));
+        // a key has to outlive every token it signed while it was the current one
+        this.rotationMillis = Math.max(ttlMillis, TimeUnit.HOURS.toMillis(Math.max(1, plugin.getConfig().getLong("web.auth.key-rotation-hours", 24))));
+
+        loadKeys();
+        rotateIfDue();
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public String issue(UUID playerUUID, String playerName) {
+        rotateIfDue();
+        SigningKey key = keys.get(0);
+        long now = System.currentTimeMillis();
+        byte[] nonce = new byte[12];
+        random.nextBytes(nonce);
+
+        String payload = key.id + "|" + playerUUID + "|" + playerName + "|" + now + "|" + (now + ttlMillis) + "|" + ENCODER.encodeToString(nonce);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        issued.incrementAndGet();
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(key.sign(payloadBytes));
+    }
+
+    // the token's session, or null for anything unsigned, malformed, expired or revoked
+    public Session verify(String token) {
+        Session session = token != null ? check(token) : null;
+        if (session != null) {
+            verified.incrementAndGet();
+        } else if (token != null) {
+            rejected.incrementAndGet();
+        }
+        return session;
+    }
+
+    private Session check(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|");
+            if (fields.length != 6) {
+                return null;
+            }
+
+            SigningKey key = findKey(fields[0]);
+            if (key == null || !MessageDigest.isEqual(signature, key.sign(payloadBytes))) {
+                return null;
+            }
+
+            UUID playerUUID = UUID.fromString(fields[1]);
+            long issuedAt = Long.parseLong(fields[3]);
+            long expiresAt = Long.parseLong(fields[4]);
+            String tokenId = fields[5];
+            if (expiresAt <= System.currentTimeMillis() || revokedTokens.containsKey(tokenId)) {
+                return null;
+            }
+            Long before = revokedBefore.get(playerUUID);
+            if (before != null && issuedAt < before) {
+                return null;
+            }
+            return new Session(playerUUID, fields[2], tokenId, expiresAt);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // logout: this token only
+    public void revoke(Session session) {
+        revokedTokens.put(session.getTokenId(), session.getExpiresAt());
+        pruneRevocations();
+    }
+
+    // password change or web access turned off: every token the player holds right now
+    public void revokeAll(UUID playerUUID) {
+        revokedBefore.put(playerUUID, System.currentTimeMillis());
+        pruneRevocations();
+    }
+
+    private void pruneRevocations() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedBefore.values().removeIf(revokedAt -> revokedAt + ttlMillis <= now);
+    }
+
+    private SigningKey findKey(String id) {
+        for (SigningKey key : keys) {
+            if (key.id.equals(id)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private void loadKeys() {
+        if (!keyFile.exists()) {
+            return;
+        }
+        try {
+            List<SigningKey> loaded = new ArrayList<>();
+            for (String line : Files.readAllLines(keyFile.toPath(), StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length == 3) {
+                    loaded.add(new SigningKey(parts[0], Long.parseLong(parts[1]), Base64.getDecoder().decode(parts[2])));
+                }
+            }
+            keys = List.copyOf(loaded);
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warning("Failed to load session keys, issuing a new one: " + e.getMessage());
+        }
+    }
+
+    private synchronized void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        if (!keys.isEmpty() && keys.get(0).createdAt + rotationMillis > now) {
+            return;
+        }
+
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        byte[] id = new byte[6];
+        random.nextBytes(id);
+
+        List<SigningKey> rotated = new ArrayList<>();
+        rotated.add(new SigningKey(ENCODER.encodeToString(id), now, secret));
+        if (!keys.isEmpty()) {
+            rotated.add(keys.get(0));
+        }
+        keys = List.copyOf(rotated);
+        saveKeys();
+    }
+
+    private void saveKeys() {
+        StringBuilder content = new StringBuilder();
+        for (SigningKey key : keys) {
+            content.append(key.id).append(' ').append(key.createdAt).append(' ')
+                    .append(Base64.getEncoder().encodeToString(key.secret)).append('\n');
+        }
+        try {
+            Files.createDirectories(keyFile.getParentFile().toPath());
+            Files.writeString(keyFile.toPath(), content.toString(), StandardCharsets.UTF_8);
+            try {
+                Files.setPosixFilePermissions(keyFile.toPath(), PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException | IOException ignored) {
+                // not a posix filesystem, the data folder's own permissions apply
+            }
+        } catch (IOException e) {
+            // tokens still work until the restart, they just won't survive it
+            plugin.getLogger().warning("Failed to save session keys: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("issued", issued.get());
+        metrics.put("verified", verified.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("revokedTokens", revokedTokens.size());
+        metrics.put("revokedPlayers", revokedBefore.size());
+        metrics.put("keys", keys.size());
+        metrics.put("ttlMinutes", TimeUnit.MILLISECONDS.toMinutes(ttlMillis));
+        return metrics;
+    }
+
+    private static final class SigningKey {
+        private final String id;
+        private final long createdAt;
+        private final byte[] secret;
+        // Mac instances aren't thread safe. rest requests each run on a fresh virtual thread, so a per thread cache
+        // would never hit: a small pool of initialised ones is shared instead, a miss builds one and it's kept afterwards
+        private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(MAC_POOL_SIZE);
+
+        private SigningKey(String id, long createdAt, byte[] secret) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.secret = secret;
+        }
+
+        private byte[] sign(byte[] payload) {
+            Mac mac = macs.poll();
+            if (mac == null) {
+                mac = newMac();
+            }
+            try {
+                return mac.doFinal(payload);
+            } finally {
+                // doFinal leaves it reset and ready for the next payload, past the pool size it is just dropped
+                macs.offer(mac);
+            }
+        }
+
+        private Mac newMac() {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(new SecretKeySpec(secret, "HmacSHA256"));
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        }
+    }
+
+    public static final class Session {
+        private final UUID playerUUID;
+        private final String playerName;
+        private final String tokenId;
+        private final long expiresAt;
+
+        private Session(UUID playerUUID, String playerName, String tokenId, long expiresAt) {
+            this.playerUUID = playerUUID;
+            this.playerName = playerName;
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+        }
+
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -5,17 +5,19 @@ import me.harshit.minechat.Minechat;
 import me.harshit.minechat.api.GroupInfo;
 import me.harshit.minechat.database.FriendManager;
 import me.harshit.minechat.database.GroupManager;
+import me.harshit.minechat.database.OnlinePlayerRegistry.OnlinePlayer;
+import me.harshit.minechat.database.PasswordVerifier;
 import me.harshit.minechat.database.UserDataManager;
+import me.harshit.minechat.database.WorkExecutor;
 import net.kyori.adventure.text.Component;
 import org.bson.Document;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class WebAPIHandler {
@@ -166,15 +168,15 @@ public class WebAPIHandler {
             return;
         }
 
-        Player onlineTarget = Bukkit.getPlayerExact(targetName);
+        OnlinePlayer onlineTarget = plugin.getPlayerRegistry().getByName(targetName);
         
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             UUID targetUUID = null;
             if (onlineTarget != null) {
-                targetUUID = onlineTarget.getUniqueId();
+                targetUUID = onlineTarget.getPlayerId();
             } else {
                 // Try to get UUID from database for offline player
-                targetUUID = getPlayerUUID(targetName);
+                targetUUID = userDataManager.getPlayerUUIDByName(targetName);
             }
             
             if (targetUUID == null) {
@@ -191,39 +193,39 @@ public class WebAPIHandler {
 
             final UUID finalTargetUUID = targetUUID;
             
-            if (plugin.getDatabaseManager() != null) {
-                plugin.getDatabaseManager().storePrivateMessage(
-                    session.getPlayerName(), session.getPlayerId(), 
-                    targetName, finalTargetUUID, 
-                    message, "web"
-                );
-            }
+            boolean delivered = onlineTarget != null;
+            if (delivered) {
+                String format = plugin.getConfig().getString("private-messages.format",
+                    "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                if (onlineTarget != null && onlineTarget.isOnline()) {
-                    String format = plugin.getConfig().getString("private-messages.format",
-                        "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
+                String formattedMessage = format
+                    .replace("{sender}", session.getPlayerName() + " (Web)")
+                    .replace("{receiver}", onlineTarget.getPlayerName())
+                    .replace("{message}", message);
 
-                    String formattedMessage = format
-                        .replace("{sender}", session.getPlayerName() + " (Web)")
-                        .replace("{receiver}", onlineTarget.getName())
-                        .replace("{message}", message);
+                Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
+                plugin.getDeliveryQueue().send(onlineTarget.getPlayerId(), messageComponent);
+            }
 
-                    Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
-                    onlineTarget.sendMessage(messageComponent);
-                }
+            CompletableFuture<Boolean> stored = plugin.getDatabaseManager() != null
+                ? plugin.getDatabaseManager().storePrivateMessage(session.getPlayerName(), session.getPlayerId(),
+                    targetName, finalTargetUUID, message, "web")
+                : CompletableFuture.completedFuture(false);
 
+            // the sender's confirmation and the target's web copy wait for the write, off the writer thread
+            stored.whenComplete((persisted, error) -> plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
                 sendWebResponse(session.getSessionId(), "message_sent", Map.of(
                     "type", "friend_message",
                     "target", targetName,
                     "message", message,
                     "timestamp", System.currentTimeMillis(),
-                    "delivered", onlineTarget != null && onlineTarget.isOnline()
+                    "delivered", delivered,
+                    "stored", Boolean.TRUE.equals(persisted)
                 ));
 
                 deliverFriendMessageToWeb(finalTargetUUID, targetName,
                     session.getPlayerId(), session.getPlayerName(), message, "web");
-            });
+            }));
         });
     }
 
@@ -236,14 +238,14 @@ public class WebAPIHandler {
             return;
         }
 
-        Player onlineTarget = Bukkit.getPlayerExact(targetName);
+        OnlinePlayer onlineTarget = plugin.getPlayerRegistry().getByName(targetName);
         
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             UUID targetUUID = null;
             if (onlineTarget != null) {
-                targetUUID = onlineTarget.getUniqueId();
+                targetUUID = onlineTarget.getPlayerId();
             } else {
-                targetUUID = getPlayerUUID(targetName);
+                targetUUID = userDataManager.getPlayerUUIDByName(targetName);
             }
             
             if (targetUUID == null) {
@@ -253,39 +255,39 @@ public class WebAPIHandler {
 
             final UUID finalTargetUUID = targetUUID;
             
-            if (plugin.getDatabaseManager() != null) {
-                plugin.getDatabaseManager().storePrivateMessage(
-                    session.getPlayerName(), session.getPlayerId(), 
-                    targetName, finalTargetUUID, 
-                    message, "web"
-                );
-            }
+            boolean delivered = onlineTarget != null;
+            if (delivered) {
+                String format = plugin.getConfig().getString("private-messages.format",
+                    "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                if (onlineTarget != null && onlineTarget.isOnline()) {
-                    String format = plugin.getConfig().getString("private-messages.format",
-                        "&7[&dPM&7] &e{sender} &7→ &e{receiver}&7: &f{message}");
+                String formattedMessage = format
+                    .replace("{sender}", session.getPlayerName() + " (Web)")
+                    .replace("{receiver}", onlineTarget.getPlayerName())
+                    .replace("{message}", message);
 
-                    String formattedMessage = format
-                        .replace("{sender}", session.getPlayerName() + " (Web)")
-                        .replace("{receiver}", onlineTarget.getName())
-                        .replace("{message}", message);
+                Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
+                plugin.getDeliveryQueue().send(onlineTarget.getPlayerId(), messageComponent);
+            }
 
-                    Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
-                    onlineTarget.sendMessage(messageComponent);
-                }
+            CompletableFuture<Boolean> stored = plugin.getDatabaseManager() != null
+                ? plugin.getDatabaseManager().storePrivateMessage(session.getPlayerName(), session.getPlayerId(),
+                    targetName, finalTargetUUID, message, "web")
+                : CompletableFuture.completedFuture(false);
 
+            // the sender's confirmation and the target's web copy wait for the write, off the writer thread
+            stored.whenComplete((persisted, error) -> plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
                 sendWebResponse(session.getSessionId(), "message_sent", Map.of(
                     "type", "direct_message",
                     "target", targetName,
                     "message", message,
                     "timestamp", System.currentTimeMillis(),
-                    "delivered", onlineTarget != null && onlineTarget.isOnline()
+                    "delivered", delivered,
+                    "stored", Boolean.TRUE.equals(persisted)
                 ));
 
                 deliverFriendMessageToWeb(finalTargetUUID, targetName,
                     session.getPlayerId(), session.getPlayerName(), message, "web");
-            });
+            }));
         });
     }
 
@@ -317,7 +319,7 @@ public class WebAPIHandler {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             Document foundGroup = null;
             UUID foundGroupId = null;
             String finalGroupName = null;
@@ -362,63 +364,59 @@ public class WebAPIHandler {
             final Document finalGroup = foundGroup;
             final UUID finalGroupId = foundGroupId;
             final String groupNameForLambda = finalGroupName;
+            groupManager.recordGroupMessage(finalGroupId, session.getPlayerId(), session.getPlayerName());
 
+            String format = plugin.getConfig().getString("chat-groups.format",
+                "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
+            String formattedMessage = format
+                    .replace("{group}", groupNameForLambda)
+                    .replace("{player}", session.getPlayerName() + " (Web)")
+                    .replace("{message}", message);
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                String format = plugin.getConfig().getString("chat-groups.format",
-                    "&7[&aGroup: &b{group}&7] &f{player}&7: &f{message}");
-                String formattedMessage = format
-                        .replace("{group}", groupNameForLambda)
-                        .replace("{player}", session.getPlayerName() + " (Web)")
-                        .replace("{message}", message);
-
-                Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
+            Component messageComponent = Component.text(formattedMessage.replace("&", "§"));
 
-                List<Document> members = finalGroup.getList("members", Document.class);
-                for (Document member : members) {
-                    String memberName = member.getString("playerName");
-                    Player onlineMember = Bukkit.getPlayerExact(memberName);
-                    if (onlineMember != null && onlineMember.isOnline()) {
-                        onlineMember.sendMessage(messageComponent);
-                    }
+            List<Document> members = finalGroup.getList("members", Document.class);
+            for (Document member : members) {
+                OnlinePlayer onlineMember = plugin.getPlayerRegistry().getByName(member.getString("playerName"));
+                if (onlineMember != null) {
+                    plugin.getDeliveryQueue().send(onlineMember.getPlayerId(), messageComponent);
                 }
+            }
 
-                broadcastToGroupWebSessions(finalGroupId, "group_message", Map.of(
-                    "group", groupNameForLambda,
-                    "groupId", finalGroupId.toString(),
-                    "messageId", UUID.randomUUID().toString(),
-                    "senderUUID", session.getPlayerId().toString(),
-                    "senderName", session.getPlayerName(),
-                    "content", message,
-                    "timestamp", System.currentTimeMillis(),
-                    "messageType", "TEXT",
-                    "source", "web"
-                ));
-
-                sendWebResponse(session.getSessionId(), "message_sent", Map.of(
-                    "type", "group_message",
-                    "group", groupNameForLambda,
-                    "groupId", finalGroupId.toString(),
-                    "message", message,
-                    "timestamp", System.currentTimeMillis()
-                ));
-            });
+            broadcastToGroupWebSessions(finalGroupId, "group_message", Map.of(
+                "group", groupNameForLambda,
+                "groupId", finalGroupId.toString(),
+                "messageId", UUID.randomUUID().toString(),
+                "senderUUID", session.getPlayerId().toString(),
+                "senderName", session.getPlayerName(),
+                "content", message,
+                "timestamp", System.currentTimeMillis(),
+                "messageType", "TEXT",
+                "source", "web"
+            ));
+
+            sendWebResponse(session.getSessionId(), "message_sent", Map.of(
+                "type", "group_message",
+                "group", groupNameForLambda,
+                "groupId", finalGroupId.toString(),
+                "message", message,
+                "timestamp", System.currentTimeMillis()
+            ));
         });
     }
 
     private void handleGetFriends(WebSession session) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             List<Document> friends = friendManager.getFriendList(session.getPlayerId());
 
             Map<String, Object> response = new HashMap<>();
             response.put("friends", friends.stream().map(friend -> {
                 String friendName = friend.getString("friendName");
-                Player onlineFriend = Bukkit.getPlayerExact(friendName);
 
                 Map<String, Object> friendData = new HashMap<>();
                 friendData.put("name", friendName);
                 friendData.put("uuid", friend.getString("friendId"));
-                friendData.put("online", onlineFriend != null && onlineFriend.isOnline());
+                friendData.put("online", plugin.getPlayerRegistry().isOnline(friendName));
                 friendData.put("since", friend.getLong("timestamp"));
                 return friendData;
             }).toList());
@@ -428,7 +426,7 @@ public class WebAPIHandler {
     }
 
     private void handleGetGroups(WebSession session) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             List<Document> groups = groupManager.getPlayerGroupsAsDocuments(session.getPlayerId());
 
             Map<String, Object> response = new HashMap<>();
@@ -450,7 +448,7 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         int limit = data.has("limit") ? data.get("limit").getAsInt() : 50;
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             List<Document> messages = groupManager.getGroupMessages(UUID.fromString(groupId), limit);
 
             Map<String, Object> response = new HashMap<>();
@@ -462,13 +460,12 @@ public class WebAPIHandler {
     }
 
     private void handleGetFriendRequests(WebSession session) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            List<Document> incomingRequests = friendManager.getIncomingFriendRequests(session.getPlayerId());
-            List<Document> outgoingRequests = friendManager.getOutgoingFriendRequests(session.getPlayerId());
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
+            Document overview = friendManager.getFriendRequestsOverview(session.getPlayerId());
 
             Map<String, Object> response = new HashMap<>();
-            response.put("incoming", incomingRequests);
-            response.put("outgoing", outgoingRequests);
+            response.put("incoming", overview.getList("incoming", Document.class));
+            response.put("outgoing", overview.getList("outgoing", Document.class));
 
             sendWebResponse(session.getSessionId(), "friend_requests", response);
         });
@@ -477,20 +474,20 @@ public class WebAPIHandler {
     private void handleSendFriendRequest(WebSession session, JsonObject data) {
         String targetName = data.get("targetName").getAsString();
 
-        Player target = Bukkit.getPlayerExact(targetName);
+        OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
         if (target == null) {
             sendWebResponse(session.getSessionId(), "error", "Player not found");
             return;
         }
 
-        if (target.getUniqueId().equals(session.getPlayerId())) {
+        if (target.getPlayerId().equals(session.getPlayerId())) {
             sendWebResponse(session.getSessionId(), "error", "You cannot send a friend request to yourself");
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             boolean success = friendManager.sendFriendRequest(session.getPlayerId(), session.getPlayerName(),
-                target.getUniqueId(), target.getName());
+                target.getPlayerId(), target.getPlayerName());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "friend_request_sent", Map.of(
@@ -506,14 +503,14 @@ public class WebAPIHandler {
     private void handleAcceptFriendRequest(WebSession session, JsonObject data) {
         String requesterName = data.get("requesterName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Player requester = Bukkit.getPlayerExact(requesterName);
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
+            OnlinePlayer requester = plugin.getPlayerRegistry().getByName(requesterName);
             if (requester == null) {
                 sendWebResponse(session.getSessionId(), "error", "Requester not found");
                 return;
             }
 
-            boolean success = friendManager.acceptFriendRequest(requester.getUniqueId(), session.getPlayerId());
+            boolean success = friendManager.acceptFriendRequest(requester.getPlayerId(), session.getPlayerId());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "friend_request_accepted", Map.of(
@@ -529,14 +526,14 @@ public class WebAPIHandler {
     private void handleRejectFriendRequest(WebSession session, JsonObject data) {
         String requesterName = data.get("requesterName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Player requester = Bukkit.getPlayerExact(requesterName);
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
+            OnlinePlayer requester = plugin.getPlayerRegistry().getByName(requesterName);
             if (requester == null) {
                 sendWebResponse(session.getSessionId(), "error", "Requester not found");
                 return;
             }
 
-            boolean success = friendManager.rejectFriendRequest(requester.getUniqueId(), session.getPlayerId());
+            boolean success = friendManager.rejectFriendRequest(requester.getPlayerId(), session.getPlayerId());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "friend_request_rejected", Map.of(
@@ -552,11 +549,13 @@ public class WebAPIHandler {
     private void handleGetOnlinePlayers(WebSession session) {
         List<Map<String, Object>> onlinePlayers = new ArrayList<>();
 
-        for (Player player : Bukkit.getOnlinePlayers()) {
+        for (OnlinePlayer player : plugin.getPlayerRegistry().getAll()) {
             Map<String, Object> playerData = new HashMap<>();
-            playerData.put("name", player.getName());
-            playerData.put("uuid", player.getUniqueId().toString());
-            playerData.put("displayName", player.displayName().toString());
+            playerData.put("name", player.getPlayerName());
+            playerData.put("uuid", player.getPlayerId().toString());
+            playerData.put("displayName", player.getPlayerName());
+            playerData.put("rank", player.getRank());
+            playerData.put("world", player.getWorld());
             onlinePlayers.add(playerData);
         }
 
@@ -570,7 +569,7 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         String announcement = data.get("announcement").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupAdmin(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to make announcements");
                 return;
@@ -599,19 +598,19 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         String targetName = data.get("targetName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupAdmin(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to kick members");
                 return;
             }
 
-            Player target = Bukkit.getPlayerExact(targetName);
+            OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
             if (target == null) {
                 sendWebResponse(session.getSessionId(), "error", "Player not found");
                 return;
             }
 
-            boolean success = groupManager.removePlayerFromGroup(UUID.fromString(groupId), target.getUniqueId());
+            boolean success = groupManager.removePlayerFromGroup(UUID.fromString(groupId), target.getPlayerId());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "member_kicked", Map.of(
@@ -634,19 +633,19 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         String targetName = data.get("targetName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupOwner(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "Only group owners can promote members");
                 return;
             }
 
-            Player target = Bukkit.getPlayerExact(targetName);
+            OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
             if (target == null) {
                 sendWebResponse(session.getSessionId(), "error", "Player not found");
                 return;
             }
 
-            boolean success = groupManager.promoteGroupMember(UUID.fromString(groupId), target.getUniqueId());
+            boolean success = groupManager.promoteGroupMember(UUID.fromString(groupId), target.getPlayerId());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "member_promoted", Map.of(
@@ -670,19 +669,19 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         String targetName = data.get("targetName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupAdmin(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to ban members");
                 return;
             }
 
-            Player target = Bukkit.getPlayerExact(targetName);
+            OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
             if (target == null) {
                 sendWebResponse(session.getSessionId(), "error", "Player not found");
                 return;
             }
 
-            boolean success = groupManager.banPlayerFromGroup(UUID.fromString(groupId), target.getUniqueId());
+            boolean success = groupManager.banPlayerFromGroup(UUID.fromString(groupId), target.getPlayerId());
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "member_banned", Map.of(
@@ -707,19 +706,19 @@ public class WebAPIHandler {
         String targetName = data.get("targetName").getAsString();
         long duration = data.has("duration") ? data.get("duration").getAsLong() : 3600000; // 1 hour default
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupAdmin(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to mute members");
                 return;
             }
 
-            Player target = Bukkit.getPlayerExact(targetName);
+            OnlinePlayer target = plugin.getPlayerRegistry().getByName(targetName);
             if (target == null) {
                 sendWebResponse(session.getSessionId(), "error", "Player not found");
                 return;
             }
 
-            boolean success = groupManager.muteGroupMember(UUID.fromString(groupId), target.getUniqueId(), duration);
+            boolean success = groupManager.muteGroupMember(UUID.fromString(groupId), target.getPlayerId(), duration);
 
             if (success) {
                 sendWebResponse(session.getSessionId(), "member_muted", Map.of(
@@ -742,10 +741,11 @@ public class WebAPIHandler {
 
     private void handleSearchGroups(WebSession session, JsonObject data) {
         String query = data.get("query").getAsString();
-        int limit = data.has("limit") ? data.get("limit").getAsInt() : 20;
+        int limit = data.has("limit") ? Math.min(data.get("limit").getAsInt(), 50) : 20;
+        int offset = data.has("offset") ? Math.max(data.get("offset").getAsInt(), 0) : 0;
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            List<Document> groups = groupManager.searchPublicGroups(query, limit);
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
+            List<Document> groups = groupManager.searchPublicGroups(query, limit, offset);
 
             Map<String, Object> response = new HashMap<>();
             response.put("groups", groups.stream().map(group -> {
@@ -766,7 +766,7 @@ public class WebAPIHandler {
         String inviteCode = data.get("inviteCode").getAsString();
         plugin.getLogger().info("WebSocket: Player " + session.getPlayerName() + " attempting to join group with code: " + inviteCode);
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             boolean success = groupManager.joinGroupByInviteCode(session.getPlayerId(),
                 session.getPlayerName(), inviteCode);
 
@@ -822,7 +822,7 @@ public class WebAPIHandler {
     private void handleGetGroupMembers(WebSession session, JsonObject data) {
         String groupId = data.get("groupId").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!isPlayerInGroup(session.getPlayerId(), UUID.fromString(groupId))) {
                 sendWebResponse(session.getSessionId(), "error", "You are not a member of this group");
                 return;
@@ -840,13 +840,11 @@ public class WebAPIHandler {
             response.put("groupId", groupId);
             response.put("members", members.stream().map(member -> {
                 String memberName = member.getString("playerName");
-                Player onlineMember = Bukkit.getPlayerExact(memberName);
-
                 Map<String, Object> memberData = new HashMap<>();
                 memberData.put("name", memberName);
                 memberData.put("uuid", member.getString("playerId"));
                 memberData.put("role", member.getString("role"));
-                memberData.put("online", onlineMember != null && onlineMember.isOnline());
+                memberData.put("online", plugin.getPlayerRegistry().isOnline(memberName));
                 memberData.put("joinedAt", member.getLong("joinedAt"));
                 return memberData;
             }).toList());
@@ -859,14 +857,14 @@ public class WebAPIHandler {
         String groupId = data.get("groupId").getAsString();
         String targetName = data.get("targetName").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.canInviteToGroup(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to invite to this group");
                 return;
             }
 
-            Player targetOnline = Bukkit.getPlayerExact(targetName);
-            UUID targetUUID = (targetOnline != null) ? targetOnline.getUniqueId() : groupManager.getPlayerUUID(targetName);
+            OnlinePlayer targetOnline = plugin.getPlayerRegistry().getByName(targetName);
+            UUID targetUUID = (targetOnline != null) ? targetOnline.getPlayerId() : userDataManager.getPlayerUUIDByName(targetName);
             if (targetUUID == null) {
                 sendWebResponse(session.getSessionId(), "error", "Player not found");
                 return;
@@ -910,7 +908,7 @@ public class WebAPIHandler {
         int maxMembers = data.has("maxMembers") ? data.get("maxMembers").getAsInt() : 20;
         boolean isPublic = data.has("isPublic") && data.get("isPublic").getAsBoolean();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             GroupInfo groupInfo = groupManager.createGroup(session.getPlayerId(), session.getPlayerName(),
                 groupName, description, maxMembers, isPublic);
 
@@ -931,7 +929,7 @@ public class WebAPIHandler {
     private void handleLeaveGroup(WebSession session, JsonObject data) {
         String groupId = data.get("groupId").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             boolean success = groupManager.removePlayerFromGroup(UUID.fromString(groupId), session.getPlayerId());
 
             if (success) {
@@ -952,7 +950,7 @@ public class WebAPIHandler {
     private void handleGetGroupInviteCode(WebSession session, JsonObject data) {
         String groupId = data.get("groupId").getAsString();
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        plugin.getWorkers().execute(WorkExecutor.DATABASE, () -> {
             if (!groupManager.isGroupAdmin(UUID.fromString(groupId), session.getPlayerId())) {
                 sendWebResponse(session.getSessionId(), "error", "You don't have permission to get invite codes");
                 return;
@@ -971,27 +969,46 @@ public class WebAPIHandler {
         });
     }
 
-    public boolean authenticateSession(String sessionId, String username, String password) {
-        if (!userDataManager.verifyWebPassword(username, password)) {
-            return false;
-        }
+    // password check runs on the auth executor, the session is registered once it passes
+    public CompletableFuture<PasswordVerifier.Result> authenticateSession(String sessionId, String username, String password, String address) {
+        return userDataManager.verifyWebPasswordAsync(username, password, address).thenApply(result -> {
+            if (result != PasswordVerifier.Result.VALID) {
+                return result;
+            }
 
-        Player player = Bukkit.getPlayerExact(username);
-        UUID playerId = player != null ? player.getUniqueId() : getPlayerUUID(username);
+            OnlinePlayer player = plugin.getPlayerRegistry().getByName(username);
+            UUID playerId = player != null ? player.getPlayerId() : userDataManager.getPlayerUUIDByName(username);
 
-        if (playerId == null) {
-            return false;
-        }
+            if (playerId == null) {
+                return PasswordVerifier.Result.INVALID;
+            }
 
-        WebSession session = new WebSession(sessionId, playerId, username, true);
-        activeSessions.put(sessionId, session);
+            WebSession session = new WebSession(sessionId, playerId, username, true);
+            activeSessions.put(sessionId, session);
 
-        if (!me.harshit.minechat.Minechat.QUIET_WS_LOGS) {
-            plugin.getLogger().info("Web session authenticated for player: " + username);
+            if (!me.harshit.minechat.Minechat.QUIET_WS_LOGS) {
+                plugin.getLogger().info("Web session authenticated for player: " + username);
+            }
+            return PasswordVerifier.Result.VALID;
+        });
+    }
+
+    // token sent by a client that logged in before: checked in memory, no password and no mongo
+    public boolean authenticateSession(String sessionId, String token) {
+        SessionTokens.Session verified = plugin.getSessionTokens().verify(token);
+        if (verified == null) {
+            return false;
         }
+        activeSessions.put(sessionId, new WebSession(sessionId, verified.getPlayerUUID(), verified.getPlayerName(), true));
         return true;
     }
 
+    // handed out after a password login so reconnects can use the token instead
+    public String issueSessionToken(String sessionId) {
+        WebSession session = activeSessions.get(sessionId);
+        return session != null ? plugin.getSessionTokens().issue(session.getPlayerId(), session.getPlayerName()) : null;
+    }
+
     public void removeSession(String sessionId) {
         WebSession session = activeSessions.remove(sessionId);
         if (session != null && !me.harshit.minechat.Minechat.QUIET_WS_LOGS) {
@@ -1077,32 +1094,6 @@ public class WebAPIHandler {
                 .anyMatch(group -> group.getString("groupId").equals(groupId.toString()));
     }
 
-    private UUID getPlayerUUID(String playerName) {
-        Player player = Bukkit.getPlayerExact(playerName);
-        if (player != null) {
-            return player.getUniqueId();
-        }
-
-        try {
-            UUID playerUUID = userDataManager.getPlayerUUIDByName(playerName);
-            if (playerUUID != null) {
-                return playerUUID;
-            }
-
-            org.bukkit.OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(playerName);
-            if (offlinePlayer.hasPlayedBefore()) {
-                return offlinePlayer.getUniqueId();
-            }
-
-            plugin.getLogger().warning("Could not find UUID for player: " + playerName);
-            return null;
-
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error getting UUID for player " + playerName + ": " + e.getMessage());
-            return null;
-        }
-    }
-
     public void shutdown() {
         if (webSocketServer != null) {
             try {
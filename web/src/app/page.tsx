@@ -48,6 +48,7 @@ export default function Home() {
         setShowLoginModal(false);
         
         localStorage.setItem('minechat_user', JSON.stringify(data.user));
+        localStorage.setItem('minechat_token', data.sessionToken);
       } else {
         throw new Error(data.error || 'Authentication failed');
       }
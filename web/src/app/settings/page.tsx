@@ -77,12 +77,16 @@ export default function SettingsPage() {
     if (!user) return;
     setError(null); setStatus(null);
     try {
+      if (!currentPassword) {
+        setError('Current password is required');
+        return;
+      }
       if (!newPassword || newPassword.length < 4) {
         setError('New password must be at least 4 characters');
         return;
       }
       setSaving(true);
-      await settingsApi.updateWebPassword(user.playerUUID, user.playerName, currentPassword || undefined, newPassword);
+      await settingsApi.updateWebPassword(user.playerUUID, user.playerName, currentPassword, newPassword);
       setCurrentPassword('');
       setNewPassword('');
   setStatus('Password updated');
@@ -176,7 +180,7 @@ export default function SettingsPage() {
                     type="password"
                     value={currentPassword}
                     onChange={(e) => setCurrentPassword(e.target.value)}
-                    placeholder="Optional if not set before"
+                    placeholder="Your current web password"
                     className="w-full px-3 py-2 bg-neutral-700 border border-neutral-600 rounded-lg text-neutral-200 placeholder-neutral-400"
                   />
                 </div>
@@ -4,6 +4,8 @@ import { User, Settings, LayoutDashboard, LogIn, Menu, X, Users, HomeIcon } from
 import Link from 'next/link';
 import { useRouter } from 'next/navigation';
 import LoginModal from '../modals/LoginModal';
+import { authHeaders } from '../lib/api';
+import { API_BASE_URL } from '../lib/constants';
 const NavBar = () => {
     const [isOpen, setIsOpen] = useState(false);
     const [isLoggedIn, setIsLoggedIn] = useState(false);
@@ -17,11 +19,18 @@ const NavBar = () => {
         setShowLoginModal(true);
     };
 
-    const handleLogout = () => {
+    const handleLogout = async () => {
+        // revoke the token server side before forgetting it, a failed call still logs out locally
+        try {
+            await fetch(`${API_BASE_URL}/logout`, { method: 'POST', headers: authHeaders() });
+        } catch (error) {
+            console.error('Logout request failed:', error);
+        }
         setIsLoggedIn(false);
         setUser(null);
         localStorage.removeItem('minechat_user');
         localStorage.removeItem('minechat_auth'); 
+        localStorage.removeItem('minechat_token');
     };
 
     const handleProfileClick = () => {
@@ -46,6 +55,7 @@ const NavBar = () => {
                 setShowLoginModal(false);
                 
                 localStorage.setItem('minechat_user', JSON.stringify(data.user));
+                localStorage.setItem('minechat_token', data.sessionToken);
                 localStorage.setItem('minechat_auth', JSON.stringify({
                     username: credentials.username,
                     password: credentials.password
@@ -1,6 +1,15 @@
 /* eslint-disable @typescript-eslint/no-explicit-any */
 import { API_BASE_URL } from './constants';
 
+export const TOKEN_KEY = 'minechat_token';
+
+// the session token from /auth, sent as a bearer token on every api call
+export function authHeaders(): Record<string, string> {
+  if (typeof window === 'undefined') return {};
+  const token = localStorage.getItem(TOKEN_KEY);
+  return token ? { Authorization: `Bearer ${token}` } : {};
+}
+
 export interface Player {
   playerName: string;
   playerUUID: string;
@@ -123,6 +132,7 @@ export class MinechatAPI {
     const config: RequestInit = {
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
         ...options.headers,
       },
       ...options,
@@ -812,6 +822,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -836,6 +847,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -860,6 +872,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -884,6 +897,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -907,6 +921,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -930,6 +945,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -950,6 +966,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -969,6 +986,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -989,6 +1007,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -1009,6 +1028,7 @@ export const moderationApi = {
       method: 'POST',
       headers: {
         'Content-Type': 'application/json',
+        ...authHeaders(),
       },
       body: JSON.stringify({
         groupId,
@@ -1030,14 +1050,14 @@ export const api = new MinechatAPI();
 
 export const settingsApi = {
   getUserSettings: async (playerUUID: string) => {
-    const res = await fetch(`${API_BASE_URL}/user-settings?playerUUID=${encodeURIComponent(playerUUID)}`);
+    const res = await fetch(`${API_BASE_URL}/user-settings?playerUUID=${encodeURIComponent(playerUUID)}`, { headers: authHeaders() });
     if (!res.ok) throw new Error('Failed to load user settings');
     return res.json();
   },
   enableWebAccess: async (playerUUID: string, playerName: string, password: string) => {
     const res = await fetch(`${API_BASE_URL}/enable-web-access`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify({ playerUUID, playerName, password })
     });
     if (!res.ok) throw new Error('Failed to enable web access');
@@ -1046,7 +1066,7 @@ export const settingsApi = {
   disableWebAccess: async (playerUUID: string) => {
     const res = await fetch(`${API_BASE_URL}/disable-web-access`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify({ playerUUID })
     });
     if (!res.ok) throw new Error('Failed to disable web access');
@@ -1055,10 +1075,13 @@ export const settingsApi = {
   updateWebPassword: async (playerUUID: string, playerName: string, currentPassword: string | undefined, newPassword: string) => {
     const res = await fetch(`${API_BASE_URL}/update-web-password`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify({ playerUUID, playerName, currentPassword, newPassword })
     });
     if (!res.ok) throw new Error('Failed to update web password');
-    return res.json();
+    const data = await res.json();
+    // older tokens are revoked by the password change
+    if (data.sessionToken) localStorage.setItem(TOKEN_KEY, data.sessionToken);
+    return data;
   }
 };
@@ -15,7 +15,8 @@ export const HOMEPAGE_WELCOME_MESSAGE = `Welcome to ${SERVER_NAME}! Connect with
 
 // API Configuration
 export const API_BASE_URL = 'http://localhost:8080/api';
-export const WS_URL = 'ws://localhost:8081/ws';
+// /ws is served on the api's own port (web.server.shared-port), so it lives on the same origin
+export const WS_URL = API_BASE_URL.replace(/^http/, 'ws').replace(/\/api$/, '/ws');
 
 
 
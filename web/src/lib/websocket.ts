@@ -175,6 +175,14 @@ export class MinechatWebSocket {
           success = data.success === true || data.authenticated === true;
         }
         
+        // an expired or revoked token: forget it and fall back to the password once
+        if (!success && usedToken) {
+          usedToken = false;
+          localStorage.removeItem('minechat_token');
+          this.send({ type: 'auth', data: { username, password }, timestamp: Date.now() });
+          return;
+        }
+
         this.isAuthenticated = success;
         this.removeListener('auth_response', handleAuthResponse);
         resolve(success);
@@ -182,9 +190,12 @@ export class MinechatWebSocket {
 
       this.addListener('auth_response', handleAuthResponse);
 
+      // a stored session token skips the password check on the server, the password is the fallback
+      const token = typeof window !== 'undefined' ? localStorage.getItem('minechat_token') : null;
+      let usedToken = token !== null;
       this.send({
         type: 'auth',
-        data: { username, password },
+        data: token ? { token } : { username, password },
         timestamp: Date.now()
       });
     });
@@ -207,6 +218,9 @@ export class MinechatWebSocket {
         username: (message as any).username,
         sessionId: (message as any).sessionId
       };
+      if ((message as any).token && typeof window !== 'undefined') {
+        localStorage.setItem('minechat_token', (message as any).token);
+      }
       this.emit(message.type, authData);
       return;
     }